@@ -39,6 +39,40 @@ application {
     mainClass.set("ReadWriteRegisterMutexes.App")
 }
 
+// Source set of the generator of the lock classes specialized for a fixed
+// number of threads (see SpecializedLockGenerator)
+sourceSets {
+    create("generator")
+}
+
+// Directory of the generated specialized lock classes
+val specializedLocksDir = file("$buildDir/generated/sources/specializedLocks/java/main")
+
+// Generate TournamentLockN, ColoredBakeryLockN and OneBitLockN for 2, 4 and 8
+// threads before compiling the main classes
+val generateSpecializedLocks by tasks.registering(JavaExec::class) {
+    classpath = sourceSets["generator"].runtimeClasspath
+    mainClass.set("ReadWriteRegisterMutexes.SpecializedLockGenerator")
+    args(specializedLocksDir, "2", "4", "8")
+    outputs.dir(specializedLocksDir)
+    doFirst {
+        delete(specializedLocksDir)
+    }
+}
+
+sourceSets["main"].java.srcDir(specializedLocksDir)
+
+tasks.compileJava {
+    dependsOn(generateSpecializedLocks)
+}
+
+// Run the benchmark of the locks shared by several JVMs, for example:
+// ./gradlew interProcessBenchmark --args="OneBitLock,FileChannelLock 2,4 100000"
+tasks.register<JavaExec>("interProcessBenchmark") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("ReadWriteRegisterMutexes.InterProcessBenchmark")
+}
+
 // Increase JVM heap size when running project
 tasks.withType<JavaExec>().configureEach {
     jvmArgs = listOf("-Xms1G", "-Xmx20G")
@@ -0,0 +1,392 @@
+/** Generator of the lock classes specialized for a fixed number of threads
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/** Generator of the lock classes specialized for a fixed number of threads
+ *
+ * For each number of threads N, it writes TournamentLockN, ColoredBakeryLockN
+ * and OneBitLockN. They run the same algorithms on the same registers as
+ * TournamentLock, ColoredBakeryLock and OneBitLock, but every loop over the
+ * levels of the tree or over the other threads is unrolled, and every
+ * register index that only depends on N is a constant. The JIT compiler
+ * cannot do this for the generic classes, whose N is a field.
+ *
+ * The Gradle build runs it before compiling the main classes (see the
+ * generateSpecializedLocks task), and LockFactory.createSpecialized picks the
+ * generated classes by name.
+ */
+public class SpecializedLockGenerator {
+
+    /** Entry point
+     *
+     * @param args  Output source directory, followed by the numbers of threads
+     */
+    public static void main(String[] args) throws IOException {
+        Path out = Paths.get(args[0]);
+        for (int k = 1; k < args.length; k++) {
+            int n = Integer.parseInt(args[k]);
+            if (n < 2 || Integer.bitCount(n) != 1) {
+                throw new IllegalArgumentException(
+                    "Number of threads must be a power of 2 larger than 1: "
+                    + n);
+            }
+            write(out, "Tournament", "TournamentLock" + n,
+                tournamentLock(n));
+            write(out, "ColoredBakery", "ColoredBakeryLock" + n,
+                coloredBakeryLock(n));
+            write(out, "OneBit", "OneBitLock" + n, oneBitLock(n));
+        }
+    }
+
+    /** Write a generated class
+     *
+     * @param out   Output source directory
+     * @param pkg   Subpackage of ReadWriteRegisterMutexes
+     * @param name  Class name
+     * @param source    Source code of the class
+     */
+    private static void write(Path out, String pkg, String name, String source)
+            throws IOException {
+        Path dir = out.resolve("ReadWriteRegisterMutexes").resolve(pkg);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(name + ".java"), source.getBytes("UTF-8"));
+    }
+
+    /** Add a constant base to an index expression
+     *
+     * @param base  Constant base
+     * @param expr  Index expression
+     * @return Source of base + expr, without the base if it is 0
+     */
+    private static String plus(int base, String expr) {
+        if (base != 0) {
+            return base + " + " + expr;
+        }
+        if (expr.startsWith("(") && expr.endsWith(")")) {
+            return expr.substring(1, expr.length() - 1);
+        }
+        return expr;
+    }
+
+    /** Source of the header of a generated class
+     *
+     * @param pkg   Subpackage of ReadWriteRegisterMutexes
+     * @param name  Class name
+     * @param generic   Name of the generic class
+     * @param n Number of threads
+     * @return Source up to the class body
+     */
+    private static String header(String pkg, String name, String generic,
+            int n) {
+        return "/** " + name + " is " + generic + " specialized for " + n
+            + " threads\n"
+            + " *\n"
+            + " * Generated by SpecializedLockGenerator. Do not edit.\n"
+            + " */\n"
+            + "package ReadWriteRegisterMutexes." + pkg + ";\n"
+            + "\n"
+            + "import ReadWriteRegisterMutexes.RegisterFile;\n"
+            + "import ReadWriteRegisterMutexes.RegisterFileFactory;\n"
+            + "import ReadWriteRegisterMutexes.SpinPolicy;\n"
+            + "\n"
+            + "/** " + name + " class runs the algorithm of " + generic
+            + " for exactly " + n + "\n"
+            + " * threads, with its loops unrolled and its register indices "
+            + "folded to constants\n"
+            + " *\n"
+            + " * The registers are the same as in " + generic + ".\n"
+            + " */\n"
+            + "public final class " + name
+            + " implements ReadWriteRegisterMutexes.Lock {\n"
+            + "    /** Number of threads\n"
+            + "     */\n"
+            + "    public static final int N = " + n + ";\n"
+            + "\n";
+    }
+
+    /** Source of the fields and constructors of a generated class
+     *
+     * @param name  Class name
+     * @param field Name of the register file field
+     * @param size  Number of registers
+     * @return Source of the fields and constructors
+     */
+    private static String constructors(String name, String field, int size) {
+        return "    /** Shared registers\n"
+            + "     */\n"
+            + "    private final RegisterFile " + field + ";\n"
+            + "\n"
+            + "    /** Policy of the wait loops\n"
+            + "     */\n"
+            + "    private final SpinPolicy spinPolicy;\n"
+            + "\n"
+            + "    /** Constructor\n"
+            + "     *\n"
+            + "     * The wait loops busy wait.\n"
+            + "     */\n"
+            + "    public " + name + "() {\n"
+            + "        this(SpinPolicy.busyWait());\n"
+            + "    }\n"
+            + "\n"
+            + "    /** Constructor\n"
+            + "     *\n"
+            + "     * @param spinPolicy    Policy of the wait loops\n"
+            + "     */\n"
+            + "    public " + name + "(SpinPolicy spinPolicy) {\n"
+            + "        this(spinPolicy, RegisterFile.Layout.COMPACT);\n"
+            + "    }\n"
+            + "\n"
+            + "    /** Constructor\n"
+            + "     *\n"
+            + "     * @param spinPolicy    Policy of the wait loops\n"
+            + "     * @param registers Factory of the register file\n"
+            + "     */\n"
+            + "    public " + name + "(SpinPolicy spinPolicy, "
+            + "RegisterFileFactory registers) {\n"
+            + "        this.spinPolicy = spinPolicy;\n"
+            + "        this." + field + " = registers.createInt(" + size + ");\n"
+            + "    }\n"
+            + "\n";
+    }
+
+    /** Source of the reset method and the end of a generated class
+     *
+     * @param field Name of the register file field
+     * @return Source of the end of the class
+     */
+    private static String footer(String field) {
+        return "    /** Reset the lock to its initial state\n"
+            + "     */\n"
+            + "    public void reset() {\n"
+            + "        this." + field + ".clear();\n"
+            + "    }\n"
+            + "}\n";
+    }
+
+    /** Source of TournamentLockN
+     *
+     * wantCS[level][2*node+id] is at level*N + (tid >> level), and
+     * turn[level][node] at hTree*N + level*N/2 + (tid >> (level+1)), as in
+     * TournamentLock.
+     *
+     * @param n Number of threads
+     * @return Source of the class
+     */
+    private static String tournamentLock(int n) {
+        String name = "TournamentLock" + n;
+        int hTree = Integer.numberOfTrailingZeros(n);
+        int turn = hTree * n;
+        StringBuilder s = new StringBuilder();
+        s.append(header("Tournament", name, "TournamentLock", n));
+        s.append(constructors(name, "registers", hTree * n + hTree * (n / 2)));
+
+        s.append("    /** Lock or critical section entry protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param tid Thread ID\n"
+            + "     */\n"
+            + "    public void lock(int tid) {\n"
+            + "        int entry, idj, spins;\n");
+        for (int level = 0; level < hTree; level++) {
+            String want = plus(level * n, "entry");
+            String other = plus(level * n, "(entry ^ 1)");
+            String node = plus(turn + level * (n / 2), "(entry >> 1)");
+            s.append("\n"
+                + "        // Level " + level + "\n"
+                + "        entry = " + ((level == 0) ? "tid"
+                    : "tid >> " + level) + ";\n"
+                + "        idj = 1 - (entry & 1);\n"
+                + "        this.registers.setBoolean(" + want + ", true);\n"
+                + "        this.registers.set(" + node + ", idj);\n"
+                + "        spins = 0;\n"
+                + "        while (this.registers.getBoolean(" + other + ")\n"
+                + "            && this.registers.get(" + node + ") == idj) {\n"
+                + "            this.spinPolicy.spin(tid, spins++);\n"
+                + "        }\n");
+        }
+        s.append("    }\n\n");
+
+        s.append("    /** Unlock or critical section exit protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param tid Thread ID\n"
+            + "     */\n"
+            + "    public void unlock(int tid) {\n");
+        for (int level = hTree - 1; level >= 0; level--) {
+            s.append("        this.registers.setBoolean("
+                + plus(level * n, (level == 0) ? "tid"
+                    : "(tid >> " + level + ")")
+                + ", false);\n");
+        }
+        s.append("        this.spinPolicy.unlocked(tid);\n"
+            + "    }\n\n");
+        s.append(footer("registers"));
+        return s.toString();
+    }
+
+    /** Source of ColoredBakeryLockN
+     *
+     * The shared color is at 0, choosing[i] at 1+i, ticketNum[i] at 1+N+i and
+     * ticketColor[i] at 1+2N+i, as in ColoredBakeryLock. Only thread i writes
+     * its ticket and color, so it keeps them in local variables instead of
+     * reading them back, which keeps the unrolled method small enough for the
+     * JIT compiler to inline every register access.
+     *
+     * @param n Number of threads
+     * @return Source of the class
+     */
+    private static String coloredBakeryLock(int n) {
+        String name = "ColoredBakeryLock" + n;
+        int choosing = 1;
+        int number = 1 + n;
+        int color = 1 + 2 * n;
+        StringBuilder s = new StringBuilder();
+        s.append(header("ColoredBakery", name, "ColoredBakeryLock", n));
+        s.append("    /** Ticket colors\n"
+            + "     */\n"
+            + "    private static final int WHITE = 0;\n"
+            + "    private static final int BLACK = 1;\n"
+            + "\n");
+        s.append(constructors(name, "registers", 1 + 3 * n));
+
+        s.append("    /** Lock or critical section entry protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param i Thread ID\n"
+            + "     */\n"
+            + "    public void lock(int i) {\n"
+            + "        int spins;\n"
+            + "\n"
+            + "        // Doorway\n"
+            + "        this.registers.setBoolean(" + plus(choosing, "i")
+            + ", true);\n"
+            + "        int myColor = this.registers.get(0);\n"
+            + "        this.registers.set(" + plus(color, "i")
+            + ", myColor);\n"
+            + "        int myTicket = 0;\n");
+        for (int j = 0; j < n; j++) {
+            String number_j = "this.registers.get(" + (number + j) + ")";
+            s.append("        if (this.registers.get(" + (color + j)
+                + ") == myColor\n"
+                + "            && " + number_j + " > myTicket) {\n"
+                + "            myTicket = " + number_j + ";\n"
+                + "        }\n");
+        }
+        s.append("        myTicket = myTicket + 1;\n"
+            + "        this.registers.set(" + plus(number, "i")
+            + ", myTicket);\n"
+            + "        this.registers.setBoolean(" + plus(choosing, "i")
+            + ", false);\n");
+        for (int j = 0; j < n; j++) {
+            String number_j = "this.registers.get(" + (number + j) + ")";
+            String color_j = "this.registers.get(" + (color + j) + ")";
+            s.append("\n"
+                + "        // Wait for thread " + j + "\n"
+                + "        spins = 0;\n"
+                + "        while (this.registers.getBoolean(" + (choosing + j)
+                + ")) {\n"
+                + "            this.spinPolicy.spin(i, spins++);\n"
+                + "        }\n"
+                + "        if (" + color_j + " == myColor) {\n"
+                + "            while (" + number_j + " != 0\n"
+                + "                && " + color_j + " == myColor\n"
+                + "                && (" + number_j + " < myTicket\n"
+                + "                    || (" + number_j + " == myTicket && "
+                + j + " < i))) {\n"
+                + "                this.spinPolicy.spin(i, spins++);\n"
+                + "            }\n"
+                + "        } else {\n"
+                + "            while (" + number_j + " != 0\n"
+                + "                && myColor == this.registers.get(0)\n"
+                + "                && " + color_j + " != myColor) {\n"
+                + "                this.spinPolicy.spin(i, spins++);\n"
+                + "            }\n"
+                + "        }\n");
+        }
+        s.append("    }\n\n");
+
+        s.append("    /** Unlock or critical section exit protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param i Thread ID\n"
+            + "     */\n"
+            + "    public void unlock(int i) {\n"
+            + "        if (this.registers.get(" + plus(color, "i")
+            + ") == BLACK) {\n"
+            + "            this.registers.set(0, WHITE);\n"
+            + "        } else {\n"
+            + "            this.registers.set(0, BLACK);\n"
+            + "        }\n"
+            + "        this.registers.set(" + plus(number, "i") + ", 0);\n"
+            + "        this.spinPolicy.unlocked(i);\n"
+            + "    }\n\n");
+        s.append(footer("registers"));
+        return s.toString();
+    }
+
+    /** Source of OneBitLockN
+     *
+     * Bit i is at i, as in OneBitLock. Only thread i writes its bit, so it
+     * keeps it in a local variable instead of reading it back.
+     *
+     * @param n Number of threads
+     * @return Source of the class
+     */
+    private static String oneBitLock(int n) {
+        String name = "OneBitLock" + n;
+        StringBuilder s = new StringBuilder();
+        s.append(header("OneBit", name, "OneBitLock", n));
+        s.append(constructors(name, "b", n));
+
+        s.append("    /** Lock or critical section entry protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param pid Thread ID\n"
+            + "     */\n"
+            + "    public void lock(int pid) {\n"
+            + "        int spins;\n"
+            + "        boolean mine = false;\n"
+            + "        while (!mine) {\n"
+            + "            this.b.setBoolean(pid, true);\n"
+            + "            mine = true;\n");
+        for (int j = 0; j < n - 1; j++) {
+            s.append("            if (" + j + " < pid && mine"
+                + " && this.b.getBoolean(" + j + ")) {\n"
+                + "                this.b.setBoolean(pid, false);\n"
+                + "                mine = false;\n"
+                + "                spins = 0;\n"
+                + "                while (this.b.getBoolean(" + j + ")) {\n"
+                + "                    this.spinPolicy.spin(pid, spins++);\n"
+                + "                }\n"
+                + "            }\n");
+        }
+        s.append("        }\n");
+        for (int j = 1; j < n; j++) {
+            s.append("        if (" + j + " > pid) {\n"
+                + "            spins = 0;\n"
+                + "            while (this.b.getBoolean(" + j + ")) {\n"
+                + "                this.spinPolicy.spin(pid, spins++);\n"
+                + "            }\n"
+                + "        }\n");
+        }
+        s.append("    }\n\n");
+
+        s.append("    /** Unlock or critical section exit protocol method of "
+            + "mutex\n"
+            + "     *\n"
+            + "     * @param pid Thread ID\n"
+            + "     */\n"
+            + "    public void unlock(int pid) {\n"
+            + "        this.b.setBoolean(pid, false);\n"
+            + "        this.spinPolicy.unlocked(pid);\n"
+            + "    }\n\n");
+        s.append(footer("b"));
+        return s.toString();
+    }
+}
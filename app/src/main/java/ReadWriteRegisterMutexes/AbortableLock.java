@@ -0,0 +1,38 @@
+/** Mutex lock interface with an abortable entry protocol
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Mutex lock interface with an abortable entry protocol
+ *
+ * A thread that gives up withdraws from the protocol by clearing the registers
+ * it wrote (its flags or its ticket), as unlock would, so the threads waiting
+ * for it go on as if it had never tried.
+ */
+public interface AbortableLock extends Lock {
+    /** Lock or critical section entry protocol method of mutex that gives up
+     * after a timeout
+     *
+     * The thread gives up when it has waited for nanos nanoseconds, or when it
+     * is interrupted (its interrupt status is left set). With nanos <= 0 it
+     * gives up as soon as it would have to wait.
+     *
+     * @param tid Thread ID
+     * @param nanos Maximum time to wait in nanoseconds
+     * @return True if the lock was acquired, false if the thread gave up
+     */
+    public boolean tryLock(int tid, long nanos);
+
+    /** Check if a thread trying to lock must give up
+     *
+     * Called by the wait loops of tryLock before each spin.
+     *
+     * @param start Value of System.nanoTime() when tryLock was called
+     * @param nanos Maximum time to wait in nanoseconds
+     * @return True if the time is over or the thread was interrupted
+     */
+    public static boolean giveUp(long start, long nanos) {
+        return nanos <= 0 || System.nanoTime() - start >= nanos
+            || Thread.currentThread().isInterrupted();
+    }
+}
@@ -0,0 +1,186 @@
+/** Adapter of an AbortableLock to java.util.concurrent.locks.Lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/** Adapter of an AbortableLock to java.util.concurrent.locks.Lock
+ *
+ * The thread IDs of the callers are leased from a SlotRegistry (see
+ * LeasedLock), so the lock can be used wherever the standard interface is
+ * expected. tryLock and lockInterruptibly use the abortable entry protocol,
+ * and lock uses the plain one. The lock is not reentrant. Its conditions are
+ * RegisterConditions, the same as the conditions of ReentrantRegisterLock.
+ */
+public class AbortableLockAdapter implements java.util.concurrent.locks.Lock {
+    /** Wrapped lock
+     */
+    private final AbortableLock lock;
+
+    /** Registry of the thread IDs
+     */
+    private final SlotRegistry registry;
+
+    /** Thread holding the lock, or null
+     *
+     * Only written by the thread in the critical section.
+     */
+    private volatile Thread owner;
+
+    /** Thread ID of the thread holding the lock
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int holder;
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for numThreads threads
+     * @param numThreads    Number of threads using the lock at the same time
+     */
+    public AbortableLockAdapter(AbortableLock lock, int numThreads) {
+        this(lock, new SlotRegistry(numThreads));
+    }
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for the slots of the registry
+     * @param registry  Registry of the thread IDs
+     */
+    public AbortableLockAdapter(AbortableLock lock, SlotRegistry registry) {
+        this.lock = lock;
+        this.registry = registry;
+    }
+
+    /** Record the calling thread as the holder
+     *
+     * @param tid Thread ID of the calling thread
+     */
+    private void acquired(int tid) {
+        this.holder = tid;
+        this.owner = Thread.currentThread();
+    }
+
+    /** Acquire the lock, waiting as long as needed
+     */
+    @Override
+    public void lock() {
+        int tid = this.registry.slot();
+        this.lock.lock(tid);
+        this.acquired(tid);
+    }
+
+    /** Acquire the lock unless the thread is interrupted
+     *
+     * @throws InterruptedException If the thread is interrupted before or
+     *  while it waits
+     */
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!this.tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            // Only an interrupt stops an unbounded wait
+            throw new InterruptedException();
+        }
+    }
+
+    /** Acquire the lock only if no thread has to be waited for
+     *
+     * @return True if the lock was acquired
+     */
+    @Override
+    public boolean tryLock() {
+        int tid = this.registry.slot();
+        if (!this.lock.tryLock(tid, 0)) {
+            return false;
+        }
+        this.acquired(tid);
+        return true;
+    }
+
+    /** Acquire the lock if it is free within the timeout
+     *
+     * @param time  Maximum time to wait
+     * @param unit  Unit of time
+     * @return True if the lock was acquired, false if the time elapsed
+     * @throws InterruptedException If the thread is interrupted before or
+     *  while it waits
+     */
+    @Override
+    public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        int tid = this.registry.slot();
+        if (!this.lock.tryLock(tid, unit.toNanos(time))) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return false;
+        }
+        this.acquired(tid);
+        return true;
+    }
+
+    /** Release the lock
+     *
+     * @throws IllegalMonitorStateException If the calling thread does not hold
+     *  the lock
+     */
+    @Override
+    public void unlock() {
+        int tid = this.checkHolder();
+        this.owner = null;
+        this.lock.unlock(tid);
+    }
+
+    /** Check that the calling thread holds the lock
+     *
+     * @return Thread ID of the calling thread
+     * @throws IllegalMonitorStateException If it does not hold the lock
+     */
+    private int checkHolder() {
+        if (this.owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException(
+                "Lock not held by " + Thread.currentThread().getName());
+        }
+        return this.holder;
+    }
+
+    /** Build a new condition of this lock
+     *
+     * @return New condition
+     */
+    @Override
+    public Condition newCondition() {
+        return new RegisterCondition() {
+            @Override
+            int checkHolder() {
+                return AbortableLockAdapter.this.checkHolder();
+            }
+
+            @Override
+            int release(int tid) {
+                AbortableLockAdapter.this.owner = null;
+                AbortableLockAdapter.this.lock.unlock(tid);
+                return 1;   // Not reentrant
+            }
+
+            @Override
+            void reacquire(int tid, int holds) {
+                AbortableLockAdapter.this.lock.lock(tid);
+                AbortableLockAdapter.this.acquired(tid);
+            }
+        };
+    }
+
+    /** Get the wrapped lock
+     *
+     * @return Wrapped lock
+     */
+    public AbortableLock getLock() {
+        return this.lock;
+    }
+}
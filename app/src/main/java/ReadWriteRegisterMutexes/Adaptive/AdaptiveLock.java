@@ -5,23 +5,33 @@
  * Synchronization Algorithms and Concurrent Programming textbook by Gadi
  * Taubenfeld in pages 105 to 110.
  * 
- * If the maximum number of splitters (infArrSize) is reached, a ReentrantLock
- * is acquired to ensure safety without requiring infinite memory.
+ * The algorithm uses an infinite array of splitters, so the lock has a
+ * maximum number of splitters (infArrSize), and fails when it is reached.
  */
 package ReadWriteRegisterMutexes.Adaptive;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
+
+import ReadWriteRegisterMutexes.RegisterFile;
+import ReadWriteRegisterMutexes.RegisterFileFactory;
+import ReadWriteRegisterMutexes.SpinPolicy;
 
 /** AdaptiveLock class implements a mutex lock using the Simple Adaptive
  * Algorithm
  * 
  * This mutex uses the Simple Adaptive Algorithm by M. Merritt and G. Taubenfeld.
  * 
- * If the maximum number of splitters (infArrSize) is reached, a ReentrantLock
- * is acquired to ensure safety without requiring infinite memory.
+ * The number of splitters is bounded by maxSplitters: lock throws an
+ * IllegalStateException when a thread reaches the level after the last one.
+ * Each acquisition moves next at most n levels further, so a lock used for
+ * k acquisitions needs up to n*k splitters (see RecyclingAdaptiveLock for a
+ * bounded version).
  */
 public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
+    /** Number of int entries in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
     /** Infinite array size
      * 
      * This variable sets the real size of the arrays behind the lock
@@ -33,73 +43,98 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
      */
     private int n;
 
-    /** Next level
-     * 
-     * Shared variable (it might be accessed by multiple threads concurrently).
+    /** Index of the next register
      */
-    private AtomicInteger next;
+    private static final int NEXT = 0;
 
-    /** Array of x values for all levels
-     * 
-     * Shared variable (all entries might be accessed by multiple threads
-     * concurrently).
+    /** Number of registers of each level
      */
-    private AtomicInteger[] x;
+    private static final int LEVEL = 4;
 
-    /** Array of y values for all levels
+    /** Offsets of the x, y, z and b registers inside the block of a level
+     */
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int Z = 2;
+    private static final int B = 3;
+
+    /** Shared registers
      * 
      * Shared variable (all entries might be accessed by multiple threads
-     * concurrently).
+     * concurrently). The register file holds next at NEXT, followed by the
+     * x, y, z and b values of each level: the registers of level l start at
+     * 1+LEVEL*l. x is an int register, y, z and b are boolean registers.
      */
-    private AtomicBoolean[] y;
+    private final RegisterFile registers;
 
-    /** Array of z values for all levels
+    /** Current levels of the threads
      * 
-     * Shared variable (all entries might be accessed by multiple threads
-     * concurrently).
+     * Local variable (each entry is accessed only by one thread). The level of
+     * the ith thread is at index LINE*i, so the threads do not write to the
+     * same cache line. It is only written when a thread wins, and read by
+     * unlock.
+     */
+    private int[] levels;
+
+    /** Policy of the wait loops
      */
-    private AtomicBoolean[] z;
+    private SpinPolicy spinPolicy;
 
-    /** Array of b values for all levels
+    /** Constructor
      * 
-     * Shared variable (all entries might be accessed by multiple threads
-     * concurrently).
+     * The wait loops busy wait.
+     * 
+     * @param numThreads    Number of threads using the lock
+     * @param maxSplitters  Maximum number of splitters
      */
-    private AtomicBoolean[] b;
+    public AdaptiveLock(int numThreads, int maxSplitters) {
+        this(numThreads, maxSplitters, SpinPolicy.busyWait());
+    }
 
-    /** Current levels of the threads
+    /** Constructor
      * 
-     * Local variable (each entry is accessed only by one thread). The ith entry
-     * contains the level for the ith thread.
+     * @param numThreads    Number of threads using the lock
+     * @param maxSplitters  Maximum number of splitters
+     * @param spinPolicy    Policy of the wait loops
      */
-    private int[] level;
+    public AdaptiveLock(int numThreads, int maxSplitters, SpinPolicy spinPolicy) {
+        this(numThreads, maxSplitters, spinPolicy, RegisterFile.Layout.COMPACT);
+    }
 
     /** Constructor
+     * 
+     * The PADDED layout takes a cache line per register, so it needs 256 bytes
+     * per splitter.
      * 
      * @param numThreads    Number of threads using the lock
-     * @param maxSplitters  Maximum number of splitters after to acquire another lock
+     * @param maxSplitters  Maximum number of splitters
+     * @param spinPolicy    Policy of the wait loops
+     * @param registers Factory of the register file (a RegisterFile.Layout,
+     * or a MappedRegisterFactory to share the lock between processes)
      */
-    public AdaptiveLock(int numThreads, int maxSplitters) {
+    public AdaptiveLock(int numThreads, int maxSplitters, SpinPolicy spinPolicy,
+            RegisterFileFactory registers) {
+        if (maxSplitters <= 0 || maxSplitters > (Integer.MAX_VALUE - 1) / LEVEL) {
+            throw new IllegalArgumentException(
+                "Invalid number of splitters: " + maxSplitters);
+        }
+
         // Initialize instance variables
+        this.spinPolicy = spinPolicy;
         this.infArrSize = maxSplitters;
         this.n = numThreads;
-        this.next = new AtomicInteger(0);
-        this.x = new AtomicInteger[this.infArrSize];
-        this.y = new AtomicBoolean[this.infArrSize];
-        this.z = new AtomicBoolean[this.infArrSize];
-        this.b = new AtomicBoolean[this.infArrSize];
-        this.level = new int[this.n];
-
-        for (int i=0; i<this.infArrSize; i++) {
-            this.x[i] = new AtomicInteger(0);
-            this.y[i] = new AtomicBoolean(false);
-            this.z[i] = new AtomicBoolean(false);
-            this.b[i] = new AtomicBoolean(false);
-        }
+        this.registers = registers.createInt(1 + LEVEL * this.infArrSize); // All 0
+        this.levels = new int[LINE * this.n];
+    }
 
-        for (int i=0; i<this.n; i++) {
-            this.level[i] = 0;
-        }
+    /** Index of a register of a level
+     * 
+     * @param level Level of the register
+     * @param offset    Offset of the register in the block of the level
+     * @return Index of the register in the register file
+     */
+    private static int index(int level, int offset) {
+        return 1 + LEVEL * level + offset;
     }
 
     /** Lock or critical section entry protocol method of mutex
@@ -112,6 +147,7 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
         // This part was moved, see START comment
         boolean start = true;
         boolean win = false;  // Ensure we run the while loop at least once
+        int level = 0;  // Current level of this thread
 
         // repeat
         while (!win) {
@@ -125,25 +161,28 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
             // behavior as the `goto start`.
             if (start) {
                 start = false;
-                this.level[tid] = this.next.get();
+                level = this.registers.get(NEXT);
+            }
 
-                if (this.level[tid] >= (this.infArrSize - 1)) {
-                    System.out.println("T" +tid + " reached last level or higher: "
-                        + this.level[tid]);
-                }
+            // The infinite array of splitters ends here
+            if (level >= this.infArrSize) {
+                throw new IllegalStateException("All the " + this.infArrSize
+                    + " splitters are used: T" + tid + " reached level "
+                    + level);
             }
 
             // x[level] := i
-            this.x[this.level[tid]].set(tid);
+            this.registers.set(index(level, X), tid);
 
             // if y[level] then
-            if (this.y[this.level[tid]].get()) {
+            if (this.registers.getBoolean(index(level, Y))) {
                 // b[level] := 1
-                this.b[this.level[tid]].set(true);
+                this.registers.setBoolean(index(level, B), true);
 
                 // await level < next
-                while ( !( this.level[tid] < this.next.get() ) ) {
-                    System.out.print(""); // Do nothing
+                int spins = 0;
+                while ( !( level < this.registers.get(NEXT) ) ) {
+                    this.spinPolicy.spin(tid, spins++);
                 }
 
                 // goto start
@@ -152,22 +191,24 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
             } // fi
 
             // y[level] := 1
-            this.y[this.level[tid]].set(true);
+            this.registers.setBoolean(index(level, Y), true);
 
             // if x[level] != i then
-            if (this.x[this.level[tid]].get() != tid) {
+            if (this.registers.get(index(level, X)) != tid) {
                 // await (b[level] = 1) or (z[level] = 1)
-                while ( !( this.b[this.level[tid]].get() ||
-                           this.z[this.level[tid]].get() ) ) {
-                    System.out.print(""); // Do nothing
+                int spins = 0;
+                while ( !( this.registers.getBoolean(index(level, B)) ||
+                           this.registers.getBoolean(index(level, Z)) ) ) {
+                    this.spinPolicy.spin(tid, spins++);
                 }
 
                 // if z[level] = 1 then
-                if (this.z[this.level[tid]].get()) {
+                if (this.registers.getBoolean(index(level, Z))) {
                     // Move right
                     // await level < next
-                    while ( !( this.level[tid] < this.next.get() ) ) {
-                        System.out.print(""); // Do nothing
+                    spins = 0;
+                    while ( !( level < this.registers.get(NEXT) ) ) {
+                        this.spinPolicy.spin(tid, spins++);
                     }
 
                     // goto start
@@ -176,34 +217,26 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
                 } else { // else
                     // Move down
                     // level := level + 1
-                    this.level[tid] = this.level[tid] + 1;
-
-                    if (this.level[tid] >= (this.infArrSize - 1)) {
-                        System.out.println("T" +tid + " reached last level or higher: "
-                            + this.level[tid]);
-                    }
+                    level = level + 1;
                 } // fi
             } else { // else
                 // z[level] := 1
-                this.z[this.level[tid]].set(true);
+                this.registers.setBoolean(index(level, Z), true);
 
                 // if b[level] = 0 then
-                if (!this.b[this.level[tid]].get()) {
+                if (!this.registers.getBoolean(index(level, B))) {
                     // Win
                     // win := 1
                     win = true;
                 } else { // else
                     // Move down
                     // level := level + 1
-                    this.level[tid] = this.level[tid] + 1;
-
-                    if (this.level[tid] >= (this.infArrSize - 1)) {
-                        System.out.println("T" +tid + " reached last level or higher: "
-                            + this.level[tid]);
-                    }
+                    level = level + 1;
                 } // fi
             } // fi
         } // until win = 1
+
+        this.levels[LINE * tid] = level;
     }
 
     /** Unlock or critical section exit protocol method of mutex
@@ -212,12 +245,27 @@ public class AdaptiveLock implements ReadWriteRegisterMutexes.Lock {
      */
     public void unlock(int tid) {
         // Exit
-        if ((this.level[tid] + 1) >= (this.infArrSize - 1)) {
-            System.out.println("T" +tid + " set next to last level or higher: "
-                + (this.level[tid] + 1));
-        }
+        int level = this.levels[LINE * tid];
 
         // next := level + 1
-        this.next.set(this.level[tid] + 1);
+        this.registers.set(NEXT, level + 1);
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     * 
+     * A thread that starts at next can go down at most n-1 levels, so only
+     * the levels below next+n were used and need to be reset.
+     */
+    public void reset() {
+        int used = (int) Math.min((long) this.registers.get(NEXT) + this.n,
+            this.infArrSize);
+        for (int i=index(0, 0); i<index(used, 0); i++) {
+            this.registers.set(i, 0);
+        }
+        Arrays.fill(this.levels, 0);
+        this.registers.set(NEXT, 0);
     }
 }
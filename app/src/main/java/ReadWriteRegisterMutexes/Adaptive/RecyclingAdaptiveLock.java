@@ -0,0 +1,347 @@
+/** RecyclingAdaptiveLock is a mutex lock implementation of the Simple Adaptive
+ * Algorithm by M. Merritt and G. Taubenfeld that runs in bounded space.
+ *
+ * This mutex implementation is based on the algorithm description from the
+ * Synchronization Algorithms and Concurrent Programming textbook by Gadi
+ * Taubenfeld in pages 105 to 110, like AdaptiveLock.
+ *
+ * AdaptiveLock needs an infinite array of splitters, because every acquisition
+ * moves next to a new level. This implementation maps level l to the slot
+ * l mod R of a ring of R splitters, where R is at least 2n, and reuses the
+ * slot once the level is behind next.
+ */
+package ReadWriteRegisterMutexes.Adaptive;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** RecyclingAdaptiveLock class implements a mutex lock using the Simple
+ * Adaptive Algorithm with a fixed-size ring of splitters
+ *
+ * The x, y, z and b registers of a splitter are packed in a single long,
+ * together with the generation (l / R) of the level l using the slot. A thread
+ * at level l reads and writes the splitter as follows:
+ *
+ * - If the slot holds an older generation, the splitter of level l has not
+ *   been used yet, and its registers have their initial values.
+ * - If the slot holds the generation of l, the registers are those of level l.
+ * - If the slot holds a newer generation, the slot was recycled, and the
+ *   thread goes back to start.
+ *
+ * Writes use compareAndSet, so a thread cannot overwrite the slot after it
+ * was recycled. A thread can only reach a level below next + n, so a slot is
+ * only recycled after next moved past the level that used it before, and
+ * only threads that were already late are sent back to start. Those threads
+ * would have waited for level < next and gone back to start in AdaptiveLock.
+ *
+ * The memory used is O(n) regardless of the number of acquisitions.
+ */
+public class RecyclingAdaptiveLock implements ReadWriteRegisterMutexes.Lock {
+    /** Number of long registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 8;
+
+    /** Number of bits of the x register (thread ID) in a slot
+     */
+    private static final int X_BITS = 20;
+
+    /** Mask of the x register in a slot
+     */
+    private static final long X = (1L << X_BITS) - 1;
+
+    /** Bit of the y register in a slot
+     */
+    private static final long Y = 1L << X_BITS;
+
+    /** Bit of the z register in a slot
+     */
+    private static final long Z = 1L << (X_BITS + 1);
+
+    /** Bit of the b register in a slot
+     */
+    private static final long B = 1L << (X_BITS + 2);
+
+    /** Position of the generation in a slot
+     *
+     * The generation uses the remaining 41 bits, and is compared modulo 2^41.
+     */
+    private static final int GEN_SHIFT = X_BITS + 3;
+
+    /** Mask of the registers of a slot
+     */
+    private static final long REGISTERS = (1L << GEN_SHIFT) - 1;
+
+    /** Value returned when reading a recycled slot
+     */
+    private static final long RECYCLED = -1L;
+
+    /** Number of threads
+     */
+    private int n;
+
+    /** Number of bits of the ring size R
+     */
+    private int ringBits;
+
+    /** Next level
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private AtomicLong next;
+
+    /** Ring of splitters
+     *
+     * Shared variable (all entries might be accessed by multiple threads
+     * concurrently). The splitter of level l is at index LINE*(1 + l mod R),
+     * each in its own cache line.
+     */
+    private AtomicLongArray slots;
+
+    /** Current levels of the threads
+     *
+     * Local variable (each entry is accessed only by one thread). The level of
+     * the ith thread is at index LINE*i, so the threads do not share cache
+     * lines.
+     */
+    private long[] level;
+
+    /** Policy of the wait loops
+     */
+    private SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait.
+     *
+     * @param numThreads    Number of threads using the lock (at most 2^20)
+     */
+    public RecyclingAdaptiveLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock (at most 2^20)
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public RecyclingAdaptiveLock(int numThreads, SpinPolicy spinPolicy) {
+        if (numThreads < 1 || numThreads > (1 << X_BITS)) {
+            throw new IllegalArgumentException("Number of threads must be"
+                + " between 1 and " + (1 << X_BITS) + ": " + numThreads);
+        }
+
+        // Initialize instance variables
+        this.spinPolicy = spinPolicy;
+        this.n = numThreads;
+        this.ringBits = 1;
+        while ((1 << this.ringBits) < 2 * this.n) {
+            this.ringBits++;
+        }
+        this.next = new AtomicLong(0);
+        this.slots = new AtomicLongArray(LINE * ((1 << this.ringBits) + 1));
+        this.level = new long[LINE * this.n];
+    }
+
+    /** Getter method for the number of splitters in the ring
+     *
+     * @return Number of splitters (R)
+     */
+    public int getRingSize() {
+        return 1 << this.ringBits;
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        // Enter the chain (list) of splitters
+        // start: level := next
+        start:
+        while (true) {
+            long lvl = this.next.get();
+
+            // repeat
+            while (true) {
+                int slot = slotIndex(lvl);
+                long gen = lvl >>> this.ringBits;
+
+                // x[level] := i
+                if (!update(slot, gen, X, tid)) {
+                    continue start;
+                }
+
+                // if y[level] then
+                long regs = read(slot, gen);
+                if (regs == RECYCLED) {
+                    continue start;
+                }
+                if ((regs & Y) != 0) {
+                    // b[level] := 1
+                    if (!update(slot, gen, 0, B)) {
+                        continue start;
+                    }
+
+                    // await level < next
+                    awaitNext(tid, lvl);
+
+                    // goto start
+                    continue start;
+                } // fi
+
+                // y[level] := 1
+                if (!update(slot, gen, 0, Y)) {
+                    continue start;
+                }
+
+                // if x[level] != i then
+                regs = read(slot, gen);
+                if (regs == RECYCLED) {
+                    continue start;
+                }
+                if ((regs & X) != tid) {
+                    // await (b[level] = 1) or (z[level] = 1)
+                    int spins = 0;
+                    while (regs != RECYCLED && (regs & (B | Z)) == 0) {
+                        this.spinPolicy.spin(tid, spins++);
+                        regs = read(slot, gen);
+                    }
+                    if (regs == RECYCLED) {
+                        continue start;
+                    }
+
+                    // if z[level] = 1 then
+                    if ((regs & Z) != 0) {
+                        // Move right
+                        // await level < next
+                        awaitNext(tid, lvl);
+
+                        // goto start
+                        continue start;
+                    } // fi
+
+                    // Move down
+                    // level := level + 1
+                    lvl++;
+                } else { // else
+                    // z[level] := 1
+                    if (!update(slot, gen, 0, Z)) {
+                        continue start;
+                    }
+
+                    // if b[level] = 0 then
+                    regs = read(slot, gen);
+                    if (regs == RECYCLED) {
+                        continue start;
+                    }
+                    if ((regs & B) == 0) {
+                        // Win
+                        this.level[LINE * tid] = lvl;
+                        return;
+                    } // fi
+
+                    // Move down
+                    // level := level + 1
+                    lvl++;
+                } // fi
+            } // until win = 1
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        // Exit
+        // next := level + 1
+        this.next.set(this.level[LINE * tid] + 1);
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Find the index of the splitter of a level
+     *
+     * @param lvl Level
+     * @return Index of the splitter in the slots array
+     */
+    private int slotIndex(long lvl) {
+        return LINE * (1 + (int) (lvl & ((1 << this.ringBits) - 1)));
+    }
+
+    /** Compare the generation stored in a slot with the generation of a level
+     *
+     * @param value Value of the slot
+     * @param gen   Generation of the level
+     * @return Negative if the slot is older, zero if it is the same generation,
+     *  and positive if the slot was recycled
+     */
+    private static long compareGen(long value, long gen) {
+        // Difference modulo 2^41, sign extended
+        return (((value >>> GEN_SHIFT) - gen) << GEN_SHIFT) >> GEN_SHIFT;
+    }
+
+    /** Read the registers of the splitter of a level
+     *
+     * @param slot  Index of the splitter
+     * @param gen   Generation of the level
+     * @return Registers of the splitter, or RECYCLED if the slot was recycled
+     */
+    private long read(int slot, long gen) {
+        long value = this.slots.get(slot);
+        long cmp = compareGen(value, gen);
+        if (cmp > 0) {
+            return RECYCLED;
+        }
+        return (cmp < 0) ? 0 : (value & REGISTERS);
+    }
+
+    /** Write registers of the splitter of a level
+     *
+     * @param slot  Index of the splitter
+     * @param gen   Generation of the level
+     * @param clear Registers to clear before setting the new bits
+     * @param set   Register bits to set
+     * @return False if the slot was recycled, and nothing was written
+     */
+    private boolean update(int slot, long gen, long clear, long set) {
+        while (true) {
+            long value = this.slots.get(slot);
+            long cmp = compareGen(value, gen);
+            if (cmp > 0) {
+                return false;
+            }
+            long regs = (cmp < 0) ? 0 : (value & REGISTERS);
+            long updated = (gen << GEN_SHIFT) | (regs & ~clear) | set;
+            if (this.slots.compareAndSet(slot, value, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /** Wait until next moves past a level
+     *
+     * @param tid Thread ID
+     * @param lvl Level
+     */
+    private void awaitNext(int tid, long lvl) {
+        int spins = 0;
+        while ( !( lvl < this.next.get() ) ) {
+            this.spinPolicy.spin(tid, spins++);
+        }
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.slots.length(); i++) {
+            this.slots.set(i, 0);
+        }
+        Arrays.fill(this.level, 0);
+        this.next.set(0);
+    }
+}
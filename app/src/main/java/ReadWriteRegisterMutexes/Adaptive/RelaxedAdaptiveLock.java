@@ -0,0 +1,253 @@
+/** RelaxedAdaptiveLock is a mutex lock implementation of the Simple Adaptive
+ * Algorithm by M. Merritt and G. Taubenfeld with relaxed memory ordering
+ *
+ * This implementation runs the same algorithm as AdaptiveLock, but the
+ * registers of each level are packed in an int array accessed through a
+ * VarHandle, and next is accessed with acquire/release ordering.
+ */
+package ReadWriteRegisterMutexes.Adaptive;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** RelaxedAdaptiveLock class implements a mutex lock using the Simple
+ * Adaptive Algorithm with the weakest memory ordering it allows
+ *
+ * Each splitter is a chain of Dekker-style handshakes: a thread writes x, y or
+ * z and then reads a register another thread writes before reading the one it
+ * wrote, and the thread that sets b must be seen by a thread that reads b
+ * after z. These accesses keep volatile mode, since the algorithm relies on a
+ * single order of all of them.
+ *
+ * next is different: it only publishes the end of a critical section. unlock
+ * writes it with release mode, without the full fence of a volatile write, and
+ * the waiting threads read it with acquire mode, so the critical section
+ * happens before the threads that see the new value.
+ *
+ * The number of splitters is bounded by maxSplitters: lock throws an
+ * IllegalStateException when a thread reaches the level after the last one.
+ */
+public class RelaxedAdaptiveLock implements ReadWriteRegisterMutexes.Lock {
+    /** Access to the elements of the registers array
+     */
+    private static final VarHandle REGISTER =
+        MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** Access to next
+     */
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup().findVarHandle(
+                RelaxedAdaptiveLock.class, "next", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Number of int entries in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** Number of registers of each level
+     */
+    private static final int LEVEL = 4;
+
+    /** Offsets of the registers inside the block of a level
+     */
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int Z = 2;
+    private static final int B = 3;
+
+    /** Infinite array size
+     *
+     * This variable sets the real number of levels behind the lock
+     * implementation, because infinite arrays are not a thing in the real world.
+     */
+    private final int infArrSize;
+
+    /** Number of threads
+     */
+    private final int n;
+
+    /** Next level
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     * Only accessed through NEXT.
+     */
+    private int next;
+
+    /** x, y, z and b of all the levels
+     *
+     * Shared variable (all entries might be accessed by multiple threads
+     * concurrently). The registers of level l start at LEVEL*l. Only accessed
+     * through REGISTER.
+     */
+    private final int[] registers;
+
+    /** Current levels of the threads
+     *
+     * Local variable (each entry is accessed only by one thread). The level of
+     * the ith thread is at index LINE*i.
+     */
+    private final int[] levels;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait.
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param maxSplitters  Maximum number of splitters
+     */
+    public RelaxedAdaptiveLock(int numThreads, int maxSplitters) {
+        this(numThreads, maxSplitters, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param maxSplitters  Maximum number of splitters
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public RelaxedAdaptiveLock(int numThreads, int maxSplitters,
+            SpinPolicy spinPolicy) {
+        this.spinPolicy = spinPolicy;
+        this.infArrSize = maxSplitters;
+        this.n = numThreads;
+        this.registers = new int[LEVEL * this.infArrSize];
+        this.levels = new int[LINE * this.n];
+        VarHandle.releaseFence();   // Publish the zeroed registers
+    }
+
+    /** Read a register of a level
+     *
+     * @param level Level of the register
+     * @param offset    Offset of the register in the block of the level
+     * @return Value of the register
+     */
+    private int get(int level, int offset) {
+        return (int) REGISTER.getVolatile(this.registers, LEVEL * level + offset);
+    }
+
+    /** Write a register of a level
+     *
+     * @param level Level of the register
+     * @param offset    Offset of the register in the block of the level
+     * @param value New value of the register
+     */
+    private void set(int level, int offset, int value) {
+        REGISTER.setVolatile(this.registers, LEVEL * level + offset, value);
+    }
+
+    /** Wait until the critical section of a level is over
+     *
+     * @param tid Thread ID
+     * @param level Level of the thread
+     */
+    private void awaitNext(int tid, int level) {
+        int spins = 0;
+        while (!(level < (int) NEXT.getAcquire(this))) {
+            this.spinPolicy.spin(tid, spins++);
+        }
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        // See AdaptiveLock for the line by line pseudo-code
+        boolean start = true;
+        boolean win = false;
+        int level = 0;  // Current level of this thread
+
+        while (!win) {
+            if (start) {
+                start = false;
+                level = (int) NEXT.getAcquire(this);
+            }
+
+            if (level >= this.infArrSize) {
+                throw new IllegalStateException("All the " + this.infArrSize
+                    + " splitters are used: T" + tid + " reached level "
+                    + level);
+            }
+
+            this.set(level, X, tid);
+
+            if (this.get(level, Y) != 0) {
+                this.set(level, B, 1);
+                this.awaitNext(tid, level);
+                start = true;
+                continue;
+            }
+
+            this.set(level, Y, 1);
+
+            if (this.get(level, X) != tid) {
+                // await (b[level] = 1) or (z[level] = 1)
+                int spins = 0;
+                while (this.get(level, B) == 0 && this.get(level, Z) == 0) {
+                    this.spinPolicy.spin(tid, spins++);
+                }
+
+                if (this.get(level, Z) != 0) {
+                    // Move right
+                    this.awaitNext(tid, level);
+                    start = true;
+                    continue;
+                } else {
+                    // Move down
+                    level = level + 1;
+                }
+            } else {
+                this.set(level, Z, 1);
+
+                if (this.get(level, B) == 0) {
+                    win = true;
+                } else {
+                    // Move down
+                    level = level + 1;
+                }
+            }
+        }
+
+        this.levels[LINE * tid] = level;
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int level = this.levels[LINE * tid];
+
+        // next := level + 1, after the critical section
+        NEXT.setRelease(this, level + 1);
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     *
+     * A thread that starts at next can go down at most n-1 levels, so only
+     * the levels below next+n were used and need to be reset.
+     */
+    public void reset() {
+        int used = (int) Math.min((long) this.next + this.n, this.infArrSize);
+        Arrays.fill(this.registers, 0, LEVEL * used, 0);
+        Arrays.fill(this.levels, 0);
+        this.next = 0;
+        VarHandle.fullFence();
+    }
+}
@@ -10,6 +10,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -36,6 +37,19 @@ public class AdaptiveLockBenchmarks {
          */
         int adaptiveMaxSplitters;
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         *
+         * PADDED is left out: it takes a cache line per register, and the
+         * 80000000 splitters of this benchmark do not fit in it.
+         */
+        @Param({"COMPACT", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -55,6 +69,13 @@ public class AdaptiveLockBenchmarks {
             System.out.print("Setup trial: ");
             this.adaptiveMaxSplitters = 80000000;
             this.benchmark = new IncrementBenchmark();
+            this.lock = new AdaptiveLock
+            (
+                this.benchmark.getHeavyContentionThreadNum(),
+                this.adaptiveMaxSplitters,
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -62,11 +83,7 @@ public class AdaptiveLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new AdaptiveLock
-            (
-                this.benchmark.getHeavyContentionThreadNum(),
-                this.adaptiveMaxSplitters
-            );
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -81,7 +98,6 @@ public class AdaptiveLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -94,6 +110,16 @@ public class AdaptiveLockBenchmarks {
          */
         int adaptiveMaxSplitters;
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         */
+        @Param({"COMPACT", "PADDED", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -113,6 +139,13 @@ public class AdaptiveLockBenchmarks {
             System.out.print("Setup trial: ");
             this.adaptiveMaxSplitters = 10000000;
             this.benchmark = new IncrementBenchmark();
+            this.lock = new AdaptiveLock
+            (
+                this.benchmark.getNoContentionThreadNum(),
+                this.adaptiveMaxSplitters,
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -120,11 +153,7 @@ public class AdaptiveLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new AdaptiveLock
-            (
-                this.benchmark.getNoContentionThreadNum(),
-                this.adaptiveMaxSplitters
-            );
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -139,7 +168,6 @@ public class AdaptiveLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -0,0 +1,249 @@
+/** Lock decorator biased toward the thread that keeps acquiring it
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Lock decorator biased toward the thread that keeps acquiring it
+ *
+ * The lock is biased toward at most one thread, its owner. The owner enters
+ * by raising its active flag, and checking that nobody asked to revoke the
+ * bias and that it is still the owner. It leaves by lowering its active flag.
+ * The wrapped lock is not used at all.
+ *
+ * Every other thread, and the owner once a revocation was requested, takes
+ * the wrapped lock. If the lock is biased, the thread revokes the bias with a
+ * handshake: it raises the revoke flag, waits until the active flag of the
+ * owner is down, and clears the bias. The owner raises its flag before it
+ * reads the revoke flag, and the revoking thread raises the revoke flag
+ * before it reads the active flag, so at least one of them sees the other
+ * (as in Dekker's algorithm), and they never both enter.
+ *
+ * The bias, the revoke flag and the rebias bookkeeping are only written by
+ * the thread holding the wrapped lock. Once a thread takes the wrapped lock
+ * rebiasAfter times in a row without another thread taking it in between, it
+ * clears the revoke flag and makes itself the owner. The owner checks the bias
+ * again after reading the revoke flag, so a thread that read an old bias
+ * before a revocation and a rebias cannot enter as the old owner.
+ *
+ * All the flags are volatile registers. The store of the active flag must be
+ * ordered before the load of the revoke flag for the handshake, so the owner
+ * path costs one store-load fence instead of the whole entry protocol.
+ */
+public class BiasedLock implements Lock {
+    /** Default number of consecutive wrapped lock acquisitions by the same
+     * thread before the lock is biased toward it
+     */
+    public static final int DEFAULT_REBIAS_AFTER = 4;
+
+    /** Number of int registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** Value of the bias when the lock is not biased
+     */
+    private static final int UNBIASED = 0;
+
+    /** Index of the bias register (owner thread ID plus 1). It shares the block
+     * after the empty leading block with the revoke flag, since both are only
+     * written by the thread holding the wrapped lock
+     */
+    private static final int BIAS = LINE;
+
+    /** Index of the revoke flag
+     */
+    private static final int REVOKE = LINE + 1;
+
+    /** Wrapped lock used by the threads that are not the owner
+     */
+    private final Lock lock;
+
+    /** Number of threads using the lock
+     */
+    private final int numThreads;
+
+    /** Number of consecutive wrapped lock acquisitions by the same thread
+     * before the lock is biased toward it
+     */
+    private final int rebiasAfter;
+
+    /** Shared registers: bias, revoke flag, and active[i] in the block
+     * starting at LINE*(i+2)
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Whether each thread entered through the owner path
+     *
+     * Local variable (each thread only accesses its own entry, at
+     * LINE*(tid+1)).
+     */
+    private final boolean[] biased;
+
+    /** Last thread that took the wrapped lock
+     *
+     * Only accessed by the thread holding the wrapped lock.
+     */
+    private int lastTid;
+
+    /** Number of times in a row lastTid took the wrapped lock
+     *
+     * Only accessed by the thread holding the wrapped lock.
+     */
+    private int streak;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait.
+     *
+     * @param lock  Wrapped lock used by the threads that are not the owner
+     * @param numThreads    Number of threads using the lock
+     */
+    public BiasedLock(Lock lock, int numThreads) {
+        this(lock, numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param lock  Wrapped lock used by the threads that are not the owner
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public BiasedLock(Lock lock, int numThreads, SpinPolicy spinPolicy) {
+        this(lock, numThreads, spinPolicy, DEFAULT_REBIAS_AFTER);
+    }
+
+    /** Constructor
+     *
+     * @param lock  Wrapped lock used by the threads that are not the owner
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     * @param rebiasAfter   Number of consecutive wrapped lock acquisitions by
+     *  the same thread before the lock is biased toward it
+     */
+    public BiasedLock(Lock lock, int numThreads, SpinPolicy spinPolicy,
+            int rebiasAfter) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads: numThreads must be >0");
+        }
+        if (rebiasAfter <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid rebias threshold: rebiasAfter must be >0");
+        }
+        this.lock = lock;
+        this.numThreads = numThreads;
+        this.spinPolicy = spinPolicy;
+        this.rebiasAfter = rebiasAfter;
+        this.registers = new AtomicIntegerArray(LINE * (numThreads + 2));
+        this.biased = new boolean[LINE * (numThreads + 1)];
+        this.lastTid = -1;
+        this.streak = 0;
+    }
+
+    /** Index of the active flag of a thread
+     *
+     * @param tid   Thread ID
+     * @return Index of active[tid] in registers
+     */
+    private static int active(int tid) {
+        return LINE * (tid + 2);
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int me = tid + 1;
+
+        // Owner path
+        if (this.registers.get(BIAS) == me) {
+            this.registers.set(active(tid), 1);
+            if (this.registers.get(REVOKE) == 0
+                    && this.registers.get(BIAS) == me) {
+                this.biased[LINE * (tid + 1)] = true;
+                return;
+            }
+            this.registers.set(active(tid), 0);
+        }
+
+        // Everybody else
+        this.lock.lock(tid);
+        int owner = this.registers.get(BIAS);
+        if (owner != UNBIASED) {
+            // Revoke the bias and wait for the owner to leave
+            this.registers.set(REVOKE, 1);
+            int spins = 0;
+            while (this.registers.get(active(owner - 1)) != 0) {
+                this.spinPolicy.spin(tid, spins++);
+            }
+            this.registers.set(BIAS, UNBIASED);
+        }
+
+        // Bias the lock toward us if we keep taking it
+        if (this.lastTid == tid) {
+            this.streak++;
+        } else {
+            this.lastTid = tid;
+            this.streak = 1;
+        }
+        if (this.streak >= this.rebiasAfter) {
+            this.registers.set(REVOKE, 0);
+            this.registers.set(BIAS, me);
+            this.streak = 0;
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        if (this.biased[LINE * (tid + 1)]) {
+            this.biased[LINE * (tid + 1)] = false;
+            this.registers.set(active(tid), 0);
+        } else {
+            this.lock.unlock(tid);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock and the wrapped lock to their initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+        for (int i = 0; i < this.biased.length; i++) {
+            this.biased[i] = false;
+        }
+        this.lastTid = -1;
+        this.streak = 0;
+        this.lock.reset();
+    }
+
+    /** Get the thread the lock is biased toward
+     *
+     * @return Thread ID of the owner, or -1 if the lock is not biased
+     */
+    public int getOwner() {
+        return this.registers.get(BIAS) - 1;
+    }
+
+    /** Getter method for the wrapped lock
+     *
+     * @return Wrapped lock used by the threads that are not the owner (lock)
+     */
+    public Lock getLock() {
+        return this.lock;
+    }
+}
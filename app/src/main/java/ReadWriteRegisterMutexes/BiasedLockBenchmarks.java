@@ -0,0 +1,131 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** BiasedLock benchmarks
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class BiasedLockBenchmarks {
+
+    /** Owner affinity benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class AffinityState {
+
+        /** Number of worker threads
+         */
+        @Param({"2", "8"})
+        public int numThreads;
+
+        /** Percentage of the increments done by thread 0
+         */
+        @Param({"100", "99", "90", "50"})
+        public int ownerPercent;
+
+        /** Type of wrapped lock (see LockFactory)
+         */
+        @Param({"KesselsTournamentLock", "ColoredBakeryLock", "OneBitLock"})
+        public String lockType;
+
+        /** Whether the lock is wrapped in a BiasedLock
+         */
+        @Param({"true", "false"})
+        public boolean biased;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = LockFactory.create(this.lockType, this.numThreads,
+                SpinPolicy.fromName(this.spinPolicy));
+            if (this.biased) {
+                this.lock = new BiasedLock(this.lock, this.numThreads,
+                    SpinPolicy.fromName(this.spinPolicy));
+            }
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.benchmark.getIncrementNum()) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.benchmark.getIncrementNum() + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Owner affinity benchmark
+     *
+     * The benchmark measures the time that numThreads worker threads take to
+     * increment a shared variable gIncrements times in total, each time under
+     * the lock. Thread 0 does ownerPercent percent of the increments and the
+     * other threads split the rest, so the lock is acquired by the same thread
+     * most of the time when ownerPercent is high, and changes hands often when
+     * it is low.
+     *
+     * This benchmark is designed to find the owner share at which the biased
+     * lock stops paying for its revocations.
+     */
+    @Benchmark
+    public void affinity(AffinityState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runAffinityBenchmark
+        (
+            state.numThreads,
+            state.benchmark.getIncrementNum(),
+            state.ownerPercent,
+            state.lock
+        );
+    }
+}
@@ -0,0 +1,91 @@
+/** Bounded buffer of ints guarded by a lock with two conditions
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.locks.Condition;
+
+/** Bounded buffer of ints guarded by a lock with two conditions
+ *
+ * The classic producer/consumer buffer: put waits on notFull while the buffer
+ * is full, and take waits on notEmpty while it is empty. It works with any
+ * java.util.concurrent.locks.Lock that supports conditions, so the same
+ * workload runs on ReentrantLock and on a ReentrantRegisterLock.
+ */
+public class BoundedBuffer {
+    /** Lock guarding the buffer
+     */
+    private final java.util.concurrent.locks.Lock lock;
+
+    /** Signalled when an item is taken
+     */
+    private final Condition notFull;
+
+    /** Signalled when an item is put
+     */
+    private final Condition notEmpty;
+
+    /** Items, in a circular array
+     */
+    private final int[] items;
+
+    /** Index of the next item to take
+     */
+    private int head;
+
+    /** Number of items in the buffer
+     */
+    private int count;
+
+    /** Constructor
+     *
+     * @param capacity  Maximum number of items
+     * @param lock  Lock guarding the buffer
+     */
+    public BoundedBuffer(int capacity, java.util.concurrent.locks.Lock lock) {
+        this.lock = lock;
+        this.notFull = lock.newCondition();
+        this.notEmpty = lock.newCondition();
+        this.items = new int[capacity];
+    }
+
+    /** Put an item, waiting while the buffer is full
+     *
+     * @param item  Item
+     * @throws InterruptedException If the thread is interrupted while it waits
+     */
+    public void put(int item) throws InterruptedException {
+        this.lock.lock();
+        try {
+            while (this.count == this.items.length) {
+                this.notFull.await();
+            }
+            this.items[(this.head + this.count) % this.items.length] = item;
+            this.count++;
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /** Take an item, waiting while the buffer is empty
+     *
+     * @return Oldest item
+     * @throws InterruptedException If the thread is interrupted while it waits
+     */
+    public int take() throws InterruptedException {
+        this.lock.lock();
+        try {
+            while (this.count == 0) {
+                this.notEmpty.await();
+            }
+            int item = this.items[this.head];
+            this.head = (this.head + 1) % this.items.length;
+            this.count--;
+            this.notFull.signal();
+            return item;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
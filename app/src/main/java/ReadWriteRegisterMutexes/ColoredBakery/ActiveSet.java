@@ -0,0 +1,88 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ActiveSet keeps the set of processes that are currently interested in a lock
+ *
+ * The set is a bitmap with one bit per process, stored in 64-bit words. Each
+ * word sits in a cache line of its own. A process adds itself before it starts
+ * the entry protocol and removes itself after the exit protocol, so a scan only
+ * needs to read numWords() words and visit the set bits, instead of reading a
+ * register of every process the lock was sized for.
+ *
+ * Setting and clearing a bit uses compareAndSet on the word, so the bits of
+ * other processes sharing the word are not lost.
+ */
+
+public class ActiveSet {
+
+    /* Number of long registers in a cache line (64 bytes) */
+    private static final int LINE = 8;
+
+    /* Words of the bitmap. Word w is stored at index LINE*(w+1) */
+    private final AtomicLongArray words;
+
+    /* Number of words in the bitmap */
+    private final int numWords;
+
+    public ActiveSet(int numProcess){
+        this.numWords = (numProcess + 63) >>> 6;
+        this.words = new AtomicLongArray(LINE * (this.numWords + 1));
+    }
+
+    /** Add a process to the set
+     *
+     * @param pid Process ID
+     */
+    public void add(int pid) {
+        int w = LINE * ((pid >>> 6) + 1);
+        long bit = 1L << pid;   // Shifts are modulo 64
+        long old;
+        do {
+            old = words.get(w);
+        } while (!words.compareAndSet(w, old, old | bit));
+    }
+
+    /** Remove a process from the set
+     *
+     * @param pid Process ID
+     */
+    public void remove(int pid) {
+        int w = LINE * ((pid >>> 6) + 1);
+        long bit = 1L << pid;
+        long old;
+        do {
+            old = words.get(w);
+        } while (!words.compareAndSet(w, old, old & ~bit));
+    }
+
+    /** Getter method for the number of words of the bitmap
+     *
+     * @return Number of 64-bit words in the bitmap (numWords)
+     */
+    public int numWords() {
+        return this.numWords;
+    }
+
+    /** Read a word of the bitmap
+     *
+     * Bit b of word w is set if process 64*w+b is in the set.
+     *
+     * @param w Index of the word
+     * @return Current value of the word
+     */
+    public long word(int w) {
+        return words.get(LINE * (w + 1));
+    }
+
+    /** Remove all the processes from the set
+     *
+     * Must not be called concurrently with add or remove.
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+}
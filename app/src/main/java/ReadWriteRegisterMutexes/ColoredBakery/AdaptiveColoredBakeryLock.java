@@ -0,0 +1,160 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/**
+ * AdaptiveColoredBakeryLock is a lock implementation of the Black-White Bakery
+ * Algorithm whose scans only visit the processes that are currently active
+ *
+ * This implementation uses the packed tickets of PackedColoredBakeryLock, and
+ * adds an ActiveSet of the processes that are between the start of the entry
+ * protocol and the end of the exit protocol. The doorway and the waiting loop
+ * iterate over the active set instead of all N processes, so the cost of an
+ * acquire depends on the number of contending processes rather than on the
+ * number of processes the lock was sized for.
+ *
+ * A process adds itself to the set before raising its choosing flag, and takes
+ * a new snapshot of the set for the doorway and for the waiting loop. If a
+ * process j is missing from the snapshot of process i, then j joined after i
+ * took it: in the doorway, j has not finished its own doorway, and in the
+ * waiting loop, j started its doorway after i finished its own. In both cases j
+ * would not have been waited for by i in the original algorithm either (j
+ * either gets a larger ticket of the same color, or a ticket of the current
+ * sharedColor, which is larger than i's ticket).
+ */
+
+public class AdaptiveColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+
+    /* Ticket Colors */
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /* Number of int registers in a cache line (64 bytes) */
+    private static final int LINE = 16;
+
+    /* Offset of the packed ticket inside the block of a process */
+    private static final int TICKET = 0;
+
+    /* Offset of the choosing flag inside the block of a process */
+    private static final int CHOOSING = 1;
+
+    /* Index of the shared color bit. It has a block of its own after the
+     * empty leading block that keeps the registers away from the array header */
+    private static final int SHARED_COLOR = LINE;
+
+    /* Shared registers. Process i owns the block starting at LINE*(i+2) */
+    private final AtomicIntegerArray registers;
+
+    /* Processes currently in the entry protocol, critical section or exit */
+    private final ActiveSet active;
+
+    /* Number of process*/
+    private int N;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public AdaptiveColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public AdaptiveColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        N = numProcess;
+        this.spinPolicy = spinPolicy;
+        this.registers = new AtomicIntegerArray(LINE * (N + 2));
+        this.registers.set(SHARED_COLOR, WHITE);
+        this.active = new ActiveSet(N);
+    }
+
+    /* Base index of the block of process i */
+    private static int block(int i) {
+        return LINE * (i + 2);
+    }
+
+    @Override
+    public void lock(int pid) {
+        active.add(pid);
+
+        //Step 1
+        //Begin of Doorway
+        int mine = block(pid);
+        registers.set(mine + CHOOSING, 1);
+        int myColor = registers.get(SHARED_COLOR);
+
+        // Find the largest ticket number with our color among active processes
+        int max = 0;
+        for (int w = 0; w < active.numWords(); w++) {
+            long bits = active.word(w);
+            while (bits != 0) {
+                int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (j == pid) {
+                    continue;
+                }
+                int ticket = registers.get(block(j) + TICKET);
+                if ((ticket & 1) == myColor && (ticket >>> 1) > max) {
+                    max = ticket >>> 1;
+                }
+            }
+        }
+        int myNum = max + 1;
+        registers.set(mine + TICKET, (myNum << 1) | myColor);
+        registers.set(mine + CHOOSING, 0);
+        //End of Doorway
+
+        //Step 2
+        // Same order between colored tickets as ColoredBakeryLock, but only
+        // active processes can hold a ticket
+        for (int w = 0; w < active.numWords(); w++) {
+            long bits = active.word(w);
+            while (bits != 0) {
+                int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (j == pid) {
+                    continue;
+                }
+                int base = block(j);
+                int spins = 0;
+                while(registers.get(base + CHOOSING) == 1){
+                    spinPolicy.spin(pid, spins++); //Wait for process finish choosing and move out of doorway
+                }
+                int ticket = registers.get(base + TICKET);
+                if((ticket & 1) == myColor){
+                    while((ticket >>> 1) != 0 && (ticket & 1) == myColor &&
+                            ((ticket >>> 1) < myNum || ((ticket >>> 1) == myNum && j < pid))){
+                        spinPolicy.spin(pid, spins++);
+                        ticket = registers.get(base + TICKET);
+                    }
+                }else {
+                    while ((ticket >>> 1) != 0 && myColor == registers.get(SHARED_COLOR) && (ticket & 1) != myColor) {
+                        spinPolicy.spin(pid, spins++);
+                        ticket = registers.get(base + TICKET);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        int mine = block(pid);
+        if((registers.get(mine + TICKET) & 1) == BLACK){
+            registers.set(SHARED_COLOR, WHITE);
+        }else{
+            registers.set(SHARED_COLOR, BLACK);
+        }
+        registers.set(mine + TICKET, 0);
+        active.remove(pid);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < registers.length(); i++) {
+            registers.set(i, 0);    // Tickets 0, not choosing, sharedColor WHITE
+        }
+        active.clear();
+    }
+}
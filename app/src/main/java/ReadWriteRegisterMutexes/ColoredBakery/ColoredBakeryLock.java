@@ -3,9 +3,10 @@ package ReadWriteRegisterMutexes.ColoredBakery;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
+import ReadWriteRegisterMutexes.AbortableLock;
+import ReadWriteRegisterMutexes.RegisterFile;
+import ReadWriteRegisterMutexes.RegisterFileFactory;
+import ReadWriteRegisterMutexes.SpinPolicy;
 
 /**
  * ColoredBakeryLock is a lock implementation of the Black-White Bakery Algorithm
@@ -14,61 +15,97 @@ import java.util.concurrent.atomic.AtomicIntegerArray;
  * Algorithms and Concurrent Programming textbook by Gadi Taubenfeld at page 56.
  */
 
-public class ColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+public class ColoredBakeryLock implements AbortableLock{
 
     /* Ticket Colors */
     private final int WHITE = 0;
     private final int BLACK = 1;
 
-    /* Shared color bit */
-    private AtomicInteger sharedColor;
+    /* Shared registers, in the register file:
+     *  - Shared color bit, at SHARED_COLOR
+     *  - choosing[i], flag to indicate process i in doorway, at choosing(i)
+     *  - ticketNum[i], the ticket for process i, at ticketNum(i)
+     *  - ticketColor[i], the color of process i's ticket, at ticketColor(i) */
+    private final RegisterFile registers;
 
-    /* Flag to indicate the process in doorway */
-    private AtomicBoolean choosing[];
-
-    /* Ticket number. ticketNum[i] is the ticket for process i */
-    private AtomicInteger []ticketNum;
-
-    /* Ticket color. ticketColor[i] is the color of process i's ticket */
-    private AtomicInteger []ticketColor;
+    /* Index of the shared color bit */
+    private static final int SHARED_COLOR = 0;
 
     /* Number of process*/
     private int N;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
     //private static final Logger log = LogManager.getRootLogger();
 
     public ColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public ColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        this(numProcess, spinPolicy, RegisterFile.Layout.COMPACT);
+    }
+
+    public ColoredBakeryLock(int numProcess, SpinPolicy spinPolicy, RegisterFileFactory registers){
         N = numProcess;
-        this.sharedColor = new AtomicInteger(this.WHITE);
-        this.choosing = new AtomicBoolean[N];
-        this.ticketNum = new AtomicInteger[N];
-        this.ticketColor = new AtomicInteger[N];
-        for (int i = 0; i < N; i++) {
-            this.choosing[i] = new AtomicBoolean(false);
-            this.ticketNum[i] = new AtomicInteger(0);
-            this.ticketColor[i] = new AtomicInteger(this.WHITE);
-        }
+        this.spinPolicy = spinPolicy;
+        // All registers start at 0: not choosing, no ticket, WHITE
+        this.registers = registers.createInt(1 + 3 * N);
+    }
+
+    /* Register indices of choosing[i], ticketNum[i] and ticketColor[i] */
+    private int choosing(int i) {
+        return 1 + i;
+    }
+
+    private int ticketNum(int i) {
+        return 1 + N + i;
+    }
+
+    private int ticketColor(int i) {
+        return 1 + 2 * N + i;
     }
 
     @Override
     public void lock(int pid) {
         //log.debug("Enter lock, PID : " + pid);
+        acquire(pid, false, 0);
+        //log.debug("Exit lock, PID : " + pid);
+    }
+
+    /* Same as lock, but gives up after a timeout. The doorway does not wait,
+     * so a process only gives up in step 2, with its ticket taken: it sets its
+     * ticket back to 0, so the processes that wait for it go on, and leaves
+     * the shared color as it is, since it never entered the critical
+     * section. */
+    @Override
+    public boolean tryLock(int pid, long nanos) {
+        return acquire(pid, true, nanos);
+    }
+
+    /* Entry protocol of lock and tryLock. The process gives up after nanos
+     * nanoseconds only if abortable; lock passes a constant false, so the
+     * checks are gone once this is inlined in lock. */
+    private boolean acquire(int pid, boolean abortable, long nanos) {
+        long start = abortable ? System.nanoTime() : 0;
         //Step 1
         //Begin of Doorway
         int i = pid;
-        choosing[i].set(true);
-        //ticketColor[i].set(sharedColor.get());
-        ticketColor[i].getAndSet(sharedColor.get());
+        registers.setBoolean(choosing(i), true);
+        registers.set(ticketColor(i), registers.get(SHARED_COLOR));
 
         for (int j = 0; j < N; j++) {
-            if(ticketColor[j].get() == ticketColor[i].get() && ticketNum[j].get() > ticketNum[i].get()){
-                ticketNum[i].set(ticketNum[j].get());
+            if(registers.get(ticketColor(j)) == registers.get(ticketColor(i)) && registers.get(ticketNum(j)) > registers.get(ticketNum(i))){
+                registers.set(ticketNum(i), registers.get(ticketNum(j)));
                 //log.debug("Found the largest ticket : " + ticketNum[j].get());
             }
         }
-        int myTicket = ticketNum[i].incrementAndGet();
+        // Only process i writes ticketNum[i], so a read and a write increment it
+        int myTicket = registers.get(ticketNum(i)) + 1;
+        registers.set(ticketNum(i), myTicket);
         ////log.debug("My ticket ticket : " + myTicket);
         //System.out.println("My ticket ticket : " + myTicket);
-        choosing[i].set(false);
+        registers.setBoolean(choosing(i), false);
         //End of Doorway
 
         //Step 2
@@ -80,44 +117,62 @@ public class ColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
         * */
 
         for (int j = 0; j < N; j++) {
-            while(choosing[j].get()){
+            int spins = 0;
+            while(registers.getBoolean(choosing(j))){
                 //log.warn("Waiting for process " + j + " finish choosing and move out of doorway ");
-                ; //Wait for process finish choosing and move out of doorway
+                if (abortable && AbortableLock.giveUp(start, nanos)) {
+                    return withdraw(i);
+                }
+                spinPolicy.spin(pid, spins++); //Wait for process finish choosing and move out of doorway
             }
-            if(ticketColor[j].get() == ticketColor[i].get()){
-                while((ticketNum[j].get() != 0) && (ticketColor[j].get() == ticketColor[i].get()) &&
-                        ((ticketNum[j].get() < ticketNum[i].get()) || ((ticketNum[j].get() == ticketNum[i].get()) && j < i))){
-                    ;
+            if(registers.get(ticketColor(j)) == registers.get(ticketColor(i))){
+                while((registers.get(ticketNum(j)) != 0) && (registers.get(ticketColor(j)) == registers.get(ticketColor(i))) &&
+                        ((registers.get(ticketNum(j)) < registers.get(ticketNum(i))) || ((registers.get(ticketNum(j)) == registers.get(ticketNum(i))) && j < i))){
+                    if (abortable && AbortableLock.giveUp(start, nanos)) {
+                        return withdraw(i);
+                    }
+                    spinPolicy.spin(pid, spins++);
                     //log.warn("PID : " + pid + " waiting at while loop 1");
                     //System.out.print("PID : " + pid + " waiting at while loop 1  ");
                 }
             }else {
-                while ((ticketNum[j].get() != 0) && (ticketColor[i].get() == sharedColor.get()) && (ticketColor[j].get() != ticketColor[i].get())) {
-                    ;
+                while ((registers.get(ticketNum(j)) != 0) && (registers.get(ticketColor(i)) == registers.get(SHARED_COLOR)) && (registers.get(ticketColor(j)) != registers.get(ticketColor(i)))) {
+                    if (abortable && AbortableLock.giveUp(start, nanos)) {
+                        return withdraw(i);
+                    }
+                    spinPolicy.spin(pid, spins++);
                     //log.warn("PID : " + pid + " waiting at while loop 2");
                     //System.out.print("PID : " + pid + " waiting at while loop 2  ");
                 }
             }
         }
-        //log.debug("Exit lock, PID : " + pid);
+        return true;
+    }
+
+    /* Give back the ticket of process i after it gave up. Returns false, the
+     * result of tryLock */
+    private boolean withdraw(int i) {
+        registers.set(ticketNum(i), 0);
+        spinPolicy.unlocked(i); // Wake up the threads parked by the spin policy
+        return false;
     }
 
     @Override
     public void unlock(int pid) {
         //log.debug("Enter unlock, PID : " + pid);
-        if(ticketColor[pid].get() == BLACK){
-            int oldColor = sharedColor.get();
-            if(!sharedColor.compareAndSet(oldColor, WHITE)){
-                System.out.println("compareAndSet is false for WHITE");
-            }
+        // Only the holder writes the shared color, so no compareAndSet is needed
+        if(registers.get(ticketColor(pid)) == BLACK){
+            registers.set(SHARED_COLOR, WHITE);
         }else{
-            int oldColor = sharedColor.get();
-            if(!sharedColor.compareAndSet(oldColor, BLACK)){
-                System.out.println("compareAndSet is false for BLACK");
-            }
+            registers.set(SHARED_COLOR, BLACK);
         }
-        ticketNum[pid].getAndSet(0);
+        registers.set(ticketNum(pid), 0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
         //log.debug("Exit unlock, PID : " + pid);
     }
-}
 
+    @Override
+    public void reset() {
+        registers.clear();
+    }
+}
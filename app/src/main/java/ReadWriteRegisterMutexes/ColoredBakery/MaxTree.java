@@ -0,0 +1,99 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * MaxTree is a tree of maxima over one value per process
+ *
+ * The leaves of a complete binary tree hold the value of each process, and each
+ * internal node holds the maximum of its two children, so the maximum of all the
+ * values is read from the root in a single read. A process updates its leaf and
+ * then refreshes every node on the path to the root, so an update costs O(log N)
+ * reads and writes.
+ *
+ * Each refresh reads the node, reads both children, and installs their maximum
+ * with compareAndSet. A refresh is attempted up to twice per node, as in
+ * Jayanti's f-arrays: if both attempts fail, another process installed a value
+ * that it computed after our first attempt started, so our update is reflected
+ * in the node. Every node carries a version counter in its high 32 bits, so a
+ * compareAndSet cannot succeed on a node that changed and changed back.
+ *
+ * Each node sits in a cache line of its own.
+ */
+
+public class MaxTree {
+
+    /* Number of long registers in a cache line (64 bytes) */
+    private static final int LINE = 8;
+
+    /* Mask of the value inside a node register */
+    private static final long VALUE_MASK = 0xFFFFFFFFL;
+
+    /* Version increment of a node register */
+    private static final long VERSION = 1L << 32;
+
+    /* Nodes of the tree, stored as a heap: the root is node 1, and the
+     * children of node k are 2k and 2k+1. Node k is at index LINE*k */
+    private final AtomicLongArray nodes;
+
+    /* Number of leaves (smallest power of 2 larger or equal to N) */
+    private final int leaves;
+
+    public MaxTree(int numProcess){
+        int l = 1;
+        while (l < numProcess) {
+            l *= 2;
+        }
+        this.leaves = l;
+        this.nodes = new AtomicLongArray(LINE * 2 * this.leaves);
+    }
+
+    /** Read the maximum of the values of all the processes
+     *
+     * @return Maximum value in the tree
+     */
+    public int max() {
+        return (int) (nodes.get(LINE) & VALUE_MASK);
+    }
+
+    /** Set the value of a process and propagate it to the root
+     *
+     * Values must be non-negative.
+     *
+     * @param pid   Process ID
+     * @param value New value of the process
+     */
+    public void update(int pid, int value) {
+        int node = this.leaves + pid;
+        long old = nodes.get(LINE * node);
+        nodes.set(LINE * node, (old & ~VALUE_MASK) + VERSION + value);
+
+        // Refresh every node on the path to the root
+        for (node = node / 2; node >= 1; node = node / 2) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                old = nodes.get(LINE * node);
+                long left = nodes.get(LINE * (2 * node)) & VALUE_MASK;
+                long right = nodes.get(LINE * (2 * node + 1)) & VALUE_MASK;
+                long max = Math.max(left, right);
+
+                // Install the maximum even if it did not change, so that the
+                // version changes and a refresh that read the children before
+                // our update cannot succeed afterwards
+                if (nodes.compareAndSet(LINE * node, old,
+                        (old & ~VALUE_MASK) + VERSION + max)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /** Set the value of every process to 0
+     *
+     * Must not be called concurrently with update.
+     */
+    public void clear() {
+        for (int i = 0; i < nodes.length(); i++) {
+            nodes.set(i, 0);
+        }
+    }
+}
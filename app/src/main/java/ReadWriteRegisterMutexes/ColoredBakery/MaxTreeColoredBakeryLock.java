@@ -0,0 +1,142 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/**
+ * MaxTreeColoredBakeryLock is a lock implementation of the Black-White Bakery
+ * Algorithm with an O(log N) doorway
+ *
+ * This implementation uses the packed tickets of PackedColoredBakeryLock, but
+ * the doorway does not scan the tickets of all the processes to find the largest
+ * one of its color. Instead, there is a MaxTree per color whose leaves hold the
+ * ticket numbers of that color. A process reads the largest ticket of its color
+ * from the root of the tree, and publishes its own ticket up the tree before it
+ * leaves the doorway, so any process that starts its doorway later sees it.
+ * The doorway therefore costs O(log N) shared reads and writes instead of O(N).
+ *
+ * The waiting loop still visits every process, as in ColoredBakeryLock.
+ */
+
+public class MaxTreeColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+
+    /* Ticket Colors */
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /* Number of int registers in a cache line (64 bytes) */
+    private static final int LINE = 16;
+
+    /* Offset of the packed ticket inside the block of a process */
+    private static final int TICKET = 0;
+
+    /* Offset of the choosing flag inside the block of a process */
+    private static final int CHOOSING = 1;
+
+    /* Index of the shared color bit. It has a block of its own after the
+     * empty leading block that keeps the registers away from the array header */
+    private static final int SHARED_COLOR = LINE;
+
+    /* Shared registers. Process i owns the block starting at LINE*(i+2) */
+    private final AtomicIntegerArray registers;
+
+    /* Ticket numbers of each color. trees[c] holds the numbers of the tickets
+     * of color c, and 0 for the other processes */
+    private final MaxTree[] trees;
+
+    /* Number of process*/
+    private int N;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public MaxTreeColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public MaxTreeColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        N = numProcess;
+        this.spinPolicy = spinPolicy;
+        this.registers = new AtomicIntegerArray(LINE * (N + 2));
+        this.registers.set(SHARED_COLOR, WHITE);
+        this.trees = new MaxTree[] {new MaxTree(N), new MaxTree(N)};
+    }
+
+    /* Base index of the block of process i */
+    private static int block(int i) {
+        return LINE * (i + 2);
+    }
+
+    @Override
+    public void lock(int pid) {
+        //Step 1
+        //Begin of Doorway
+        int mine = block(pid);
+        registers.set(mine + CHOOSING, 1);
+        int myColor = registers.get(SHARED_COLOR);
+
+        // Read the largest ticket number with our color from the tree, and
+        // publish ours before leaving the doorway
+        int myNum = trees[myColor].max() + 1;
+        registers.set(mine + TICKET, (myNum << 1) | myColor);
+        trees[myColor].update(pid, myNum);
+        registers.set(mine + CHOOSING, 0);
+        //End of Doorway
+
+        //Step 2
+        /*
+        * The order between colored tickets:
+        *  - If two tickets have different colors, the ticket whose color is different from sharedColor is smaller
+        *  - If two tickets have the same color, the ticket with smaller number is smaller
+        *  - If tickets of two processes have the same color and the same number then the process with smaller identifier (process id) is smaller
+        * */
+
+        for (int j = 0; j < N; j++) {
+            if (j == pid) {
+                continue;
+            }
+            int base = block(j);
+            int spins = 0;
+            while(registers.get(base + CHOOSING) == 1){
+                spinPolicy.spin(pid, spins++); //Wait for process finish choosing and move out of doorway
+            }
+            int ticket = registers.get(base + TICKET);
+            if((ticket & 1) == myColor){
+                while((ticket >>> 1) != 0 && (ticket & 1) == myColor &&
+                        ((ticket >>> 1) < myNum || ((ticket >>> 1) == myNum && j < pid))){
+                    spinPolicy.spin(pid, spins++);
+                    ticket = registers.get(base + TICKET);
+                }
+            }else {
+                while ((ticket >>> 1) != 0 && myColor == registers.get(SHARED_COLOR) && (ticket & 1) != myColor) {
+                    spinPolicy.spin(pid, spins++);
+                    ticket = registers.get(base + TICKET);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        int mine = block(pid);
+        int myColor = registers.get(mine + TICKET) & 1;
+        if(myColor == BLACK){
+            registers.set(SHARED_COLOR, WHITE);
+        }else{
+            registers.set(SHARED_COLOR, BLACK);
+        }
+        registers.set(mine + TICKET, 0);
+        trees[myColor].update(pid, 0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < registers.length(); i++) {
+            registers.set(i, 0);    // Tickets 0, not choosing, sharedColor WHITE
+        }
+        trees[WHITE].clear();
+        trees[BLACK].clear();
+    }
+}
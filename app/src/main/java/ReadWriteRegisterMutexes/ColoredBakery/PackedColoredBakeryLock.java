@@ -0,0 +1,142 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/**
+ * PackedColoredBakeryLock is a lock implementation of the Black-White Bakery
+ * Algorithm with the color and the number of each ticket packed in one register
+ *
+ * This implementation runs the same algorithm as ColoredBakeryLock (Synchronization
+ * Algorithms and Concurrent Programming textbook by Gadi Taubenfeld at page 56),
+ * but each ticket is stored as a single word: (number << 1) | color. A single
+ * read gives a consistent (color, number) pair, and the color and number of the
+ * thread's own ticket are kept in locals, so the doorway and the waiting loop
+ * read each scanned ticket once instead of re-reading ticketColor[i],
+ * ticketNum[i] and their own entries in every comparison.
+ *
+ * The ticket and choosing registers of each process share a cache line of their
+ * own, since both are only written by that process.
+ */
+
+public class PackedColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+
+    /* Ticket Colors */
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /* Number of int registers in a cache line (64 bytes) */
+    private static final int LINE = 16;
+
+    /* Offset of the packed ticket inside the block of a process */
+    private static final int TICKET = 0;
+
+    /* Offset of the choosing flag inside the block of a process */
+    private static final int CHOOSING = 1;
+
+    /* Index of the shared color bit. It has a block of its own after the
+     * empty leading block that keeps the registers away from the array header */
+    private static final int SHARED_COLOR = LINE;
+
+    /* Shared registers. Process i owns the block starting at LINE*(i+2) */
+    private final AtomicIntegerArray registers;
+
+    /* Number of process*/
+    private int N;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public PackedColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public PackedColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        N = numProcess;
+        this.spinPolicy = spinPolicy;
+        this.registers = new AtomicIntegerArray(LINE * (N + 2));
+        this.registers.set(SHARED_COLOR, WHITE);
+    }
+
+    /* Base index of the block of process i */
+    private static int block(int i) {
+        return LINE * (i + 2);
+    }
+
+    @Override
+    public void lock(int pid) {
+        //Step 1
+        //Begin of Doorway
+        int mine = block(pid);
+        registers.set(mine + CHOOSING, 1);
+        int myColor = registers.get(SHARED_COLOR);
+
+        // Find the largest ticket number with our color
+        int max = 0;
+        for (int j = 0; j < N; j++) {
+            if (j == pid) {
+                continue;
+            }
+            int ticket = registers.get(block(j) + TICKET);
+            if ((ticket & 1) == myColor && (ticket >>> 1) > max) {
+                max = ticket >>> 1;
+            }
+        }
+        int myNum = max + 1;
+        registers.set(mine + TICKET, (myNum << 1) | myColor);
+        registers.set(mine + CHOOSING, 0);
+        //End of Doorway
+
+        //Step 2
+        /*
+        * The order between colored tickets:
+        *  - If two tickets have different colors, the ticket whose color is different from sharedColor is smaller
+        *  - If two tickets have the same color, the ticket with smaller number is smaller
+        *  - If tickets of two processes have the same color and the same number then the process with smaller identifier (process id) is smaller
+        * */
+
+        for (int j = 0; j < N; j++) {
+            if (j == pid) {
+                continue;
+            }
+            int base = block(j);
+            int spins = 0;
+            while(registers.get(base + CHOOSING) == 1){
+                spinPolicy.spin(pid, spins++); //Wait for process finish choosing and move out of doorway
+            }
+            int ticket = registers.get(base + TICKET);
+            if((ticket & 1) == myColor){
+                while((ticket >>> 1) != 0 && (ticket & 1) == myColor &&
+                        ((ticket >>> 1) < myNum || ((ticket >>> 1) == myNum && j < pid))){
+                    spinPolicy.spin(pid, spins++);
+                    ticket = registers.get(base + TICKET);
+                }
+            }else {
+                while ((ticket >>> 1) != 0 && myColor == registers.get(SHARED_COLOR) && (ticket & 1) != myColor) {
+                    spinPolicy.spin(pid, spins++);
+                    ticket = registers.get(base + TICKET);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        int mine = block(pid);
+        if((registers.get(mine + TICKET) & 1) == BLACK){
+            registers.set(SHARED_COLOR, WHITE);
+        }else{
+            registers.set(SHARED_COLOR, BLACK);
+        }
+        registers.set(mine + TICKET, 0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < registers.length(); i++) {
+            registers.set(i, 0);    // Tickets 0, not choosing, sharedColor WHITE
+        }
+    }
+}
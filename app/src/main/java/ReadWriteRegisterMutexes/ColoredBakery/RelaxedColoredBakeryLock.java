@@ -0,0 +1,148 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/**
+ * RelaxedColoredBakeryLock is a lock implementation of the Black-White Bakery
+ * Algorithm with relaxed memory ordering
+ *
+ * The algorithm is the same as ColoredBakeryLock, but the registers are ints in
+ * a padded array accessed through a VarHandle with the weakest ordering each
+ * access needs. The bakery needs a store-load fence at two points:
+ *
+ * - After raising choosing[i], before reading the color and the tickets, so a
+ *   process that already saw choosing[i] down has its ticket seen by i.
+ * - After writing the ticket and lowering choosing[i], before reading the
+ *   choosing flags and tickets of the others, so at least one of two
+ *   processes that chose concurrently sees the ticket of the other.
+ *
+ * The ticket and color are written with opaque mode before the release write
+ * of choosing[i], so a process that sees choosing[i] down with an acquire read
+ * also sees them. Every other read is an acquire read, and unlock only has
+ * release writes. A process keeps its own ticket and color in local variables,
+ * and computes the largest ticket locally before writing its own once.
+ */
+
+public class RelaxedColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+
+    /* Access to the elements of the registers array */
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /* Ticket Colors */
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /* Number of int registers in a cache line (64 bytes) */
+    private static final int LINE = 16;
+
+    /* Offsets of the registers inside the block of a process */
+    private static final int CHOOSING = 0;
+    private static final int NUMBER = 1;
+    private static final int COLOR = 2;
+
+    /* Index of the shared color bit. It has a block of its own after the
+     * empty leading block that keeps the registers away from the array header */
+    private static final int SHARED_COLOR = LINE;
+
+    /* Shared registers. Process i owns the block starting at LINE*(i+2). Only
+     * accessed through REGISTER */
+    private final int[] registers;
+
+    /* Number of process*/
+    private final int N;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public RelaxedColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public RelaxedColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        N = numProcess;
+        this.spinPolicy = spinPolicy;
+        this.registers = new int[LINE * (N + 2)];
+        VarHandle.releaseFence(); // Publish the zeroed registers (WHITE is 0)
+    }
+
+    /* Base index of the block of process i */
+    private static int block(int i) {
+        return LINE * (i + 2);
+    }
+
+    private int get(int index) {
+        return (int) REGISTER.getAcquire(registers, index);
+    }
+
+    @Override
+    public void lock(int pid) {
+        int i = pid;
+        int me = block(i);
+
+        //Step 1
+        //Begin of Doorway
+        REGISTER.setOpaque(registers, me + CHOOSING, 1);
+        VarHandle.fullFence();
+        int myColor = get(SHARED_COLOR);
+        REGISTER.setOpaque(registers, me + COLOR, myColor);
+
+        int max = 0;
+        for (int j = 0; j < N; j++) {
+            int other = block(j);
+            if (j != i && get(other + COLOR) == myColor) {
+                max = Math.max(max, get(other + NUMBER));
+            }
+        }
+        int myTicket = max + 1;
+        REGISTER.setOpaque(registers, me + NUMBER, myTicket);
+        REGISTER.setRelease(registers, me + CHOOSING, 0);
+        VarHandle.fullFence();
+        //End of Doorway
+
+        //Step 2 (see ColoredBakeryLock for the order between colored tickets)
+        for (int j = 0; j < N; j++) {
+            if (j == i) {
+                continue;
+            }
+            int other = block(j);
+            int spins = 0;
+            while(get(other + CHOOSING) != 0){
+                spinPolicy.spin(pid, spins++); //Wait for process finish choosing and move out of doorway
+            }
+            if(get(other + COLOR) == myColor){
+                while((get(other + NUMBER) != 0) && (get(other + COLOR) == myColor) &&
+                        ((get(other + NUMBER) < myTicket) || ((get(other + NUMBER) == myTicket) && j < i))){
+                    spinPolicy.spin(pid, spins++);
+                }
+            }else {
+                while ((get(other + NUMBER) != 0) && (myColor == get(SHARED_COLOR)) && (get(other + COLOR) != myColor)) {
+                    spinPolicy.spin(pid, spins++);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        int me = block(pid);
+        // Only the holder writes the shared color
+        if((int) REGISTER.getOpaque(registers, me + COLOR) == BLACK){
+            REGISTER.setRelease(registers, SHARED_COLOR, WHITE);
+        }else{
+            REGISTER.setRelease(registers, SHARED_COLOR, BLACK);
+        }
+        REGISTER.setRelease(registers, me + NUMBER, 0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < registers.length; i++) {
+            REGISTER.setOpaque(registers, i, 0);
+        }
+        VarHandle.fullFence();
+    }
+}
@@ -0,0 +1,169 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ReadWriteRegisterMutexes.Heartbeat;
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/**
+ * TimePublishedColoredBakeryLock is a lock implementation of the Black-White
+ * Bakery Algorithm that detects descheduled predecessors
+ *
+ * The algorithm is the same as ColoredBakeryLock. Every process also publishes
+ * a heartbeat timestamp (see Heartbeat) when it starts the doorway, on every
+ * iteration of its wait loops, and when it acquires the lock. Process i only
+ * ever waits for one process j at a time, either to leave the doorway or to
+ * use its smaller ticket, so j is the predecessor whose heartbeat it checks.
+ * A running predecessor is either waiting, and publishing, or in its doorway
+ * or critical section, which are short. The holder also publishes its
+ * process ID, and process i checks its heartbeat too: j is usually another
+ * waiter, which keeps publishing while the descheduled holder does not. If j
+ * or the holder has not published anything for stallNanos, it was most likely
+ * descheduled by the OS, and process i yields its CPU instead of calling the
+ * spin policy.
+ */
+
+public class TimePublishedColoredBakeryLock implements ReadWriteRegisterMutexes.Lock{
+
+    /* Default age in nanoseconds after which a predecessor is stalled */
+    public static final long DEFAULT_STALL_NANOS = 50000;
+
+    /* Ticket Colors */
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /* Shared color bit */
+    private final AtomicInteger sharedColor;
+
+    /* Flag to indicate the process in doorway */
+    private final AtomicBoolean[] choosing;
+
+    /* Ticket number. ticketNum[i] is the ticket for process i */
+    private final AtomicInteger[] ticketNum;
+
+    /* Ticket color. ticketColor[i] is the color of process i's ticket */
+    private final AtomicInteger[] ticketColor;
+
+    /* Number of process*/
+    private final int N;
+
+    /* Heartbeat timestamps of the processes */
+    private final Heartbeat heartbeat;
+
+    /* Age in nanoseconds after which a predecessor is considered stalled */
+    private final long stallNanos;
+
+    /* Policy of the wait loops while the predecessor is running */
+    private final SpinPolicy spinPolicy;
+
+    public TimePublishedColoredBakeryLock(int numProcess){
+        this(numProcess, SpinPolicy.busyWait());
+    }
+
+    public TimePublishedColoredBakeryLock(int numProcess, SpinPolicy spinPolicy){
+        this(numProcess, spinPolicy, DEFAULT_STALL_NANOS);
+    }
+
+    public TimePublishedColoredBakeryLock(int numProcess, SpinPolicy spinPolicy, long stallNanos){
+        if (stallNanos <= 0) {
+            throw new IllegalArgumentException("Invalid stall time: stallNanos must be >0");
+        }
+        N = numProcess;
+        this.spinPolicy = spinPolicy;
+        this.stallNanos = stallNanos;
+        this.heartbeat = new Heartbeat(N);
+        this.sharedColor = new AtomicInteger(WHITE);
+        this.choosing = new AtomicBoolean[N];
+        this.ticketNum = new AtomicInteger[N];
+        this.ticketColor = new AtomicInteger[N];
+        for (int i = 0; i < N; i++) {
+            this.choosing[i] = new AtomicBoolean(false);
+            this.ticketNum[i] = new AtomicInteger(0);
+            this.ticketColor[i] = new AtomicInteger(WHITE);
+        }
+    }
+
+    @Override
+    public void lock(int pid) {
+        int i = pid;
+        heartbeat.beat(i); // Publish before anyone can wait for us
+
+        //Step 1
+        //Begin of Doorway
+        choosing[i].set(true);
+        ticketColor[i].set(sharedColor.get());
+
+        for (int j = 0; j < N; j++) {
+            if(ticketColor[j].get() == ticketColor[i].get() && ticketNum[j].get() > ticketNum[i].get()){
+                ticketNum[i].set(ticketNum[j].get());
+            }
+        }
+        ticketNum[i].incrementAndGet();
+        choosing[i].set(false);
+        //End of Doorway
+
+        //Step 2 (see ColoredBakeryLock for the order between colored tickets)
+        for (int j = 0; j < N; j++) {
+            int spins = 0;
+            while(choosing[j].get()){
+                spins = pause(i, j, spins); //Wait for process finish choosing and move out of doorway
+            }
+            if(ticketColor[j].get() == ticketColor[i].get()){
+                while((ticketNum[j].get() != 0) && (ticketColor[j].get() == ticketColor[i].get()) &&
+                        ((ticketNum[j].get() < ticketNum[i].get()) || ((ticketNum[j].get() == ticketNum[i].get()) && j < i))){
+                    spins = pause(i, j, spins);
+                }
+            }else {
+                while ((ticketNum[j].get() != 0) && (ticketColor[i].get() == sharedColor.get()) && (ticketColor[j].get() != ticketColor[i].get())) {
+                    spins = pause(i, j, spins);
+                }
+            }
+        }
+
+        heartbeat.acquired(i); // Publish the time we acquired the lock, and that we hold it
+    }
+
+    /*
+     * One iteration of a wait loop of process i for process j. Yields if j
+     * or the holder looks descheduled, and otherwise calls the spin policy.
+     * Returns the new number of spins.
+     */
+    private int pause(int i, int j, int spins) {
+        long now = heartbeat.beat(i);
+        if (heartbeat.isStalled(j, now, stallNanos) || heartbeat.isHolderStalled(now, stallNanos)) {
+            Thread.yield(); // Let the descheduled process run
+            return spins;
+        }
+        spinPolicy.spin(i, spins);
+        return spins + 1;
+    }
+
+    @Override
+    public void unlock(int pid) {
+        heartbeat.released(); // Withdraw as holder before the next one can acquire the lock
+        // Only the holder writes the shared color
+        if(ticketColor[pid].get() == BLACK){
+            sharedColor.set(WHITE);
+        }else{
+            sharedColor.set(BLACK);
+        }
+        ticketNum[pid].set(0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        sharedColor.set(WHITE);
+        for (int i = 0; i < N; i++) {
+            choosing[i].set(false);
+            ticketNum[i].set(0);
+            ticketColor[i].set(WHITE);
+        }
+        heartbeat.clear();
+    }
+
+    public long getStallNanos() {
+        return stallNanos;
+    }
+}
@@ -10,6 +10,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -34,6 +35,16 @@ public class ColoredBakeryLockBenchmarks {
     @State(Scope.Benchmark)
     public static class HeavyContentionState {
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         */
+        @Param({"COMPACT", "PADDED", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -52,6 +63,12 @@ public class ColoredBakeryLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new ColoredBakeryLock
+            (
+                this.benchmark.getHeavyContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -59,10 +76,7 @@ public class ColoredBakeryLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new ColoredBakeryLock
-            (
-                this.benchmark.getHeavyContentionThreadNum()
-            );
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -77,7 +91,6 @@ public class ColoredBakeryLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -86,6 +99,16 @@ public class ColoredBakeryLockBenchmarks {
     @State(Scope.Benchmark)
     public static class NoContentionState {
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         */
+        @Param({"COMPACT", "PADDED", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -104,6 +127,12 @@ public class ColoredBakeryLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new ColoredBakeryLock
+            (
+                this.benchmark.getNoContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -111,10 +140,7 @@ public class ColoredBakeryLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new ColoredBakeryLock
-            (
-                this.benchmark.getNoContentionThreadNum()
-            );
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -129,7 +155,6 @@ public class ColoredBakeryLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -0,0 +1,56 @@
+/** Register file with consecutive int registers in an on-heap array
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Register file with consecutive int registers in an on-heap array
+ *
+ * The registers take 4 bytes each, so 16 registers share every cache line,
+ * and writes to any of them invalidate the line for the threads reading the
+ * others. They hold booleans and ints, and longs that fit in an int.
+ */
+public class CompactIntRegisterFile implements RegisterFile {
+    /** Registers
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Constructor
+     *
+     * @param size  Number of registers
+     */
+    public CompactIntRegisterFile(int size) {
+        this.registers = new AtomicIntegerArray(size);
+    }
+
+    public int size() {
+        return this.registers.length();
+    }
+
+    public long getLong(int i) {
+        return this.registers.get(i);
+    }
+
+    public void setLong(int i, long value) {
+        this.registers.set(i, RegisterFile.toInt(value));
+    }
+
+    public int get(int i) {
+        return this.registers.get(i);
+    }
+
+    public void set(int i, int value) {
+        this.registers.set(i, value);
+    }
+
+    public boolean getBoolean(int i) {
+        return this.registers.get(i) != 0;
+    }
+
+    public void setBoolean(int i, boolean value) {
+        this.registers.set(i, value ? 1 : 0);
+    }
+}
@@ -0,0 +1,40 @@
+/** Register file with consecutive registers in an on-heap array
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Register file with consecutive registers in an on-heap array
+ *
+ * The registers take 8 bytes each, so 8 registers share every cache line, and
+ * writes to any of them invalidate the line for the threads reading the
+ * others.
+ */
+public class CompactRegisterFile implements RegisterFile {
+    /** Registers
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicLongArray registers;
+
+    /** Constructor
+     *
+     * @param size  Number of registers
+     */
+    public CompactRegisterFile(int size) {
+        this.registers = new AtomicLongArray(size);
+    }
+
+    public int size() {
+        return this.registers.length();
+    }
+
+    public long getLong(int i) {
+        return this.registers.get(i);
+    }
+
+    public void setLong(int i, long value) {
+        this.registers.set(i, value);
+    }
+}
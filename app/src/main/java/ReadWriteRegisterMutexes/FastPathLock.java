@@ -0,0 +1,247 @@
+/** Lock decorator with Lamport's constant time fast path
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Lock decorator with Lamport's constant time fast path
+ *
+ * A thread first tries Lamport's fast mutual exclusion algorithm (Lamport, "A
+ * Fast Mutual Exclusion Algorithm", 1987) on the registers x, y and b[], but
+ * gives up instead of waiting where the algorithm would wait and retry. At
+ * most one thread at a time wins this fast attempt. The threads that give up
+ * take the wrapped lock instead, which lets one of them through at a time.
+ *
+ * The fast winner and the holder of the wrapped lock then meet in a 2-process
+ * Peterson contest, the fast winner as process 0 and the slow thread as
+ * process 1. The contest takes a constant number of steps, so without
+ * contention a thread enters after 8 register operations (b[i]=true, x=i,
+ * read y, y=i, read x, wantCS[0]=true, turn=1, read wantCS[1]) and leaves
+ * after 3 more (wantCS[0]=false, y=FREE, b[i]=false), whatever the number of
+ * threads, and the wrapped lock is never used.
+ *
+ * Peterson's algorithm is starvation-free between its two sides: a slow
+ * thread waits for at most one critical section of the fast path, since the
+ * next fast winner gives it the turn. So the lock keeps the progress guarantee
+ * of the wrapped lock, for example first come first served between the slow
+ * threads with ColoredBakeryLock.
+ */
+public class FastPathLock implements Lock {
+    /** Number of int registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** Value of y when no thread owns it
+     */
+    private static final int FREE = 0;
+
+    /** Index of the x register. It has a block of its own after the empty
+     * leading block that keeps the registers away from the array header
+     */
+    private static final int X = LINE;
+
+    /** Index of the y register
+     */
+    private static final int Y = 2 * LINE;
+
+    /** Index of the wantCS register of process 0 of the Peterson contest. The
+     * wantCS register of process 1 and turn follow it in the same block
+     */
+    private static final int WANT_CS = 3 * LINE;
+
+    /** Index of the turn register of the Peterson contest
+     */
+    private static final int TURN = WANT_CS + 2;
+
+    /** Peterson process of the fast winner
+     */
+    private static final int FAST = 0;
+
+    /** Peterson process of the holder of the wrapped lock
+     */
+    private static final int SLOW = 1;
+
+    /** Wrapped lock used by the contended threads
+     */
+    private final Lock lock;
+
+    /** Number of threads using the lock
+     */
+    private final int numThreads;
+
+    /** Shared registers x, y, the Peterson contest, and b[i] in the block
+     * starting at LINE*(i+4)
+     *
+     * x and y hold thread IDs plus 1, so FREE is not a thread.
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Whether each thread holds the wrapped lock
+     *
+     * Local variable (each thread only accesses its own entry, at
+     * LINE*(tid+1)).
+     */
+    private final boolean[] slow;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait.
+     *
+     * @param lock  Wrapped lock used by the contended threads
+     * @param numThreads    Number of threads using the lock
+     */
+    public FastPathLock(Lock lock, int numThreads) {
+        this(lock, numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param lock  Wrapped lock used by the contended threads
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public FastPathLock(Lock lock, int numThreads, SpinPolicy spinPolicy) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads: numThreads must be >0");
+        }
+        this.lock = lock;
+        this.numThreads = numThreads;
+        this.spinPolicy = spinPolicy;
+        this.registers = new AtomicIntegerArray(LINE * (numThreads + 4));
+        this.slow = new boolean[LINE * (numThreads + 1)];
+    }
+
+    /** Index of the b register of a thread
+     *
+     * @param tid   Thread ID
+     * @return Index of b[tid] in registers
+     */
+    private static int b(int tid) {
+        return LINE * (tid + 4);
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        if (this.tryFast(tid)) {
+            this.compete(tid, FAST);
+            return;
+        }
+
+        // Contended: let one thread at a time play the slow process
+        this.lock.lock(tid);
+        this.slow[LINE * (tid + 1)] = true;
+        this.compete(tid, SLOW);
+    }
+
+    /** Peterson contest between the fast winner and the slow thread
+     *
+     * @param tid   Thread ID
+     * @param id    Process of the thread in the contest (FAST or SLOW)
+     */
+    private void compete(int tid, int id) {
+        int idj = 1 - id;   // Process of the other thread in the contest
+        this.registers.set(WANT_CS + id, 1);
+        this.registers.set(TURN, idj);
+        int spins = 0;
+        while (this.registers.get(WANT_CS + idj) == 1
+                && this.registers.get(TURN) == idj) {
+            this.spinPolicy.spin(tid, spins++);
+        }
+    }
+
+    /** Fast attempt of Lamport's algorithm
+     *
+     * Gives up instead of waiting for the owner of y. It only waits for the
+     * other attempts in flight when it lost x after taking y. At most one
+     * thread at a time wins, and it keeps y until it leaves the critical
+     * section.
+     *
+     * @param tid   Thread ID
+     * @return True if the thread won the fast attempt
+     */
+    private boolean tryFast(int tid) {
+        int me = tid + 1;
+        this.registers.set(b(tid), 1);
+        this.registers.set(X, me);
+        if (this.registers.get(Y) != FREE) {
+            this.registers.set(b(tid), 0);
+            return false;
+        }
+        this.registers.set(Y, me);
+        if (this.registers.get(X) == me) {
+            return true;    // Won without contention
+        }
+
+        // Lost x: y is ours only if every other attempt has finished
+        this.registers.set(b(tid), 0);
+        this.awaitAllAttempts(tid);
+        if (this.registers.get(Y) == me) {
+            return true;
+        }
+        return false;
+    }
+
+    /** Wait until no thread is between setting and clearing its b register
+     *
+     * @param tid   Thread ID of the waiting thread
+     */
+    private void awaitAllAttempts(int tid) {
+        for (int j = 0; j < this.numThreads; j++) {
+            int spins = 0;
+            while (this.registers.get(b(j)) != 0) {
+                this.spinPolicy.spin(tid, spins++);
+            }
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        // Leave the contest before the next thread can play our process
+        if (this.slow[LINE * (tid + 1)]) {
+            this.slow[LINE * (tid + 1)] = false;
+            this.registers.set(WANT_CS + SLOW, 0);
+            this.lock.unlock(tid);
+        } else {
+            this.registers.set(WANT_CS + FAST, 0);
+            this.registers.set(Y, FREE);
+            this.registers.set(b(tid), 0);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock and the wrapped lock to their initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+        for (int i = 0; i < this.slow.length; i++) {
+            this.slow[i] = false;
+        }
+        this.lock.reset();
+    }
+
+    /** Getter method for the wrapped lock
+     *
+     * @return Wrapped lock used by the contended threads (lock)
+     */
+    public Lock getLock() {
+        return this.lock;
+    }
+}
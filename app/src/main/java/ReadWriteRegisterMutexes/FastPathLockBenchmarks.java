@@ -0,0 +1,227 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** FastPathLock benchmarks
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class FastPathLockBenchmarks {
+
+    /** Heavy contention benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class HeavyContentionState {
+
+        /** Type of wrapped lock (see LockFactory)
+         */
+        @Param({"TournamentLock", "KesselsTournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"})
+        public String lockType;
+
+        /** Whether the lock is wrapped in a FastPathLock
+         */
+        @Param({"true", "false"})
+        public boolean fastPath;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = createLock(this.lockType, this.fastPath,
+                this.benchmark.getHeavyContentionThreadNum(), this.spinPolicy);
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected 0: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** No contention benchmark state with a lock sized for many threads
+     */
+    @State(Scope.Benchmark)
+    public static class OversizedState {
+
+        /** Number of threads the lock is sized for
+         */
+        @Param({"8", "64", "256"})
+        public int numSlots;
+
+        /** Type of wrapped lock (see LockFactory)
+         */
+        @Param({"TournamentLock", "KesselsTournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"})
+        public String lockType;
+
+        /** Whether the lock is wrapped in a FastPathLock
+         */
+        @Param({"true", "false"})
+        public boolean fastPath;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = createLock(this.lockType, this.fastPath, this.numSlots,
+                this.spinPolicy);
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.benchmark.getIncrementNum()) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.benchmark.getIncrementNum() + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Build the benchmarked lock
+     *
+     * @param lockType  Type of wrapped lock (see LockFactory)
+     * @param fastPath  Whether the lock is wrapped in a FastPathLock
+     * @param numThreads    Number of threads the lock is sized for
+     * @param spinPolicy    Name of the spin policy (see SpinPolicy)
+     * @return New lock
+     */
+    static Lock createLock(String lockType, boolean fastPath, int numThreads,
+            String spinPolicy) {
+        Lock lock = LockFactory.create(lockType, numThreads,
+            SpinPolicy.fromName(spinPolicy));
+        if (fastPath) {
+            lock = new FastPathLock(lock, numThreads,
+                SpinPolicy.fromName(spinPolicy));
+        }
+        return lock;
+    }
+
+    /** Heavy contention benchmark
+     *
+     * The benchmark measures the average time that gHeavyContentionThreadNum
+     * number of worker threads take to increment/decrement a shared variable
+     * gIncrements number of times. Half of the threads will increment the
+     * shared variable by 1 each time in a loop, and the other half will
+     * decrement it by 1 each time in a loop. Each time that any of the threads
+     * wants to increment/decrement the shared variable, they must request the
+     * lock, and they release the lock immediately after.
+     *
+     * This benchmark is designed to measure how much the fast path costs each
+     * wrapped lock under heavy contention.
+     */
+    @Benchmark
+    public void heavyContention(HeavyContentionState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getHeavyContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+
+    /** No contention benchmark with a lock sized for many threads
+     *
+     * The benchmark is the same as the no contention benchmark, but the lock
+     * is sized for 8, 64 and 256 threads while a single thread uses it. The
+     * wrapped locks climb their tree or scan their registers on every
+     * acquisition, while the fast path takes a constant number of register
+     * operations, so it should stay close to the NoLockBenchmarks baseline.
+     */
+    @Benchmark
+    public void oversizedNoContention(OversizedState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getNoContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+}
@@ -0,0 +1,70 @@
+/** Lock of a file shared by processes, using FileChannel.lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+/** Lock of a file shared by processes, using FileChannel.lock
+ *
+ * This is the baseline of the inter-process benchmark: every lock and unlock
+ * is a system call that takes or releases an advisory lock on the first byte
+ * of the file. File locks are held by the whole process, so each process can
+ * only have one thread using the lock.
+ */
+public class FileChannelLock implements Lock {
+    /** Channel of the locked file
+     */
+    private final FileChannel channel;
+
+    /** File lock held by this process, if any
+     *
+     * Local variable (only accessed by the thread of this process that uses
+     * the lock).
+     */
+    private FileLock held;
+
+    /** Constructor
+     *
+     * @param channel   Channel of the locked file, open for writing
+     */
+    public FileChannelLock(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID (unused)
+     */
+    public void lock(int tid) {
+        try {
+            this.held = this.channel.lock(0, 1, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID (unused)
+     */
+    public void unlock(int tid) {
+        try {
+            this.held.release();
+            this.held = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        if (this.held != null) {
+            this.unlock(0);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/** Heartbeat timestamps published by the threads of a lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Heartbeat timestamps published by the threads of a lock
+ *
+ * Every thread owns a register where it publishes System.nanoTime while it
+ * waits for the lock, and once more when it acquires it. A running waiter
+ * publishes on every iteration of its wait loop, so its timestamp is always
+ * recent, and a holder publishes when it enters the critical section. A thread
+ * whose timestamp is older than the stall threshold has most likely been
+ * descheduled by the OS, and the threads waiting for it should give up their
+ * CPU instead of spinning.
+ *
+ * A register of 0 means that the thread has not published a timestamp yet,
+ * and it is never considered stalled.
+ *
+ * The thread ID of the lock holder is published too, so every waiter can
+ * check the holder, and not only the thread it directly waits for. That
+ * thread is usually another waiter, which keeps publishing while the
+ * descheduled holder does not.
+ *
+ * The register of thread i is in the block starting at LINE*(i+1), so each
+ * thread writes to its own cache line.
+ */
+public class Heartbeat {
+    /** Number of long registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 8;
+
+    /** No thread holds the lock
+     */
+    public static final int NO_HOLDER = -1;
+
+    /** Number of threads publishing timestamps
+     */
+    private final int numThreads;
+
+    /** Thread ID of the lock holder, or NO_HOLDER
+     *
+     * Shared variable. Only written by the holder, and read by the waiters.
+     */
+    private final AtomicInteger holder;
+
+    /** Timestamp registers of the threads
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicLongArray beats;
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads publishing timestamps
+     */
+    public Heartbeat(int numThreads) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads: numThreads must be >0");
+        }
+        this.numThreads = numThreads;
+        this.beats = new AtomicLongArray(LINE * (numThreads + 2));
+        this.holder = new AtomicInteger(NO_HOLDER);
+    }
+
+    /** Publish the current time as the timestamp of a thread
+     *
+     * @param tid   Thread ID
+     * @return Current time in nanoseconds, as published
+     */
+    public long beat(int tid) {
+        long now = System.nanoTime();
+        this.beats.set(LINE * (tid + 1), now);
+        return now;
+    }
+
+    /** Publish the current time as the timestamp of the thread that acquired
+     * the lock, and the thread as its holder
+     *
+     * @param tid   Thread ID of the holder
+     * @return Current time in nanoseconds, as published
+     */
+    public long acquired(int tid) {
+        long now = this.beat(tid);
+        this.holder.set(tid);
+        return now;
+    }
+
+    /** Withdraw the holder of the lock
+     *
+     * Must be called by the holder before the exit protocol of the lock, so
+     * the next holder is never withdrawn.
+     */
+    public void released() {
+        this.holder.set(NO_HOLDER);
+    }
+
+    /** Get the thread ID of the lock holder
+     *
+     * @return Thread ID of the holder, or NO_HOLDER
+     */
+    public int getHolder() {
+        return this.holder.get();
+    }
+
+    /** Get the last timestamp published by a thread
+     *
+     * @param tid   Thread ID
+     * @return Last timestamp in nanoseconds, or 0 if it never published one
+     */
+    public long get(int tid) {
+        return this.beats.get(LINE * (tid + 1));
+    }
+
+    /** Check if a thread has not published a timestamp for too long
+     *
+     * @param tid   Thread ID
+     * @param now   Current time in nanoseconds
+     * @param stallNanos    Age in nanoseconds after which a timestamp is stale
+     * @return True if the last timestamp of the thread is older than stallNanos
+     */
+    public boolean isStalled(int tid, long now, long stallNanos) {
+        long last = this.get(tid);
+        return last != 0 && now - last > stallNanos;
+    }
+
+    /** Check if the lock holder has not published a timestamp for too long
+     *
+     * @param now   Current time in nanoseconds
+     * @param stallNanos    Age in nanoseconds after which a timestamp is stale
+     * @return True if there is a holder and its last timestamp is older than
+     *  stallNanos
+     */
+    public boolean isHolderStalled(long now, long stallNanos) {
+        int tid = this.holder.get();
+        return tid != NO_HOLDER && this.isStalled(tid, now, stallNanos);
+    }
+
+    /** Forget the timestamps of all the threads and the holder
+     *
+     * Must only be called when no thread is using the lock.
+     */
+    public void clear() {
+        for (int i = 0; i < this.numThreads; i++) {
+            this.beats.set(LINE * (i + 1), 0);
+        }
+        this.holder.set(NO_HOLDER);
+    }
+
+    /** Getter method for the number of threads
+     *
+     * @return Number of threads publishing timestamps (numThreads)
+     */
+    public int getNumThreads() {
+        return this.numThreads;
+    }
+}
@@ -1,5 +1,10 @@
 package ReadWriteRegisterMutexes;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /** Shared counter increment mutex benchmark class
@@ -23,6 +28,10 @@ public class IncrementBenchmark {
      */
     private static int noContentionThreadNum = 1;
 
+    /** Attempts that timed out in the last timed lock attempts run
+     */
+    private int timeouts;
+
     /** Getter method for number of threads for a heavy contention benchmark
      * 
      * @return Number of threads for a heavy contention benchmark (heavyContentionThreadNum)
@@ -60,7 +69,8 @@ public class IncrementBenchmark {
      * 
      * @param numWorkers    Number of worker threads
      * @param increments    Number of increments/decrements per thread
-     * @param lockObj   Lock object of type Lock or ReentrantLock, or null
+     * @param lockObj   Lock object of type Lock or ReentrantLock, or null. A
+     *  LeasedLock is used without thread IDs.
      */
     public int runIncrementBenchmark(int numWorkers, int increments, Object lockObj) {
         Runnable[] workers = new Runnable[numWorkers];
@@ -74,6 +84,16 @@ public class IncrementBenchmark {
                 workers[i] = new Worker(i, (((i%2) == 0) ? true : false),
                     increments);
             }
+        } else if (lockObj instanceof LeasedLock) {
+            // Lock interface with leased thread IDs
+            LeasedLock lock = (LeasedLock) lockObj;
+
+            // Initialize workers
+            for (int i=0; i< numWorkers; i++) {
+                // Even workers add, odd workers subtract
+                workers[i] = new Worker((((i%2) == 0) ? true : false),
+                    increments, lock);
+            }
         } else if (lockObj instanceof Lock) {
             // Lock interface
             Lock lock = (Lock) lockObj;
@@ -124,4 +144,358 @@ public class IncrementBenchmark {
         //System.out.print("c = " + ((Worker)workers[0]).getC() + ": ");
         return ((Worker)workers[0]).getC();
     }
+
+    /** Run the increment a shared counter operation with an owner thread that
+     *  does a set share of the increments
+     * 
+     * All the threads increment the counter concurrently, each one under the
+     * lock. Thread 0 (the owner) does ownerPercent percent of the total
+     * increments, and the other threads split the rest, so the share of lock
+     * acquisitions by the same thread can be controlled. With a single thread,
+     * it does all the increments.
+     * 
+     * @param numWorkers    Number of worker threads
+     * @param totalIncrements   Number of increments of all the threads
+     * @param ownerPercent  Percentage of the increments done by thread 0
+     * @param lock  Lock using the Lock interface
+     * @return Final value of the counter, which must be totalIncrements
+     */
+    public int runAffinityBenchmark(int numWorkers, int totalIncrements,
+            int ownerPercent, Lock lock) {
+        if (ownerPercent < 0 || ownerPercent > 100) {
+            throw new IllegalArgumentException(
+                "Invalid owner share: ownerPercent must be in [0,100]");
+        }
+        Runnable[] workers = new Runnable[numWorkers];
+        Thread[] threads = new Thread[numWorkers];
+
+        // Thread 0 gets its share, and the others split the rest
+        int ownerIncrements = (numWorkers == 1) ? totalIncrements
+            : (int) ((long) totalIncrements * ownerPercent / 100);
+        int rest = totalIncrements - ownerIncrements;
+        workers[0] = new Worker(0, true, ownerIncrements, lock);
+        for (int i=1; i<numWorkers; i++) {
+            int increments = rest / (numWorkers - 1)
+                + ((i <= rest % (numWorkers - 1)) ? 1 : 0);
+            workers[i] = new Worker(i, true, increments, lock);
+        }
+
+        // Initialize the shared counter c
+        ((Worker)workers[0]).setC(0);
+
+        // Spawn threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i] = new Thread(workers[i], "T" + i);
+        }
+
+        // Start threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i].start();
+        }
+
+        // Wait for threads to terminate
+        for (int i=0; i<numWorkers; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: T" + i + ": " + e);
+            }
+        }
+
+        return ((Worker)workers[0]).getC();
+    }
+
+    /** Run the increment a shared counter operation with phases of changing
+     *  contention
+     * 
+     * The phases alternate between heavy contention and no contention, starting
+     * with heavy contention. In a heavy contention phase numWorkers threads
+     * increment and decrement the counter increments times each, as in
+     * runIncrementBenchmark. In a no contention phase thread 0 alone does the
+     * same number of acquisitions, all of them increments, so every phase
+     * acquires the lock numWorkers*increments times. The lock is not reset
+     * between phases, so a lock that adapts to the contention has to follow
+     * each change.
+     * 
+     * @param numWorkers    Number of worker threads of the heavy contention
+     *  phases
+     * @param numPhases Number of phases
+     * @param increments    Number of increments/decrements per thread in the
+     *  heavy contention phases
+     * @param lock  Lock using the Lock interface
+     * @return Number of lost or extra updates of all the phases, which must
+     *  be 0
+     */
+    public int runPhaseChangeBenchmark(int numWorkers, int numPhases,
+            int increments, Lock lock) {
+        int errors = 0;
+        for (int phase = 0; phase < numPhases; phase++) {
+            if ((phase % 2) == 0) {
+                // Heavy contention: the counter must end at 0
+                errors += Math.abs(this.runIncrementBenchmark(numWorkers,
+                    increments, lock));
+            } else {
+                // No contention: the counter must end at the acquisitions
+                int acquisitions = numWorkers * increments;
+                errors += Math.abs(this.runIncrementBenchmark(1, acquisitions,
+                    lock) - acquisitions);
+            }
+        }
+        return errors;
+    }
+
+    /** Run the increment a shared counter operation on a thread pool
+     * 
+     * numTasks workers are submitted to a pool of numWorkers threads. Even
+     * tasks (starting from 0) increment the counter increments times, and odd
+     * tasks decrement it, so the counter ends at 0 for an even number of
+     * tasks. The tasks have no thread ID: they use the ID the lock leases to
+     * the pool thread that runs them.
+     * 
+     * @param numWorkers    Number of threads of the pool
+     * @param numTasks  Number of tasks submitted
+     * @param increments    Number of increments/decrements per task
+     * @param lock  Lock with leased thread IDs, sized for numWorkers threads
+     * @return Final value of the counter
+     */
+    public int runPoolIncrementBenchmark(int numWorkers, int numTasks,
+            int increments, LeasedLock lock) {
+        ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+        Worker first = null;
+
+        try {
+            Future<?>[] futures = new Future<?>[numTasks];
+            for (int i=0; i<numTasks; i++) {
+                // Even tasks add, odd tasks subtract
+                Worker worker = new Worker((((i%2) == 0) ? true : false),
+                    increments, lock);
+                if (first == null) {
+                    // Initialize the shared counter c
+                    first = worker;
+                    first.setC(0);
+                }
+                futures[i] = pool.submit(worker);
+            }
+
+            // Wait for tasks to finish
+            for (int i=0; i<numTasks; i++) {
+                try {
+                    futures[i].get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("ERROR: task " + i + ": " + e);
+                }
+            }
+        } finally {
+            // Wait for the pool threads to terminate, so their slots can be
+            // reclaimed by the threads of the next run
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: pool: " + e);
+            }
+        }
+
+        return (first == null) ? 0 : first.getC();
+    }
+
+    /** Run the increment a shared counter with timed lock attempts operation
+     *  to benchmark
+     * 
+     * Each thread makes a set number of tryLock attempts with a timeout (see
+     * TryLockWorker). A thread that gets the lock increments the counter and
+     * holds the lock for holdNanos, so the waiting threads time out often when
+     * the timeout is short compared to the hold time. The number of attempts
+     * that timed out is kept until the next run (see getTimeouts).
+     * 
+     * @param numWorkers    Number of worker threads
+     * @param attempts  Number of lock attempts per thread
+     * @param timeoutNanos  Timeout of each attempt in nanoseconds, or 0 to
+     *  try without waiting
+     * @param holdNanos Time the lock is held on success in nanoseconds
+     * @param lock  Lock using the java.util.concurrent.locks.Lock interface
+     * @return Number of lost or extra updates (the final counter minus the
+     *  successful attempts), which must be 0
+     */
+    public int runTryLockBenchmark(int numWorkers, int attempts,
+            long timeoutNanos, long holdNanos,
+            java.util.concurrent.locks.Lock lock) {
+        TryLockWorker[] workers = new TryLockWorker[numWorkers];
+        Thread[] threads = new Thread[numWorkers];
+
+        // Initialize workers
+        for (int i=0; i<numWorkers; i++) {
+            workers[i] = new TryLockWorker(attempts, timeoutNanos, holdNanos,
+                lock);
+        }
+
+        // Initialize the shared counter c
+        workers[0].setC(0);
+
+        // Spawn threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i] = new Thread(workers[i], "T" + i);
+        }
+
+        // Start threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i].start();
+        }
+
+        // Wait for threads to terminate
+        for (int i=0; i<numWorkers; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: T" + i + ": " + e);
+            }
+        }
+
+        // Check every successful attempt incremented the counter once
+        int acquired = 0;
+        this.timeouts = 0;
+        for (int i=0; i<numWorkers; i++) {
+            acquired += workers[i].getAcquired();
+            this.timeouts += workers[i].getTimeouts();
+        }
+        return workers[0].getC() - acquired;
+    }
+
+    /** Get the number of attempts that timed out in the last timed lock
+     *  attempts run
+     * 
+     * @return Failed attempts of all the threads
+     */
+    public int getTimeouts() {
+        return this.timeouts;
+    }
+
+    /** Run the producer/consumer operation to benchmark
+     * 
+     * numPairs producer threads put the items 1 to items into a BoundedBuffer
+     * guarded by the lock, and numPairs consumer threads take as many items
+     * each. Every item goes through the lock twice, and the
+     * threads wait on the conditions of the lock whenever the buffer is full
+     * or empty.
+     * 
+     * @param numPairs  Number of producer threads and of consumer threads
+     * @param items Number of items per producer
+     * @param capacity  Capacity of the buffer
+     * @param lock  Lock with conditions, for 2*numPairs threads
+     * @return Sum of the items taken minus the sum of the items put, which
+     *  must be 0
+     */
+    public long runProducerConsumerBenchmark(int numPairs, int items,
+            int capacity, java.util.concurrent.locks.Lock lock) {
+        BoundedBuffer buffer = new BoundedBuffer(capacity, lock);
+        long[] taken = new long[numPairs];
+        Thread[] threads = new Thread[2 * numPairs];
+
+        // Spawn threads
+        for (int i=0; i<numPairs; i++) {
+            int consumer = i;
+            threads[2 * i] = new Thread(() -> {
+                try {
+                    for (int item=1; item<=items; item++) {
+                        buffer.put(item);
+                    }
+                } catch (InterruptedException e) {
+                    System.out.println("ERROR: producer: " + e);
+                }
+            }, "P" + i);
+            threads[2 * i + 1] = new Thread(() -> {
+                try {
+                    for (int item=1; item<=items; item++) {
+                        taken[consumer] += buffer.take();
+                    }
+                } catch (InterruptedException e) {
+                    System.out.println("ERROR: consumer: " + e);
+                }
+            }, "C" + i);
+        }
+
+        // Start threads
+        for (int i=0; i<threads.length; i++) {
+            threads[i].start();
+        }
+
+        // Wait for threads to terminate
+        for (int i=0; i<threads.length; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: " + threads[i].getName() + ": " + e);
+            }
+        }
+
+        // Check every item put was taken once
+        long sum = 0;
+        for (int i=0; i<numPairs; i++) {
+            sum += taken[i];
+        }
+        return sum - numPairs * ((long) items * (items + 1) / 2);
+    }
+
+    /** Run the increment a shared counter operation on virtual threads
+     * 
+     * numTasks workers are submitted to an executor that starts a virtual
+     * thread per task (see VirtualThreads, which falls back to a pool of
+     * platform threads on JDKs without virtual threads). Even tasks (starting
+     * from 0) increment the counter increments times, and odd tasks decrement
+     * it, so the counter ends at 0 for an even number of tasks. With a
+     * VirtualThreadLock, each increment takes a thread ID from its pool.
+     * 
+     * @param numTasks  Number of tasks submitted
+     * @param increments    Number of increments/decrements per task
+     * @param lockObj   Lock object of type VirtualThreadLock or ReentrantLock
+     * @return Final value of the counter
+     */
+    public int runVirtualThreadBenchmark(int numTasks, int increments,
+            Object lockObj) {
+        Worker[] workers = new Worker[numTasks];
+
+        for (int i=0; i<numTasks; i++) {
+            // Even tasks add, odd tasks subtract
+            boolean add = ((i%2) == 0) ? true : false;
+            if (lockObj instanceof VirtualThreadLock) {
+                workers[i] = new Worker(add, increments,
+                    (VirtualThreadLock) lockObj);
+            } else if (lockObj instanceof ReentrantLock) {
+                workers[i] = new Worker(i, add, increments,
+                    (ReentrantLock) lockObj);
+            } else {
+                throw new IllegalArgumentException(
+                    "ERROR: Unknown type of lock");
+            }
+        }
+
+        // Initialize the shared counter c
+        workers[0].setC(0);
+
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<?>[] futures = new Future<?>[numTasks];
+            for (int i=0; i<numTasks; i++) {
+                futures[i] = executor.submit(workers[i]);
+            }
+
+            // Wait for tasks to finish
+            for (int i=0; i<numTasks; i++) {
+                try {
+                    futures[i].get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("ERROR: task " + i + ": " + e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: executor: " + e);
+            }
+        }
+
+        return workers[0].getC();
+    }
 }
@@ -0,0 +1,323 @@
+/** Benchmark of locks shared by several JVMs through a memory-mapped file
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Benchmark of locks shared by several JVMs through a memory-mapped file
+ *
+ * The benchmark forks a number of local JVMs that increment a counter in a
+ * shared file a set number of times each, with the lock held. The read-write
+ * register locks keep their registers in the same file (see
+ * MappedRegisterFactory), and FileChannelLock takes a FileChannel.lock on it
+ * instead, which is a system call on every lock and unlock.
+ *
+ * Each forked JVM runs one thread, with the thread ID of the process slot it
+ * claims (see ProcessSlots). The time is measured from the moment all the JVMs
+ * are ready to the moment all of them are done, so it does not include the
+ * start of the JVMs.
+ *
+ * It is not a JMH benchmark, since JMH cannot coordinate several JVMs. Run it
+ * with the interProcessBenchmark Gradle task, for example:
+ *
+ *   ./gradlew interProcessBenchmark --args="OneBitLock,FileChannelLock 4 100000"
+ */
+public class InterProcessBenchmark {
+    /** Name of the FileChannel.lock baseline
+     */
+    public static final String FILE_CHANNEL_LOCK = "FileChannelLock";
+
+    /** Locks benchmarked by default
+     */
+    private static final String[] DEFAULT_LOCK_TYPES = {
+        FILE_CHANNEL_LOCK, "TournamentLock", "ColoredBakeryLock", "OneBitLock",
+        "AdaptiveLock"
+    };
+
+    /** Numbers of processes benchmarked by default
+     */
+    private static final int[] DEFAULT_NUM_PROCESSES = {2, 4};
+
+    /** Default number of increments per process
+     */
+    private static final int DEFAULT_INCREMENTS = 100000;
+
+    /** Default spin policy of the wait loops
+     *
+     * Waiting processes yield their CPU, since busy waiting processes can
+     * leave the lock holder without one.
+     */
+    private static final String DEFAULT_SPIN_POLICY = "SPIN_THEN_YIELD";
+
+    /** Longest time to wait for the forked processes to be ready, or for
+     * a forked process to wait for the start, in nanoseconds
+     */
+    private static final long START_TIMEOUT_NANOS = 60000000000L;
+
+    /** Argument that makes a JVM run as a forked process of the benchmark
+     */
+    private static final String CHILD = "child";
+
+    /** Entry point
+     *
+     * Arguments (all optional): comma separated lock types, comma separated
+     * numbers of processes, increments per process and spin policy.
+     *
+     * @param args  Arguments
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD)) {
+            runChild(Paths.get(args[1]), args[2], Integer.parseInt(args[3]),
+                Integer.parseInt(args[4]), args[5]);
+            return;
+        }
+
+        String[] lockTypes = (args.length > 0) ? args[0].split(",")
+            : DEFAULT_LOCK_TYPES;
+        int[] numProcesses = DEFAULT_NUM_PROCESSES;
+        if (args.length > 1) {
+            String[] values = args[1].split(",");
+            numProcesses = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                numProcesses[i] = Integer.parseInt(values[i]);
+            }
+        }
+        int increments = (args.length > 2) ? Integer.parseInt(args[2])
+            : DEFAULT_INCREMENTS;
+        String spinPolicy = (args.length > 3) ? args[3] : DEFAULT_SPIN_POLICY;
+
+        for (int p : numProcesses) {
+            for (String lockType : lockTypes) {
+                run(lockType, p, increments, spinPolicy);
+            }
+        }
+    }
+
+    /** Run the benchmark once
+     *
+     * @param lockType  Lock type (FILE_CHANNEL_LOCK or one of
+     * LockFactory.getRegisterFileLockTypes)
+     * @param numProcesses  Number of JVMs to fork
+     * @param increments    Number of increments per process
+     * @param spinPolicy    Spin policy of the wait loops (see SpinPolicy)
+     * @return Final value of the shared counter
+     */
+    public static long run(String lockType, int numProcesses, int increments,
+            String spinPolicy) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("interprocess", ".registers");
+        List<Process> processes = new ArrayList<Process>();
+        try (MappedRegisterFactory registers = new MappedRegisterFactory(file,
+                mappedBytes(numProcesses, increments))) {
+            SharedState state = new SharedState(registers, numProcesses);
+
+            // Fork the processes, and wait until all of them are ready
+            for (int i = 0; i < numProcesses; i++) {
+                processes.add(fork(file, lockType, numProcesses, increments,
+                    spinPolicy));
+            }
+            long deadline = System.nanoTime() + START_TIMEOUT_NANOS;
+            while (state.slots.getNumClaimed() < numProcesses) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("Only "
+                        + state.slots.getNumClaimed() + " of " + numProcesses
+                        + " processes were ready before the timeout");
+                }
+                for (Process process : processes) {
+                    if (!process.isAlive()) {
+                        throw new IllegalStateException(
+                            "A process exited before the start: "
+                            + process.exitValue());
+                    }
+                }
+                Thread.sleep(1);
+            }
+
+            long start = System.nanoTime();
+            state.start.setBoolean(0, true);
+            for (Process process : processes) {
+                if (process.waitFor() != 0) {
+                    throw new IllegalStateException("A process failed: "
+                        + process.exitValue());
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            long c = state.counter.getLong(0);
+            long expected = (long) numProcesses * increments;
+            System.out.print(lockType + ", " + numProcesses + " processes: "
+                + (elapsed / expected) + " ns per acquisition: ");
+            if (c != expected) {
+                System.out.println("FAIL: Concurrency error: got " + c
+                    + " expected " + expected);
+            } else {
+                System.out.println("PASS");
+            }
+            return c;
+        } finally {
+            // Do not leave processes behind if the benchmark failed
+            destroy(processes);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Kill the forked processes that are still running, and wait for them
+     *
+     * @param processes Forked processes
+     */
+    private static void destroy(List<Process> processes)
+            throws InterruptedException {
+        for (Process process : processes) {
+            process.destroyForcibly();
+        }
+        for (Process process : processes) {
+            process.waitFor();
+        }
+    }
+
+    /** Registers shared by the benchmark and its processes
+     *
+     * Every process builds them first, in the same order, so they are in the
+     * same regions of the file for all of them.
+     */
+    private static class SharedState {
+        /** Process slots, one thread per process
+         */
+        final ProcessSlots slots;
+
+        /** Start flag, set when all the processes are ready
+         */
+        final RegisterFile start;
+
+        /** Shared counter
+         */
+        final RegisterFile counter;
+
+        /** Constructor
+         *
+         * @param registers Factory of the shared registers
+         * @param numProcesses  Number of processes
+         */
+        SharedState(MappedRegisterFactory registers, int numProcesses) {
+            this.slots = new ProcessSlots(registers.create(numProcesses), 1);
+            this.start = registers.create(1);
+            this.counter = registers.create(1);
+        }
+    }
+
+    /** Get the size of the shared file
+     *
+     * It has room for the shared state and any of the locks, including the
+     * splitters AdaptiveLock can use.
+     *
+     * @param numProcesses  Number of processes
+     * @param increments    Number of increments per process
+     * @return Size of the mapped file in bytes
+     */
+    private static int mappedBytes(int numProcesses, int increments) {
+        long bytes = 64L * (numProcesses + 8)
+            + 8L * (1 + 4L * adaptiveMaxSplitters(numProcesses, increments));
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                "Too many increments for the mapped file");
+        }
+        return (int) bytes;
+    }
+
+    /** Get the number of splitters of AdaptiveLock
+     *
+     * A thread can go n-1 levels below next, and set next one level below
+     * that when it releases the lock, so each acquisition moves next at most
+     * n levels further.
+     *
+     * @param numProcesses  Number of processes
+     * @param increments    Number of increments per process
+     * @return Number of splitters
+     */
+    private static long adaptiveMaxSplitters(int numProcesses, int increments) {
+        return numProcesses * ((long) numProcesses * increments + 2);
+    }
+
+    /** Fork a process of the benchmark
+     *
+     * @param file  Shared file
+     * @param lockType  Lock type
+     * @param numProcesses  Number of processes
+     * @param increments    Number of increments per process
+     * @param spinPolicy    Spin policy of the wait loops
+     * @return Forked process
+     */
+    private static Process fork(Path file, String lockType, int numProcesses,
+            int increments, String spinPolicy) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java")
+            .toString();
+        return new ProcessBuilder(java, "-cp",
+            System.getProperty("java.class.path"),
+            InterProcessBenchmark.class.getName(), CHILD, file.toString(),
+            lockType, Integer.toString(numProcesses),
+            Integer.toString(increments), spinPolicy)
+            .inheritIO()
+            .start();
+    }
+
+    /** Run a forked process of the benchmark
+     *
+     * The process builds the shared state and the lock, claims a slot, waits
+     * for the start, and increments the counter. It gives up if the start does
+     * not come, so it does not outlive a benchmark that failed.
+     *
+     * @param file  Shared file
+     * @param lockType  Lock type
+     * @param numProcesses  Number of processes
+     * @param increments    Number of increments per process
+     * @param spinPolicy    Spin policy of the wait loops
+     */
+    private static void runChild(Path file, String lockType, int numProcesses,
+            int increments, String spinPolicy) throws IOException {
+        try (MappedRegisterFactory registers = new MappedRegisterFactory(file,
+                mappedBytes(numProcesses, increments))) {
+            SharedState state = new SharedState(registers, numProcesses);
+
+            Lock lock;
+            FileChannel channel = null;
+            if (lockType.equals(FILE_CHANNEL_LOCK)) {
+                channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                lock = new FileChannelLock(channel);
+            } else {
+                LockFactory.setAdaptiveMaxSplitters(
+                    (int) adaptiveMaxSplitters(numProcesses, increments));
+                lock = LockFactory.create(lockType, numProcesses,
+                    SpinPolicy.fromName(spinPolicy), registers);
+            }
+
+            int slot = state.slots.claim();
+            int tid = state.slots.getTid(slot, 0);
+            long deadline = System.nanoTime() + START_TIMEOUT_NANOS;
+            while (!state.start.getBoolean(0)) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException(
+                        "The benchmark did not start before the timeout");
+                }
+                Thread.yield();
+            }
+
+            for (int i = 0; i < increments; i++) {
+                lock.lock(tid);
+                state.counter.setLong(0, state.counter.getLong(0) + 1);
+                lock.unlock(tid);
+            }
+
+            state.slots.release(slot);
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
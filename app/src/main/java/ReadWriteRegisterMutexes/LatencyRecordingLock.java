@@ -0,0 +1,190 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.Arrays;
+
+/** Lock decorator that records the acquisition latency of every thread
+ *
+ * Each call to lock(tid) is timed with System.nanoTime(), and the latency is
+ * added to a histogram owned by that thread, so recording does not add any
+ * shared writes to the lock. The histograms use 8 linear sub-buckets per power
+ * of 2, so percentiles are reported with an error of at most 12.5%, and memory
+ * does not grow with the number of acquisitions.
+ *
+ * The histograms must only be read after the worker threads have terminated.
+ */
+public class LatencyRecordingLock implements Lock {
+
+    /** Number of bits of the linear sub-buckets in each power of 2
+     */
+    private static final int SUB_BITS = 3;
+
+    /** Number of linear sub-buckets in each power of 2
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Number of buckets in each histogram
+     */
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    /** Lock being measured
+     */
+    private Lock lock;
+
+    /** Latency histograms of all the threads
+     *
+     * Local variable (each entry is accessed only by one thread while the
+     * lock is in use). counts[tid][bucket] is the number of acquisitions of
+     * thread tid whose latency falls in that bucket.
+     */
+    private long[][] counts;
+
+    /** Largest latency of each thread in nanoseconds
+     *
+     * Local variable (each entry is accessed only by one thread while the
+     * lock is in use).
+     */
+    private long[] max;
+
+    /** Constructor
+     *
+     * @param lock  Lock being measured
+     * @param numThreads    Number of threads using the lock
+     */
+    public LatencyRecordingLock(Lock lock, int numThreads) {
+        this.lock = lock;
+        this.counts = new long[numThreads][BUCKETS];
+        this.max = new long[numThreads];
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        long start = System.nanoTime();
+        this.lock.lock(tid);
+        long latency = System.nanoTime() - start;
+
+        this.counts[tid][bucket(latency)]++;
+        if (latency > this.max[tid]) {
+            this.max[tid] = latency;
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        this.lock.unlock(tid);
+    }
+
+    /** Reset the measured lock and clear the histograms
+     */
+    public void reset() {
+        this.lock.reset();
+        clear();
+    }
+
+    /** Get the number of acquisitions recorded for a thread
+     *
+     * @param tid Thread ID
+     * @return Number of acquisitions of the thread
+     */
+    public long getCount(int tid) {
+        long total = 0;
+        for (long c : this.counts[tid]) {
+            total += c;
+        }
+        return total;
+    }
+
+    /** Get the largest latency recorded for a thread
+     *
+     * @param tid Thread ID
+     * @return Largest latency of the thread in nanoseconds
+     */
+    public long getMax(int tid) {
+        return this.max[tid];
+    }
+
+    /** Get a latency percentile of a thread
+     *
+     * @param tid Thread ID
+     * @param percentile    Percentile in the range (0, 100]
+     * @return Upper bound of the bucket holding the percentile in nanoseconds,
+     *  or 0 if the thread did not acquire the lock
+     */
+    public long getPercentile(int tid, double percentile) {
+        long total = getCount(tid);
+        long target = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += this.counts[tid][b];
+            if (seen >= target && seen > 0) {
+                return Math.min(upperBound(b), this.max[tid]);
+            }
+        }
+        return 0;
+    }
+
+    /** Clear the histograms of all the threads
+     */
+    public void clear() {
+        for (int tid = 0; tid < this.counts.length; tid++) {
+            Arrays.fill(this.counts[tid], 0);
+            this.max[tid] = 0;
+        }
+    }
+
+    /** Build a report with the latency percentiles of every thread
+     *
+     * @return One line per thread with its count, p50, p99, p99.9 and max
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (int tid = 0; tid < this.counts.length; tid++) {
+            sb.append("T").append(tid)
+                .append(": n=").append(getCount(tid))
+                .append(" p50=").append(getPercentile(tid, 50.0))
+                .append("ns p99=").append(getPercentile(tid, 99.0))
+                .append("ns p99.9=").append(getPercentile(tid, 99.9))
+                .append("ns max=").append(getMax(tid))
+                .append("ns\n");
+        }
+        return sb.toString();
+    }
+
+    /** Find the histogram bucket of a latency
+     *
+     * Latencies below SUB_BUCKETS have a bucket each. Larger latencies are
+     * split in SUB_BUCKETS linear buckets per power of 2.
+     *
+     * @param latency   Latency in nanoseconds
+     * @return Index of the bucket
+     */
+    private static int bucket(long latency) {
+        if (latency < SUB_BUCKETS) {
+            return (latency < 0) ? 0 : (int) latency;
+        }
+        int e = 63 - Long.numberOfLeadingZeros(latency);
+        int sub = (int) (latency >>> (e - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (e - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** Find the largest latency that falls in a bucket
+     *
+     * @param b Index of the bucket
+     * @return Largest latency of the bucket in nanoseconds
+     */
+    private static long upperBound(int b) {
+        if (b < SUB_BUCKETS) {
+            return b;
+        }
+        int e = b / SUB_BUCKETS + SUB_BITS - 1;
+        long lower = (long) (SUB_BUCKETS + b % SUB_BUCKETS) << (e - SUB_BITS);
+        return lower + (1L << (e - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,102 @@
+/** Lock that finds the thread ID of its callers in a SlotRegistry
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Lock that finds the thread ID of its callers in a SlotRegistry
+ *
+ * The wrapped lock is sized for the number of slots of the registry. lock()
+ * and unlock() take no thread ID: the calling thread uses the slot the
+ * registry leased to it, so the lock can be used from a thread pool. The
+ * lock(tid) and unlock(tid) methods pass the given ID through, and must not be
+ * mixed with leased IDs on the same lock.
+ */
+public class LeasedLock implements Lock {
+    /** Wrapped lock
+     */
+    private final Lock lock;
+
+    /** Registry of the thread IDs
+     */
+    private final SlotRegistry registry;
+
+    /** Thread ID of the thread holding the lock through lock()
+     *
+     * Only accessed by the thread in the critical section, so unlock() does
+     * not look up the slot of the caller again.
+     */
+    private int holder;
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for numThreads threads
+     * @param numThreads    Number of threads using the lock at the same time
+     */
+    public LeasedLock(Lock lock, int numThreads) {
+        this(lock, new SlotRegistry(numThreads));
+    }
+
+    /** Constructor
+     *
+     * The registry can be shared by several locks sized for its number of
+     * slots, so a thread has the same ID in all of them.
+     *
+     * @param lock  Lock sized for the slots of the registry
+     * @param registry  Registry of the thread IDs
+     */
+    public LeasedLock(Lock lock, SlotRegistry registry) {
+        this.lock = lock;
+        this.registry = registry;
+    }
+
+    /** Lock or critical section entry protocol method of mutex, with the
+     * thread ID leased to the calling thread
+     */
+    public void lock() {
+        int tid = this.registry.slot();
+        this.lock.lock(tid);
+        this.holder = tid;
+    }
+
+    /** Unlock or critical section exit protocol method of mutex, with the
+     * thread ID leased to the calling thread
+     *
+     * The calling thread must hold the lock through lock().
+     */
+    public void unlock() {
+        this.lock.unlock(this.holder);
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        this.lock.lock(tid);
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        this.lock.unlock(tid);
+    }
+
+    /** Reset the lock to its initial state
+     *
+     * The leases are kept, since the threads that hold them may use the lock
+     * again.
+     */
+    public void reset() {
+        this.lock.reset();
+    }
+
+    /** Get the registry of the thread IDs
+     *
+     * @return Registry
+     */
+    public SlotRegistry getRegistry() {
+        return this.registry;
+    }
+}
@@ -17,4 +17,14 @@ public interface Lock {
      * @param tid Thread ID
      */
     public void unlock(int tid);
+
+    /** Reset the lock to its initial state
+     * 
+     * The lock must be quiescent: no thread may be running lock or unlock
+     * while it is reset, and a thread holding the lock loses it. After reset
+     * returns, the lock behaves as if it had just been constructed for threads
+     * started afterwards, so one instance can be reused between benchmark
+     * iterations instead of allocating a new one.
+     */
+    public void reset();
 }
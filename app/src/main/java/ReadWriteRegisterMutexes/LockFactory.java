@@ -0,0 +1,240 @@
+/** Factory of the read-write register locks by name
+ */
+
+package ReadWriteRegisterMutexes;
+
+import ReadWriteRegisterMutexes.Adaptive.AdaptiveLock;
+import ReadWriteRegisterMutexes.Adaptive.RecyclingAdaptiveLock;
+import ReadWriteRegisterMutexes.Adaptive.RelaxedAdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.AdaptiveColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.ColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.MaxTreeColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.PackedColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.RelaxedColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.TimePublishedColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.CompactOneBitLock;
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import ReadWriteRegisterMutexes.OneBit.RelaxedOneBitLock;
+import ReadWriteRegisterMutexes.OneBit.RotatingOneBitLock;
+import ReadWriteRegisterMutexes.Tournament.FlatTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.KesselsTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.RelaxedTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.TimePublishedTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.TournamentLock;
+
+/** Factory of the read-write register locks by name
+ *
+ * Benchmarks that compare several locks take the lock type as a String JMH
+ * parameter, and use this factory to build it.
+ */
+public class LockFactory {
+
+    /** Global setting for maximum number of splitters of AdaptiveLock
+     */
+    private static int adaptiveMaxSplitters = 80000000;
+
+    /** Names of all the locks the factory can build
+     */
+    private static final String[] LOCK_TYPES = {
+        "TournamentLock", "FlatTournamentLock", "KesselsTournamentLock",
+        "TimePublishedTournamentLock", "RelaxedTournamentLock",
+        "ColoredBakeryLock", "PackedColoredBakeryLock",
+        "AdaptiveColoredBakeryLock", "MaxTreeColoredBakeryLock",
+        "TimePublishedColoredBakeryLock", "RelaxedColoredBakeryLock",
+        "OneBitLock", "RotatingOneBitLock", "CompactOneBitLock",
+        "RelaxedOneBitLock",
+        "AdaptiveLock", "RecyclingAdaptiveLock", "RelaxedAdaptiveLock",
+        "MorphingLock"
+    };
+
+    /** Names of the locks that keep their registers in a RegisterFile
+     */
+    private static final String[] REGISTER_FILE_LOCK_TYPES = {
+        "TournamentLock", "ColoredBakeryLock", "OneBitLock", "AdaptiveLock"
+    };
+
+    /** Get the names of all the locks the factory can build
+     *
+     * @return Lock type names accepted by create
+     */
+    public static String[] getLockTypes() {
+        return LOCK_TYPES.clone();
+    }
+
+    /** Set the maximum number of splitters of the AdaptiveLocks built from now
+     * on
+     *
+     * @param maxSplitters  Maximum number of splitters
+     */
+    public static void setAdaptiveMaxSplitters(int maxSplitters) {
+        LockFactory.adaptiveMaxSplitters = maxSplitters;
+    }
+
+    /** Get the names of the locks that keep their registers in a RegisterFile
+     *
+     * @return Lock type names accepted by create with a RegisterFileFactory
+     */
+    public static String[] getRegisterFileLockTypes() {
+        return REGISTER_FILE_LOCK_TYPES.clone();
+    }
+
+    /** Build a lock that busy waits
+     *
+     * @param lockType  Simple class name of the lock
+     * @param numThreads    Number of threads using the lock
+     * @return New lock
+     */
+    public static Lock create(String lockType, int numThreads) {
+        return create(lockType, numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Build a lock
+     *
+     * @param lockType  Simple class name of the lock
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops of the lock
+     * @return New lock
+     */
+    public static Lock create(String lockType, int numThreads,
+            SpinPolicy spinPolicy) {
+        switch (lockType) {
+            case "TournamentLock":
+                return new TournamentLock(numThreads, spinPolicy);
+            case "FlatTournamentLock":
+                return new FlatTournamentLock(numThreads, spinPolicy);
+            case "KesselsTournamentLock":
+                return new KesselsTournamentLock(numThreads, spinPolicy);
+            case "TimePublishedTournamentLock":
+                return new TimePublishedTournamentLock(numThreads, spinPolicy);
+            case "RelaxedTournamentLock":
+                return new RelaxedTournamentLock(numThreads, spinPolicy);
+            case "ColoredBakeryLock":
+                return new ColoredBakeryLock(numThreads, spinPolicy);
+            case "PackedColoredBakeryLock":
+                return new PackedColoredBakeryLock(numThreads, spinPolicy);
+            case "AdaptiveColoredBakeryLock":
+                return new AdaptiveColoredBakeryLock(numThreads, spinPolicy);
+            case "MaxTreeColoredBakeryLock":
+                return new MaxTreeColoredBakeryLock(numThreads, spinPolicy);
+            case "TimePublishedColoredBakeryLock":
+                return new TimePublishedColoredBakeryLock(numThreads,
+                    spinPolicy);
+            case "RelaxedColoredBakeryLock":
+                return new RelaxedColoredBakeryLock(numThreads, spinPolicy);
+            case "OneBitLock":
+                return new OneBitLock(numThreads, spinPolicy);
+            case "RotatingOneBitLock":
+                return new RotatingOneBitLock(numThreads, spinPolicy);
+            case "CompactOneBitLock":
+                return new CompactOneBitLock(numThreads, spinPolicy);
+            case "RelaxedOneBitLock":
+                return new RelaxedOneBitLock(numThreads, spinPolicy);
+            case "AdaptiveLock":
+                return new AdaptiveLock(numThreads,
+                    LockFactory.adaptiveMaxSplitters, spinPolicy);
+            case "RecyclingAdaptiveLock":
+                return new RecyclingAdaptiveLock(numThreads, spinPolicy);
+            case "RelaxedAdaptiveLock":
+                return new RelaxedAdaptiveLock(numThreads,
+                    LockFactory.adaptiveMaxSplitters, spinPolicy);
+            case "MorphingLock":
+                return new MorphingLock(
+                    new RecyclingAdaptiveLock(numThreads, spinPolicy),
+                    new TournamentLock(numThreads, spinPolicy), numThreads);
+            default:
+                throw new IllegalArgumentException(
+                    "ERROR: Unknown type of lock: " + lockType);
+        }
+    }
+
+    /** Build a lock over a register file
+     *
+     * Only the locks of getRegisterFileLockTypes can be built this way.
+     *
+     * @param lockType  Simple class name of the lock
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops of the lock
+     * @param registers Factory of the register file of the lock
+     * @return New lock
+     */
+    public static Lock create(String lockType, int numThreads,
+            SpinPolicy spinPolicy, RegisterFileFactory registers) {
+        switch (lockType) {
+            case "TournamentLock":
+                return new TournamentLock(numThreads, spinPolicy, registers);
+            case "ColoredBakeryLock":
+                return new ColoredBakeryLock(numThreads, spinPolicy, registers);
+            case "OneBitLock":
+                return new OneBitLock(numThreads, spinPolicy, registers);
+            case "AdaptiveLock":
+                return new AdaptiveLock(numThreads,
+                    LockFactory.adaptiveMaxSplitters, spinPolicy, registers);
+            default:
+                throw new IllegalArgumentException(
+                    "ERROR: Lock without a register file: " + lockType);
+        }
+    }
+
+    /** Build a lock, specialized for its number of threads if possible
+     *
+     * The Gradle build generates TournamentLockN, ColoredBakeryLockN and
+     * OneBitLockN for a few numbers of threads N (see
+     * SpecializedLockGenerator). If the lock type has a generated class for
+     * numThreads (or, for TournamentLock, for the next power of 2), it is
+     * built instead of the generic class. Any other lock is built by create.
+     *
+     * @param lockType  Simple class name of the generic lock
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops of the lock
+     * @return New lock
+     */
+    public static Lock createSpecialized(String lockType, int numThreads,
+            SpinPolicy spinPolicy) {
+        Class<?> specialized = getSpecializedClass(lockType, numThreads);
+        if (specialized == null) {
+            return create(lockType, numThreads, spinPolicy);
+        }
+        try {
+            return (Lock) specialized.getConstructor(SpinPolicy.class)
+                .newInstance(spinPolicy);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                "ERROR: Cannot build " + specialized.getName(), e);
+        }
+    }
+
+    /** Find the generated class of a lock for a number of threads
+     *
+     * @param lockType  Simple class name of the generic lock
+     * @param numThreads    Number of threads using the lock
+     * @return Generated class, or null if there is none
+     */
+    private static Class<?> getSpecializedClass(String lockType,
+            int numThreads) {
+        String pkg;
+        int n = numThreads;
+        switch (lockType) {
+            case "TournamentLock":
+                pkg = "Tournament";
+                // The tournament tree has a power of 2 leaves
+                if (n > 1) {
+                    n = Integer.highestOneBit(n - 1) << 1;
+                }
+                break;
+            case "ColoredBakeryLock":
+                pkg = "ColoredBakery";
+                break;
+            case "OneBitLock":
+                pkg = "OneBit";
+                break;
+            default:
+                return null;
+        }
+        try {
+            return Class.forName("ReadWriteRegisterMutexes." + pkg + "."
+                + lockType + n);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/** Factory of register files in a memory-mapped file shared by processes
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Factory of register files in a memory-mapped file shared by processes
+ *
+ * The file is mapped once, and each register file built by the factory is the
+ * next region of the mapping, aligned to a cache line. Processes that map the
+ * same file and build the same locks in the same order get the same regions,
+ * so they share the registers of the locks, and the locks synchronize threads
+ * of different processes with plain loads and stores to shared memory.
+ *
+ * A new file is filled with zeros, which is the initial state of every lock.
+ * The thread IDs of all the processes must be distinct (see ProcessSlots).
+ * The spin policies that park (SPIN_THEN_PARK) are only woken up by threads of
+ * their own process, so other processes only end their timed parks.
+ */
+public class MappedRegisterFactory implements RegisterFileFactory, Closeable {
+    /** Size of a cache line in bytes
+     */
+    private static final int LINE_BYTES = 64;
+
+    /** File channel of the mapped file
+     */
+    private final FileChannel channel;
+
+    /** Mapping of the whole file
+     */
+    private final MappedByteBuffer buffer;
+
+    /** Offset of the next free region of the file in bytes
+     */
+    private int next;
+
+    /** Constructor
+     *
+     * The file is created if it does not exist, and grown to its size.
+     *
+     * @param file  Path of the shared file
+     * @param sizeBytes Size of the mapped part of the file in bytes
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    public MappedRegisterFactory(Path file, int sizeBytes) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                sizeBytes);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.next = 0;
+    }
+
+    /** Build a register file of long registers in the next region of the
+     * mapped file
+     *
+     * @param size  Number of registers
+     * @return Register file over the region, holding the values in the file
+     */
+    public OffHeapRegisterFile create(int size) {
+        return new OffHeapRegisterFile(this.region(size, Long.BYTES));
+    }
+
+    /** Build a register file of int registers in the next region of the
+     * mapped file
+     *
+     * @param size  Number of registers
+     * @return Register file over the region, holding the values in the file
+     */
+    public OffHeapIntRegisterFile createInt(int size) {
+        return new OffHeapIntRegisterFile(this.region(size, Integer.BYTES));
+    }
+
+    /** Take the next region of the mapped file
+     *
+     * @param size  Number of registers
+     * @param width Size of a register in bytes
+     * @return Region of the mapping
+     * @throws IllegalStateException If the region does not fit in the file
+     */
+    private MappedByteBuffer region(int size, int width) {
+        long bytes = (long) width * size;
+        long end = this.next + bytes;
+        if (size < 0 || end > this.buffer.capacity()) {
+            throw new IllegalStateException("No room for " + size
+                + " registers in the mapped file: " + this.getFreeBytes()
+                + " bytes free");
+        }
+        MappedByteBuffer region = this.buffer.slice(this.next, (int) bytes);
+
+        // Start the next region in a cache line of its own
+        this.next = (int) Math.min((end + LINE_BYTES - 1) / LINE_BYTES
+            * LINE_BYTES, this.buffer.capacity());
+        return region;
+    }
+
+    /** Get the number of bytes left for register files
+     *
+     * @return Bytes of the mapped file after the last region
+     */
+    public int getFreeBytes() {
+        return this.buffer.capacity() - this.next;
+    }
+
+    /** Close the file
+     *
+     * The register files built by the factory stay mapped until they are
+     * garbage collected.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
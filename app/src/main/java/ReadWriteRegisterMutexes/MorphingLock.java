@@ -0,0 +1,280 @@
+/** Lock that switches between two algorithms with the observed contention
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Lock that switches between two algorithms with the observed contention
+ *
+ * The lock wraps a lock for low contention (such as an adaptive lock, whose
+ * cost does not depend on the number of threads) and a lock for high
+ * contention (such as a tournament). The mode register says which one is in
+ * use. A thread reads the mode, takes that lock, and reads the mode again: if
+ * it changed meanwhile, it releases the lock and starts over. The thread in
+ * the critical section always holds the lock of the current mode, and only
+ * that thread changes the mode, so a thread that sees the mode it locked
+ * cannot meet another thread in the critical section.
+ *
+ * To switch, the thread in the critical section takes the lock of the other
+ * mode as well, writes the new mode, and releases the lock of the old mode.
+ * The threads that wait for the old lock see the new mode once they get it,
+ * and move to the new lock. A thread never waits for a lock while it holds
+ * the other one, except the switching thread, which holds the current lock,
+ * so there is no deadlock.
+ *
+ * The contention is sampled in the entry protocol: each thread raises its
+ * waiting flag while it waits for the wrapped lock. Once every samplePeriod
+ * acquisitions, the thread in the critical section counts the raised flags,
+ * and adds the count to an exponential moving average of the number of
+ * waiting threads. The lock moves to the high contention lock when the
+ * average reaches toHigh, and back to the low contention lock when it falls
+ * to toLow, so it does not flip between them while the contention is close
+ * to a single threshold.
+ */
+public class MorphingLock implements Lock {
+    /** Default number of acquisitions between contention samples
+     */
+    public static final int DEFAULT_SAMPLE_PERIOD = 64;
+
+    /** Default average number of waiting threads to use the high contention
+     * lock
+     */
+    public static final double DEFAULT_TO_HIGH = 1.5;
+
+    /** Default average number of waiting threads to use the low contention
+     * lock again
+     */
+    public static final double DEFAULT_TO_LOW = 0.25;
+
+    /** Mode of the low contention lock
+     */
+    public static final int LOW = 0;
+
+    /** Mode of the high contention lock
+     */
+    public static final int HIGH = 1;
+
+    /** Number of int registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** Index of the mode register, after the empty leading block
+     */
+    private static final int MODE = LINE;
+
+    /** Fixed point scale of the average number of waiting threads
+     */
+    private static final int SCALE = 256;
+
+    /** Weight of a new sample in the average (1/2^AVERAGE_SHIFT)
+     */
+    private static final int AVERAGE_SHIFT = 3;
+
+    /** Wrapped locks of each mode
+     */
+    private final Lock[] locks;
+
+    /** Number of threads using the lock
+     */
+    private final int numThreads;
+
+    /** Number of acquisitions between contention samples
+     */
+    private final int samplePeriod;
+
+    /** Average number of waiting threads to use the high contention lock,
+     * times SCALE
+     */
+    private final int toHigh;
+
+    /** Average number of waiting threads to use the low contention lock
+     * again, times SCALE
+     */
+    private final int toLow;
+
+    /** Shared registers: the mode, and waiting[i] in the block starting at
+     * LINE*(i+2)
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Acquisitions since the last sample
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int acquisitions;
+
+    /** Average number of waiting threads, times SCALE
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int average;
+
+    /** Number of mode switches since the last reset
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int switches;
+
+    /** Constructor
+     *
+     * @param low   Lock used with low contention
+     * @param high  Lock used with high contention
+     * @param numThreads    Number of threads using the lock
+     */
+    public MorphingLock(Lock low, Lock high, int numThreads) {
+        this(low, high, numThreads, DEFAULT_SAMPLE_PERIOD, DEFAULT_TO_HIGH,
+            DEFAULT_TO_LOW);
+    }
+
+    /** Constructor
+     *
+     * @param low   Lock used with low contention
+     * @param high  Lock used with high contention
+     * @param numThreads    Number of threads using the lock
+     * @param samplePeriod  Number of acquisitions between contention samples
+     * @param toHigh    Average number of waiting threads to use the high
+     *  contention lock
+     * @param toLow Average number of waiting threads to use the low contention
+     *  lock again
+     */
+    public MorphingLock(Lock low, Lock high, int numThreads, int samplePeriod,
+            double toHigh, double toLow) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads: numThreads must be >0");
+        }
+        if (samplePeriod <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid sample period: samplePeriod must be >0");
+        }
+        if (toLow < 0 || toHigh <= toLow) {
+            throw new IllegalArgumentException(
+                "Invalid thresholds: must be 0 <= toLow < toHigh");
+        }
+        this.locks = new Lock[] {low, high};
+        this.numThreads = numThreads;
+        this.samplePeriod = samplePeriod;
+        this.toHigh = (int) Math.round(toHigh * SCALE);
+        this.toLow = (int) Math.round(toLow * SCALE);
+        this.registers = new AtomicIntegerArray(LINE * (numThreads + 2));
+        this.registers.set(MODE, LOW);
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int waiting = LINE * (tid + 2);
+        // The flag is only a hint for the samples, so it needs no fence
+        this.registers.lazySet(waiting, 1);
+        while (true) {
+            int mode = this.registers.get(MODE);
+            this.locks[mode].lock(tid);
+            if (this.registers.get(MODE) == mode) {
+                break;
+            }
+            // The lock moved to the other mode while we waited
+            this.locks[mode].unlock(tid);
+        }
+        this.registers.lazySet(waiting, 0);
+
+        if (++this.acquisitions >= this.samplePeriod) {
+            this.acquisitions = 0;
+            this.sample(tid);
+        }
+    }
+
+    /** Sample the contention and switch mode if needed
+     *
+     * Must be called in the critical section.
+     *
+     * @param tid Thread ID
+     */
+    private void sample(int tid) {
+        int waiting = 0;
+        for (int i = 0; i < this.numThreads; i++) {
+            waiting += this.registers.get(LINE * (i + 2));
+        }
+        this.average += (waiting * SCALE - this.average) >> AVERAGE_SHIFT;
+
+        int mode = this.registers.get(MODE);
+        if (mode == LOW && this.average >= this.toHigh) {
+            this.switchMode(tid, LOW, HIGH);
+        } else if (mode == HIGH && this.average <= this.toLow) {
+            this.switchMode(tid, HIGH, LOW);
+        }
+    }
+
+    /** Move the lock from a mode to the other one
+     *
+     * Must be called in the critical section, holding the lock of the old
+     * mode.
+     *
+     * @param tid Thread ID
+     * @param from  Current mode
+     * @param to    New mode
+     */
+    private void switchMode(int tid, int from, int to) {
+        // Threads that read the old mode may hold the new lock for a moment,
+        // until they see the mode did not change and release it
+        this.locks[to].lock(tid);
+        this.registers.set(MODE, to);
+        this.locks[from].unlock(tid);
+        this.switches++;
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        // Only the thread in the critical section changes the mode
+        this.locks[this.registers.get(MODE)].unlock(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (Lock lock : this.locks) {
+            lock.reset();
+        }
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+        this.registers.set(MODE, LOW);
+        this.acquisitions = 0;
+        this.average = 0;
+        this.switches = 0;
+    }
+
+    /** Get the current mode
+     *
+     * @return LOW or HIGH
+     */
+    public int getMode() {
+        return this.registers.get(MODE);
+    }
+
+    /** Get the number of mode switches since the last reset
+     *
+     * Only meaningful when no thread is using the lock.
+     *
+     * @return Number of switches
+     */
+    public int getSwitches() {
+        return this.switches;
+    }
+
+    /** Get a wrapped lock
+     *
+     * @param mode  LOW or HIGH
+     * @return Lock used in that mode
+     */
+    public Lock getLock(int mode) {
+        return this.locks[mode];
+    }
+}
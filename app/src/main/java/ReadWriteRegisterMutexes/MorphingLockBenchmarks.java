@@ -0,0 +1,125 @@
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** MorphingLock benchmarks
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class MorphingLockBenchmarks {
+
+    /** Number of phases per invocation
+     */
+    private static final int NUM_PHASES = 8;
+
+    /** Phase change benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class PhaseChangeState {
+
+        /** Type of lock benchmarked (see LockFactory)
+         *
+         * MorphingLock switches between the two static choices.
+         */
+        @Param({"MorphingLock", "RecyclingAdaptiveLock", "TournamentLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Lost or extra updates of all the phases
+         */
+        int errors;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = LockFactory.create
+            (
+                this.lockType,
+                this.benchmark.getHeavyContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy)
+            );
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.errors = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.errors != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.errors
+                    + " lost or extra updates: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+            if (this.lock instanceof MorphingLock) {
+                System.out.print("switches "
+                    + ((MorphingLock) this.lock).getSwitches() + ": ");
+            }
+        }
+    }
+
+    /** Phase change benchmark
+     *
+     * The benchmark alternates NUM_PHASES times between a phase where
+     * heavyContentionThreadNum threads increment and decrement the shared
+     * variable gIncrements times each, and a phase where a single thread does
+     * the same number of increments alone. The lock is not reset between
+     * phases.
+     *
+     * This benchmark is designed to compare MorphingLock against the best
+     * static lock for each phase, RecyclingAdaptiveLock without contention and
+     * TournamentLock under heavy contention.
+     */
+    @Benchmark
+    public void phaseChange(PhaseChangeState state) {
+        System.out.print("Running benchmark: ");
+        state.errors = state.benchmark.runPhaseChangeBenchmark
+        (
+            state.benchmark.getHeavyContentionThreadNum(),
+            NUM_PHASES,
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+}
@@ -0,0 +1,103 @@
+/** Register file with consecutive int registers outside the heap
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/** Register file with consecutive int registers outside the heap
+ *
+ * The registers are 4-byte aligned ints in a direct ByteBuffer, accessed
+ * through a VarHandle with volatile mode. They hold booleans and ints, and
+ * longs that fit in an int, with the density of CompactIntRegisterFile (see
+ * OffHeapRegisterFile for the 8-byte registers).
+ *
+ * The registers can also live in a buffer given by the caller, such as a
+ * region of a MappedByteBuffer shared by several processes (see
+ * MappedRegisterFactory).
+ */
+public class OffHeapIntRegisterFile implements RegisterFile {
+    /** Volatile access to the ints of a ByteBuffer
+     */
+    private static final VarHandle REGISTER =
+        MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.nativeOrder());
+
+    /** Number of registers
+     */
+    private final int size;
+
+    /** Direct buffer holding the registers
+     *
+     * Shared variable (it might be accessed by multiple threads, or processes,
+     * concurrently). Only accessed through REGISTER.
+     */
+    private final ByteBuffer registers;
+
+    /** Constructor
+     *
+     * @param size  Number of registers
+     */
+    public OffHeapIntRegisterFile(int size) {
+        if (size < 0 || size > (Integer.MAX_VALUE - Integer.BYTES)
+                / Integer.BYTES) {
+            throw new IllegalArgumentException(
+                "Invalid number of registers: " + size);
+        }
+        this.size = size;
+        // Volatile access needs aligned ints, so allocate one more and align
+        this.registers = ByteBuffer.allocateDirect(Integer.BYTES * (size + 1))
+            .alignedSlice(Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /** Constructor over an existing buffer
+     *
+     * The registers are the ints of the buffer from its position to its
+     * limit, and keep their current values.
+     *
+     * @param buffer    Direct buffer, 4-byte aligned at its position
+     */
+    public OffHeapIntRegisterFile(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.alignmentOffset(buffer.position(),
+                Integer.BYTES) != 0) {
+            throw new IllegalArgumentException(
+                "Registers need a direct 4-byte aligned buffer");
+        }
+        this.registers = buffer.slice().order(ByteOrder.nativeOrder());
+        this.size = this.registers.capacity() / Integer.BYTES;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long getLong(int i) {
+        return this.get(i);
+    }
+
+    public void setLong(int i, long value) {
+        this.set(i, RegisterFile.toInt(value));
+    }
+
+    public int get(int i) {
+        return (int) REGISTER.getVolatile(this.registers,
+            Integer.BYTES * Objects.checkIndex(i, this.size));
+    }
+
+    public void set(int i, int value) {
+        REGISTER.setVolatile(this.registers,
+            Integer.BYTES * Objects.checkIndex(i, this.size), value);
+    }
+
+    public boolean getBoolean(int i) {
+        return this.get(i) != 0;
+    }
+
+    public void setBoolean(int i, boolean value) {
+        this.set(i, value ? 1 : 0);
+    }
+}
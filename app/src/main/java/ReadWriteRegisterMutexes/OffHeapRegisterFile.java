@@ -0,0 +1,102 @@
+/** Register file with consecutive registers outside the heap
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/** Register file with consecutive registers outside the heap
+ *
+ * The registers are 8-byte aligned longs in a direct ByteBuffer, accessed
+ * through a VarHandle with volatile mode. The garbage collector never moves
+ * them, and the memory is not part of the heap, so the layout is the same as
+ * CompactRegisterFile without the array header and object placement of the
+ * heap.
+ *
+ * The registers can also live in a buffer given by the caller, such as a
+ * region of a MappedByteBuffer shared by several processes (see
+ * MappedRegisterFactory).
+ */
+public class OffHeapRegisterFile implements RegisterFile {
+    /** Volatile access to the longs of a ByteBuffer
+     */
+    private static final VarHandle REGISTER =
+        MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    /** Number of registers
+     */
+    private final int size;
+
+    /** Direct buffer holding the registers
+     *
+     * Shared variable (it might be accessed by multiple threads, or processes,
+     * concurrently). Only accessed through REGISTER.
+     */
+    private final ByteBuffer registers;
+
+    /** Constructor
+     *
+     * @param size  Number of registers
+     */
+    public OffHeapRegisterFile(int size) {
+        if (size < 0 || size > (Integer.MAX_VALUE - Long.BYTES) / Long.BYTES) {
+            throw new IllegalArgumentException(
+                "Invalid number of registers: " + size);
+        }
+        this.size = size;
+        // Volatile access needs aligned longs, so allocate one more and align
+        this.registers = ByteBuffer.allocateDirect(Long.BYTES * (size + 1))
+            .alignedSlice(Long.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /** Constructor over an existing buffer
+     *
+     * The registers are the longs of the buffer from its position to its
+     * limit, and keep their current values.
+     *
+     * @param buffer    Direct buffer, 8-byte aligned at its position
+     */
+    public OffHeapRegisterFile(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.alignmentOffset(buffer.position(),
+                Long.BYTES) != 0) {
+            throw new IllegalArgumentException(
+                "Registers need a direct 8-byte aligned buffer");
+        }
+        this.registers = buffer.slice().order(ByteOrder.nativeOrder());
+        this.size = this.registers.capacity() / Long.BYTES;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long getLong(int i) {
+        return (long) REGISTER.getVolatile(this.registers,
+            Long.BYTES * Objects.checkIndex(i, this.size));
+    }
+
+    public void setLong(int i, long value) {
+        REGISTER.setVolatile(this.registers,
+            Long.BYTES * Objects.checkIndex(i, this.size), value);
+    }
+
+    /** Atomically set a register if it holds an expected value
+     *
+     * The locks only use reads and writes. This is for the bookkeeping around
+     * them, such as claiming process slots (see ProcessSlots).
+     *
+     * @param i Index of the register
+     * @param expected  Expected value of the register
+     * @param value New value of the register
+     * @return True if the register held expected and was set to value
+     */
+    public boolean compareAndSetLong(int i, long expected, long value) {
+        return REGISTER.compareAndSet(this.registers,
+            Long.BYTES * Objects.checkIndex(i, this.size), expected, value);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Compact One-Bit algorithm: the One-Bit algorithm by J.E.Burns (1981) and by
+ * L. Lamport (1986), with the n shared bits packed 64 to a word.
+ *
+ * OneBitLock keeps one AtomicBoolean object per process, so a scan follows one
+ * reference per bit. Here bit j of word j/64 of an AtomicLongArray is the bit of
+ * process j, so the lock needs n/8 bytes of shared space, and a scan reads 64 bits
+ * at a time and jumps to the next set bit with Long.numberOfTrailingZeros.
+ *
+ * The bits of up to 64 processes share a word, so a process sets or clears its
+ * own bit with compareAndSet on the word, which keeps the bits written by the
+ * other processes in the same word. Reads of a word read all its bits at once,
+ * which is the same as reading them one after another with nobody writing in
+ * between, so the algorithm is unchanged.
+ *
+ * The words are not padded: this lock is meant for many locks sized for many
+ * threads, where the footprint matters more than false sharing between the
+ * processes whose bits share a word.
+ * */
+package ReadWriteRegisterMutexes.OneBit;
+import ReadWriteRegisterMutexes.Lock;
+import ReadWriteRegisterMutexes.SpinPolicy;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class CompactOneBitLock implements Lock {
+
+    /* Number of processes / threads */
+    private int N;
+
+    /* N shared bits, 64 per word */
+    private AtomicLongArray words;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public CompactOneBitLock(int n) {
+        this(n, SpinPolicy.busyWait());
+    }
+
+    public CompactOneBitLock(int n, SpinPolicy spinPolicy) {
+        this.N = n;
+        this.spinPolicy = spinPolicy;
+        words = new AtomicLongArray((n + 63) >>> 6);
+    }
+
+    /* Set the bit of process pid without losing the other bits of the word */
+    private void set(int pid) {
+        int w = pid >>> 6;
+        long bit = 1L << pid;   // Shifts are modulo 64
+        long old;
+        do {
+            old = words.get(w);
+        } while (!words.compareAndSet(w, old, old | bit));
+    }
+
+    /* Clear the bit of process pid without losing the other bits of the word */
+    private void clear(int pid) {
+        int w = pid >>> 6;
+        long bit = 1L << pid;
+        long old;
+        do {
+            old = words.get(w);
+        } while (!words.compareAndSet(w, old, old & ~bit));
+    }
+
+    /* Process pid waits till the bit of process j is false */
+    private void awaitClear(int pid, int j) {
+        int w = j >>> 6;
+        long bit = 1L << j;
+        int spins = 0;
+        while ((words.get(w) & bit) != 0) {
+            spinPolicy.spin(pid, spins++);
+        }
+    }
+
+    @Override
+    public void lock(int pid) {
+        int myWord = pid >>> 6;
+
+        attempt:
+        while (true) {
+            set(pid); // Process i indicates that its interested in critical section
+
+            // Check the bits of all the processes that are less than its process id
+            for (int w = 0; w <= myWord; w++) {
+                long lower = words.get(w);
+                if (w == myWord) {
+                    lower &= (1L << pid) - 1;   // Only the bits below pid
+                }
+                if (lower != 0) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(lower);
+                    clear(pid);  // Set to false so that the attempt starts again
+                    awaitClear(pid, j); // If some other process j's bit is true then wait
+                    continue attempt;
+                }
+            }
+            break; // Process i exits the loop if lower bits are false but its one bit is true
+        }
+
+        // Check the bits of all processes that are higher than current process id
+        long mask = -2L << pid;  // Only the bits above pid in its own word
+        for (int w = myWord; w < words.length(); w++) {
+            long higher = words.get(w) & mask;
+            while (higher != 0) {
+                int j = Long.numberOfTrailingZeros(higher);
+                awaitClear(pid, (w << 6) + j);  // Wait till the other process's bit is false
+                // Continue with the bits after j, read again
+                mask = -2L << j;   // Zero when j is 63
+                higher = words.get(w) & mask;
+            }
+            mask = -1L;
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        clear(pid);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int w = 0; w < words.length(); w++) {
+            words.set(w, 0);
+        }
+    }
+}
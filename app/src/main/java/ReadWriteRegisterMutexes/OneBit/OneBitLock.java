@@ -5,41 +5,73 @@
  *
  * */
 package ReadWriteRegisterMutexes.OneBit;
-import ReadWriteRegisterMutexes.Lock;
+import ReadWriteRegisterMutexes.AbortableLock;
+import ReadWriteRegisterMutexes.SpinPolicy;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
-import java.util.concurrent.atomic.AtomicBoolean;
+import ReadWriteRegisterMutexes.RegisterFile;
+import ReadWriteRegisterMutexes.RegisterFileFactory;
 
-public class OneBitLock implements Lock {
+public class OneBitLock implements AbortableLock {
 
     /* Number of processes / threads */
     private int N;
 
-    /* N shared bits */
-    private AtomicBoolean b[];
+    /* N shared bits. Bit i is boolean register i of the register file */
+    private final RegisterFile b;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
 
     private static final Logger log = LogManager.getRootLogger();
 
     public OneBitLock(int n) {
+        this(n, SpinPolicy.busyWait());
+    }
+
+    public OneBitLock(int n, SpinPolicy spinPolicy) {
+        this(n, spinPolicy, RegisterFile.Layout.COMPACT);
+    }
+
+    public OneBitLock(int n, SpinPolicy spinPolicy, RegisterFileFactory registers) {
         this.N = n;
-        b = new AtomicBoolean[n];
-        for(int i=0; i<this.N; i++){
-            b[i] = new AtomicBoolean(false);
-        }
+        this.spinPolicy = spinPolicy;
+        b = registers.createInt(n); // All bits start false
     }
 
     @Override
     public void lock(int pid) {
         log.debug("Enter lock" );
-        while(b[pid].get() == false) {
-            b[pid].set(true); // Process i indicates that its interested in critical section
+        acquire(pid, false, 0);
+        log.debug("Exit lock" );
+    }
+
+    /* Same as lock, but gives up after a timeout. A process that gives up
+     * while it waits for a lower process has its bit down already, and one
+     * that gives up while it waits for a higher process lowers its bit, as
+     * unlock does. */
+    @Override
+    public boolean tryLock(int pid, long nanos) {
+        return acquire(pid, true, nanos);
+    }
+
+    /* Entry protocol of lock and tryLock. The process gives up after nanos
+     * nanoseconds only if abortable; lock passes a constant false, so the
+     * checks are gone once this is inlined in lock. */
+    private boolean acquire(int pid, boolean abortable, long nanos) {
+        long start = abortable ? System.nanoTime() : 0;
+        while(b.getBoolean(pid) == false) {
+            b.setBoolean(pid, true); // Process i indicates that its interested in critical section
             int j = 0;
-            while ((b[pid].get() == true) && j < pid) { // Check the bits of all the processes that are less than its process id
-                if (b[j].get() == true) {
-                    b[pid].set(false);  // Set to false so that the outer do - while starts again
-                    while (b[j].get() == true) { // If some other process j's bit is true then wait
-                        ; //no-op
-                        log.warn("while 1. Waiting for bit of process " + j + " to be false" );
+            while ((b.getBoolean(pid) == true) && j < pid) { // Check the bits of all the processes that are less than its process id
+                if (b.getBoolean(j) == true) {
+                    b.setBoolean(pid, false);  // Set to false so that the outer do - while starts again
+                    int spins = 0;
+                    while (b.getBoolean(j) == true) { // If some other process j's bit is true then wait
+                        if (abortable && AbortableLock.giveUp(start, nanos)) {
+                            return false;
+                        }
+                        spinPolicy.spin(pid, spins++);
                     }
                 }
                 j++;
@@ -47,16 +79,26 @@ public class OneBitLock implements Lock {
         } // Process i exists the loop if other bits are false but its one bit is true
 
         for(int j=pid+1; j<this.N; j++){ // Check the bits of all processes that are higher than current process id
-            while(b[j].get() == true){  // Wait till the other process's bit is false
-                ;//wait no-op
-                log.warn("while 2. Waiting for bit of process " + j + " to be false" );
+            int spins = 0;
+            while(b.getBoolean(j) == true){  // Wait till the other process's bit is false
+                if (abortable && AbortableLock.giveUp(start, nanos)) {
+                    unlock(pid); // Withdraw
+                    return false;
+                }
+                spinPolicy.spin(pid, spins++);
             }
         }
-        log.debug("Exit lock" );
+        return true;
     }
 
     @Override
     public void unlock(int pid) {
-        b[pid].set(false);
+        b.setBoolean(pid, false);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        b.clear();
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * One-Bit algorithm with relaxed memory ordering. Same algorithm as OneBitLock,
+ * but the bits are ints in a padded array accessed through a VarHandle with
+ * the weakest ordering each access needs.
+ *
+ * */
+package ReadWriteRegisterMutexes.OneBit;
+import ReadWriteRegisterMutexes.Lock;
+import ReadWriteRegisterMutexes.SpinPolicy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * The only point where the algorithm needs a store-load fence is after a
+ * process sets its own bit, before it reads the bits of the other processes,
+ * so each attempt has one full fence. Reads of the other bits use acquire
+ * mode, and clearing a bit uses release mode, so the critical section of the
+ * previous holder happens before ours without more fences. A process keeps
+ * its own bit in a local variable, since no other process writes it.
+ * */
+public class RelaxedOneBitLock implements Lock {
+
+    /* Access to the elements of the bits array */
+    private static final VarHandle BIT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /* Number of int registers in a cache line (64 bytes) */
+    private static final int LINE = 16;
+
+    /* Number of processes / threads */
+    private final int N;
+
+    /* N shared bits. Bit i is at LINE*(i+1). Only accessed through BIT */
+    private final int[] b;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public RelaxedOneBitLock(int n) {
+        this(n, SpinPolicy.busyWait());
+    }
+
+    public RelaxedOneBitLock(int n, SpinPolicy spinPolicy) {
+        this.N = n;
+        this.spinPolicy = spinPolicy;
+        this.b = new int[LINE * (n + 2)];
+        VarHandle.releaseFence(); // Publish the zeroed bits
+    }
+
+    private boolean isSet(int j) {
+        return (int) BIT.getAcquire(b, LINE * (j + 1)) != 0;
+    }
+
+    @Override
+    public void lock(int pid) {
+        int me = LINE * (pid + 1);
+        boolean mine = false;
+        while (!mine) {
+            BIT.setOpaque(b, me, 1); // Process i indicates that its interested in critical section
+            mine = true;
+            VarHandle.fullFence(); // Our bit must be visible before we read the others
+            int j = 0;
+            while (mine && j < pid) { // Check the bits of all the processes that are less than its process id
+                if (isSet(j)) {
+                    BIT.setOpaque(b, me, 0); // Set to false so that the outer loop starts again
+                    mine = false;
+                    int spins = 0;
+                    while (isSet(j)) { // If some other process j's bit is true then wait
+                        spinPolicy.spin(pid, spins++);
+                    }
+                }
+                j++;
+            }
+        } // Process i exists the loop if other bits are false but its one bit is true
+
+        for (int j = pid + 1; j < this.N; j++) { // Check the bits of all processes that are higher than current process id
+            int spins = 0;
+            while (isSet(j)) { // Wait till the other process's bit is false
+                spinPolicy.spin(pid, spins++);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        BIT.setRelease(b, LINE * (pid + 1), 0);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < this.N; i++) {
+            BIT.setOpaque(b, LINE * (i + 1), 0);
+        }
+        VarHandle.fullFence();
+    }
+}
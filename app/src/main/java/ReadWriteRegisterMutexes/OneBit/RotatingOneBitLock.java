@@ -0,0 +1,119 @@
+
+/*
+ * Rotating One-Bit algorithm: the One-Bit algorithm by J.E.Burns (1981) and by
+ * L. Lamport (1986), with the priority order rotated after every critical section.
+ *
+ * The One-Bit algorithm always favors lower process ids. Here the priority order
+ * starts at a shared turn register instead of at process 0: process turn has the
+ * highest priority, then turn+1, and so on cyclically up to turn-1. A process
+ * that leaves the critical section sets turn to the process after it, so it has
+ * the lowest priority in the next contest and no process is permanently favored.
+ *
+ * Mutual exclusion does not depend on the order: in its last attempt, a process
+ * checks the bit of every other process after setting its own bit, either in the
+ * first loop (higher priority) or in the second loop (lower priority). Two
+ * processes that read different turns may each see the other as lower priority
+ * and wait for each other in the second loop. For the current turn, one of them
+ * outranks the other, so a process waiting there starts a new attempt only when
+ * the turn changed and the process it waits for now outranks it. A process that
+ * still outranks the one it waits for keeps its bit set, so the exit of a holder
+ * that read an older turn does not take the priority of the waiting processes
+ * away. The space is n shared bits plus one register of log(n) bits for the
+ * turn.
+ * */
+package ReadWriteRegisterMutexes.OneBit;
+import ReadWriteRegisterMutexes.Lock;
+import ReadWriteRegisterMutexes.SpinPolicy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RotatingOneBitLock implements Lock {
+
+    /* Number of processes / threads */
+    private int N;
+
+    /* N shared bits */
+    private AtomicBoolean b[];
+
+    /* Process with the highest priority */
+    private AtomicInteger turn;
+
+    /* Policy of the wait loops */
+    private final SpinPolicy spinPolicy;
+
+    public RotatingOneBitLock(int n) {
+        this(n, SpinPolicy.busyWait());
+    }
+
+    public RotatingOneBitLock(int n, SpinPolicy spinPolicy) {
+        this.N = n;
+        this.spinPolicy = spinPolicy;
+        b = new AtomicBoolean[n];
+        for(int i=0; i<this.N; i++){
+            b[i] = new AtomicBoolean(false);
+        }
+        turn = new AtomicInteger(0);
+    }
+
+    /* Next process in the cyclic priority order */
+    private int next(int j) {
+        return (j + 1 == this.N) ? 0 : j + 1;
+    }
+
+    /* Position of process j in the priority order starting at process t (0 is the highest) */
+    private int rank(int j, int t) {
+        return (j >= t) ? j - t : j - t + this.N;
+    }
+
+    @Override
+    public void lock(int pid) {
+        attempt:
+        while (true) {
+            int t = turn.get();
+            b[pid].set(true); // Process i indicates that its interested in critical section
+
+            for (int j = t; j != pid; j = next(j)) { // Check the bits of all the processes with higher priority
+                if (b[j].get() == true) {
+                    b[pid].set(false);  // Set to false so that the attempt starts again
+                    int spins = 0;
+                    while (b[j].get() == true) { // If some other process j's bit is true then wait
+                        spinPolicy.spin(pid, spins++);
+                    }
+                    continue attempt;
+                }
+            }
+
+            for (int j = next(pid); j != t; j = next(j)) { // Check the bits of all processes with lower priority
+                int spins = 0;
+                while (b[j].get() == true) {  // Wait till the other process's bit is false
+                    // If the turn moved since we read it and j outranks us
+                    // with the new turn, j may have read it and be waiting for
+                    // us in its own second loop, so start again with the
+                    // current turn
+                    int current = turn.get();
+                    if (current != t && rank(j, current) < rank(pid, current)) {
+                        b[pid].set(false);
+                        continue attempt;
+                    }
+                    spinPolicy.spin(pid, spins++);
+                }
+            }
+            return; // All other bits were false while our bit was true
+        }
+    }
+
+    @Override
+    public void unlock(int pid) {
+        turn.set(next(pid));
+        b[pid].set(false);
+        spinPolicy.unlocked(pid); // Wake up the threads parked by the spin policy
+    }
+
+    @Override
+    public void reset() {
+        for(int i=0; i<this.N; i++){
+            b[i].set(false);
+        }
+        turn.set(0);
+    }
+}
@@ -0,0 +1,241 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Timeout;
+
+/** Benchmarks of the locks with more threads than CPUs
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+@Timeout(time=20, timeUnit=TimeUnit.MINUTES) // Timeout if the iteration exceeds this time
+public class OversubscriptionBenchmarks {
+
+    /** Oversubscribed benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class OversubscribedState {
+
+        /** Number of threads per available CPU
+         */
+        @Param({"2", "4"})
+        public int threadsPerCpu;
+
+        /** Type of lock benchmarked (see LockFactory)
+         */
+        @Param({"TournamentLock", "TimePublishedTournamentLock",
+            "ColoredBakeryLock", "TimePublishedColoredBakeryLock", "OneBitLock",
+            "RecyclingAdaptiveLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT", "SPIN_THEN_YIELD", "SPIN_THEN_PARK",
+            "SPIN_THEN_PARK_SUCCESSOR"})
+        public String spinPolicy;
+
+        /** Total number of increments/decrements of all the threads
+         */
+        int totalIncrements;
+
+        /** Number of worker threads
+         */
+        int numThreads;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.totalIncrements = 200000;
+            this.benchmark = new IncrementBenchmark();
+            this.numThreads = this.threadsPerCpu
+                * Runtime.getRuntime().availableProcessors();
+            this.lock = LockFactory.create
+            (
+                this.lockType,
+                this.numThreads,
+                SpinPolicy.fromName(this.spinPolicy)
+            );
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected 0: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Oversubscribed tail latency benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class TailLatencyState {
+
+        /** Number of threads per available CPU
+         */
+        @Param({"2", "4"})
+        public int threadsPerCpu;
+
+        /** Type of lock benchmarked (see LockFactory)
+         */
+        @Param({"TournamentLock", "TimePublishedTournamentLock",
+            "ColoredBakeryLock", "TimePublishedColoredBakeryLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT", "SPIN_THEN_YIELD"})
+        public String spinPolicy;
+
+        /** Total number of increments/decrements of all the threads
+         */
+        int totalIncrements;
+
+        /** Number of worker threads
+         */
+        int numThreads;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        LatencyRecordingLock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.totalIncrements = 200000;
+            this.benchmark = new IncrementBenchmark();
+            this.numThreads = this.threadsPerCpu
+                * Runtime.getRuntime().availableProcessors();
+            Lock inner = LockFactory.create
+            (
+                this.lockType,
+                this.numThreads,
+                SpinPolicy.fromName(this.spinPolicy)
+            );
+            this.lock = new LatencyRecordingLock(inner, this.numThreads);
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected 0: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+            System.out.print("\n" + this.lockType + " acquisition latency:\n"
+                + this.lock.report());
+        }
+    }
+
+    /** Oversubscribed benchmark
+     *
+     * The benchmark runs the heavy contention workload with 2 or 4 threads
+     * per available CPU, so lock holders and waiters are regularly preempted.
+     * The total number of increments/decrements is split among the threads,
+     * so the amount of work does not depend on the number of threads.
+     *
+     * With busy waiting, a preempted lock holder leaves every waiter running
+     * until the end of its time slice. This benchmark is designed to compare
+     * it with the spin then yield and spin then park policies, waking up
+     * every parked thread or only the successor on each release.
+     */
+    @Benchmark
+    public void oversubscribed(OversubscribedState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.numThreads,
+            state.totalIncrements / state.numThreads,
+            state.lock
+        );
+    }
+
+    /** Oversubscribed tail latency benchmark
+     *
+     * The benchmark runs the same workload as the oversubscribed benchmark,
+     * and times every lock acquisition. After each iteration it prints the
+     * p50, p99, p99.9 and maximum acquisition latency of every thread.
+     *
+     * This benchmark is designed to show the acquisition latency spikes caused
+     * by a descheduled lock holder or predecessor, and how the time-published
+     * locks reduce them.
+     */
+    @Benchmark
+    public void tailLatency(TailLatencyState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.numThreads,
+            state.totalIncrements / state.numThreads,
+            state.lock
+        );
+    }
+}
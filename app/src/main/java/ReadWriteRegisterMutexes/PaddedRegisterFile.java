@@ -0,0 +1,57 @@
+/** Register file with each register in a cache line of its own
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Register file with each register in a cache line of its own
+ *
+ * Register i is stored at index LINE*(i+1) of an on-heap array, so no two
+ * registers share a cache line, and the first one is away from the array
+ * header. This removes false sharing at the cost of 64 bytes per register,
+ * whether it is used as an int or a long register.
+ */
+public class PaddedRegisterFile implements RegisterFile {
+    /** Number of long registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 8;
+
+    /** Number of registers
+     */
+    private final int size;
+
+    /** Registers and their padding
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicLongArray registers;
+
+    /** Constructor
+     *
+     * @param size  Number of registers
+     */
+    public PaddedRegisterFile(int size) {
+        if (size < 0 || size > Integer.MAX_VALUE / LINE - 2) {
+            throw new IllegalArgumentException(
+                "Invalid number of registers: " + size);
+        }
+        this.size = size;
+        this.registers = new AtomicLongArray(LINE * (size + 2));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long getLong(int i) {
+        return this.registers.get(
+            LINE * (Objects.checkIndex(i, this.size) + 1));
+    }
+
+    public void setLong(int i, long value) {
+        this.registers.set(LINE * (Objects.checkIndex(i, this.size) + 1),
+            value);
+    }
+}
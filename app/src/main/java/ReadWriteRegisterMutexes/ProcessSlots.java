@@ -0,0 +1,138 @@
+/** Allocation of thread IDs to the processes sharing a lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Allocation of thread IDs to the processes sharing a lock
+ *
+ * The locks need distinct thread IDs in [0, n) for all the threads using
+ * them, but processes started independently do not know which IDs the others
+ * use. The slots are registers in a shared register file (usually built by a
+ * MappedRegisterFactory), one per process, holding the PID of the process
+ * that owns the slot, or 0 if it is free. A process claims a free slot with a
+ * compareAndSet, and the threads of the process that owns slot s use the
+ * thread IDs [s*threadsPerProcess, (s+1)*threadsPerProcess).
+ *
+ * A slot whose owner is no longer alive can be claimed again. The registers of
+ * the locks are not repaired: a process that dies while it holds a lock, or in
+ * the middle of its entry protocol, can leave the lock blocked.
+ */
+public class ProcessSlots {
+    /** Value of a free slot
+     */
+    private static final long FREE = 0;
+
+    /** Owner PID of each slot
+     *
+     * Shared variable (it might be accessed by multiple processes
+     * concurrently).
+     */
+    private final OffHeapRegisterFile owners;
+
+    /** Number of thread IDs of each slot
+     */
+    private final int threadsPerProcess;
+
+    /** PID of this process
+     */
+    private final long pid;
+
+    /** Constructor
+     *
+     * @param owners    Shared registers of the slots, one per process
+     * @param threadsPerProcess Number of thread IDs of each slot
+     */
+    public ProcessSlots(OffHeapRegisterFile owners, int threadsPerProcess) {
+        if (threadsPerProcess <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads per process: " + threadsPerProcess);
+        }
+        this.owners = owners;
+        this.threadsPerProcess = threadsPerProcess;
+        this.pid = ProcessHandle.current().pid();
+    }
+
+    /** Get the number of slots
+     *
+     * @return Maximum number of processes
+     */
+    public int getNumSlots() {
+        return this.owners.size();
+    }
+
+    /** Get the number of thread IDs of all the slots, which is the number of
+     * threads the locks must be built for
+     *
+     * @return Number of thread IDs
+     */
+    public int getNumThreads() {
+        return this.owners.size() * this.threadsPerProcess;
+    }
+
+    /** Claim a free slot for this process
+     *
+     * A process can claim several slots.
+     *
+     * @return Index of the slot
+     * @throws IllegalStateException If all the slots are taken
+     */
+    public int claim() {
+        for (int s = 0; s < this.owners.size(); s++) {
+            long owner = this.owners.getLong(s);
+            if ((owner == FREE || (owner != this.pid && !isAlive(owner)))
+                    && this.owners.compareAndSetLong(s, owner, this.pid)) {
+                return s;
+            }
+        }
+        throw new IllegalStateException("All the " + this.owners.size()
+            + " process slots are taken");
+    }
+
+    /** Release a slot claimed by this process
+     *
+     * @param slot  Index of the slot
+     */
+    public void release(int slot) {
+        if (!this.owners.compareAndSetLong(slot, this.pid, FREE)) {
+            throw new IllegalStateException("Slot " + slot
+                + " is not owned by this process");
+        }
+    }
+
+    /** Get the number of slots currently claimed
+     *
+     * @return Number of slots with an owner
+     */
+    public int getNumClaimed() {
+        int claimed = 0;
+        for (int s = 0; s < this.owners.size(); s++) {
+            if (this.owners.getLong(s) != FREE) {
+                claimed++;
+            }
+        }
+        return claimed;
+    }
+
+    /** Get the thread ID of a thread of a slot
+     *
+     * @param slot  Index of the slot
+     * @param localThread   Index of the thread in its process
+     * @return Thread ID to use with the shared locks
+     */
+    public int getTid(int slot, int localThread) {
+        if (localThread < 0 || localThread >= this.threadsPerProcess) {
+            throw new IllegalArgumentException(
+                "Invalid local thread: " + localThread);
+        }
+        return slot * this.threadsPerProcess + localThread;
+    }
+
+    /** Check if a process is alive
+     *
+     * @param pid   PID of the process
+     * @return True if the process is running
+     */
+    private static boolean isAlive(long pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+}
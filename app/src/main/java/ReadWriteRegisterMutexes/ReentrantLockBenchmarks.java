@@ -49,6 +49,7 @@ public class ReentrantLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new ReentrantLock();
         }
 
         /** Setup iteration variables for benchmark
@@ -56,7 +57,6 @@ public class ReentrantLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new ReentrantLock();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -71,7 +71,6 @@ public class ReentrantLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -98,6 +97,7 @@ public class ReentrantLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new ReentrantLock();
         }
 
         /** Setup iteration variables for benchmark
@@ -105,7 +105,6 @@ public class ReentrantLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new ReentrantLock();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -120,7 +119,6 @@ public class ReentrantLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
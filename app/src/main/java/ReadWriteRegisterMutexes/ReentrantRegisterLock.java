@@ -0,0 +1,277 @@
+/** Reentrant lock with conditions on top of a read-write register lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/** Reentrant lock with conditions on top of a read-write register lock
+ *
+ * The wrapped lock is only used by the first acquisition of a thread. Each
+ * thread ID has a hold count, written only by the thread with that ID, so a
+ * thread that already holds the lock enters again by incrementing its count,
+ * and the wrapped lock is released when the count gets back to 0.
+ *
+ * The lock can be used through the Lock interface of this project, with
+ * thread IDs, or through java.util.concurrent.locks.Lock, with thread IDs
+ * leased from a SlotRegistry (see LeasedLock). Both must not be mixed on the
+ * same lock. The wrapped lock is an AbortableLock, so tryLock and
+ * lockInterruptibly use its abortable entry protocol.
+ *
+ * Conditions are RegisterConditions: await releases every hold, and takes
+ * the lock back with the hold count the thread had.
+ */
+public class ReentrantRegisterLock implements Lock,
+        java.util.concurrent.locks.Lock {
+    /** Number of int entries in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** Wrapped lock
+     */
+    private final AbortableLock lock;
+
+    /** Registry of the thread IDs of java.util.concurrent.locks.Lock callers
+     */
+    private final SlotRegistry registry;
+
+    /** Hold count of each thread ID
+     *
+     * Local variable (each entry is accessed only by one thread). The count of
+     * the ith thread is at index LINE*(i+1).
+     */
+    private final int[] holds;
+
+    /** Thread holding the lock, or null
+     *
+     * Only written by the thread in the critical section. A thread reads its
+     * own writes, so it sees itself here if and only if it holds the lock, and
+     * the field needs no fence.
+     */
+    private Thread owner;
+
+    /** Thread ID of the thread holding the lock
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int holder;
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for numThreads threads
+     * @param numThreads    Number of threads using the lock
+     */
+    public ReentrantRegisterLock(AbortableLock lock, int numThreads) {
+        this(lock, new SlotRegistry(numThreads));
+    }
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for the slots of the registry
+     * @param registry  Registry of the thread IDs
+     */
+    public ReentrantRegisterLock(AbortableLock lock, SlotRegistry registry) {
+        this.lock = lock;
+        this.registry = registry;
+        this.holds = new int[LINE * (registry.getNumSlots() + 2)];
+    }
+
+    /** Record the calling thread as the holder after it got the wrapped lock
+     *
+     * @param tid Thread ID
+     * @param holds Hold count
+     */
+    private void acquired(int tid, int holds) {
+        this.holds[LINE * (tid + 1)] = holds;
+        this.holder = tid;
+        this.owner = Thread.currentThread();
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int index = LINE * (tid + 1);
+        if (this.holds[index] > 0) {
+            this.holds[index]++;
+            return;
+        }
+        this.lock.lock(tid);
+        this.acquired(tid, 1);
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int index = LINE * (tid + 1);
+        if (--this.holds[index] == 0) {
+            this.owner = null;
+            this.lock.unlock(tid);
+        }
+    }
+
+    /** Reset the lock to its initial state
+     *
+     * The threads waiting on a condition are not woken up.
+     */
+    public void reset() {
+        this.lock.reset();
+        Arrays.fill(this.holds, 0);
+        this.owner = null;
+    }
+
+    /** Acquire the lock, waiting as long as needed
+     */
+    @Override
+    public void lock() {
+        this.lock(this.registry.slot());
+    }
+
+    /** Release the lock once
+     *
+     * @throws IllegalMonitorStateException If the calling thread does not hold
+     *  the lock
+     */
+    @Override
+    public void unlock() {
+        this.unlock(this.checkHolder());
+    }
+
+    /** Acquire the lock only if no thread has to be waited for
+     *
+     * @return True if the lock was acquired
+     */
+    @Override
+    public boolean tryLock() {
+        return this.tryLock(this.registry.slot(), 0);
+    }
+
+    /** Acquire the lock if it is free within the timeout
+     *
+     * @param time  Maximum time to wait
+     * @param unit  Unit of time
+     * @return True if the lock was acquired, false if the time elapsed
+     * @throws InterruptedException If the thread is interrupted before or
+     *  while it waits
+     */
+    @Override
+    public boolean tryLock(long time, TimeUnit unit)
+            throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!this.tryLock(this.registry.slot(), unit.toNanos(time))) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /** Acquire the lock unless the thread is interrupted
+     *
+     * @throws InterruptedException If the thread is interrupted before or
+     *  while it waits
+     */
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (!this.tryLock(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            // Only an interrupt stops an unbounded wait
+            throw new InterruptedException();
+        }
+    }
+
+    /** Acquire the lock with a thread ID, giving up after a timeout
+     *
+     * @param tid Thread ID
+     * @param nanos Maximum time to wait in nanoseconds
+     * @return True if the lock was acquired
+     */
+    private boolean tryLock(int tid, long nanos) {
+        int index = LINE * (tid + 1);
+        if (this.holds[index] > 0) {
+            this.holds[index]++;
+            return true;
+        }
+        if (!this.lock.tryLock(tid, nanos)) {
+            return false;
+        }
+        this.acquired(tid, 1);
+        return true;
+    }
+
+    /** Check that the calling thread holds the lock
+     *
+     * @return Thread ID of the calling thread
+     * @throws IllegalMonitorStateException If it does not hold the lock
+     */
+    private int checkHolder() {
+        if (this.owner != Thread.currentThread()) {
+            throw new IllegalMonitorStateException(
+                "Lock not held by " + Thread.currentThread().getName());
+        }
+        return this.holder;
+    }
+
+    /** Check if the calling thread holds the lock
+     *
+     * @return True if it holds the lock
+     */
+    public boolean isHeldByCurrentThread() {
+        return this.owner == Thread.currentThread();
+    }
+
+    /** Get the number of holds of a thread ID
+     *
+     * @param tid Thread ID
+     * @return Hold count (0 if the thread does not hold the lock)
+     */
+    public int getHoldCount(int tid) {
+        return this.holds[LINE * (tid + 1)];
+    }
+
+    /** Get the registry of the thread IDs
+     *
+     * @return Registry
+     */
+    public SlotRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /** Build a new condition of this lock
+     *
+     * @return New condition
+     */
+    @Override
+    public Condition newCondition() {
+        return new RegisterCondition() {
+            @Override
+            int checkHolder() {
+                return ReentrantRegisterLock.this.checkHolder();
+            }
+
+            @Override
+            int release(int tid) {
+                // Release all the holds
+                int holds = ReentrantRegisterLock.this.holds[LINE * (tid + 1)];
+                ReentrantRegisterLock.this.holds[LINE * (tid + 1)] = 0;
+                ReentrantRegisterLock.this.owner = null;
+                ReentrantRegisterLock.this.lock.unlock(tid);
+                return holds;
+            }
+
+            @Override
+            void reacquire(int tid, int holds) {
+                // Take the lock back with the same holds
+                ReentrantRegisterLock.this.lock.lock(tid);
+                ReentrantRegisterLock.this.acquired(tid, holds);
+            }
+        };
+    }
+}
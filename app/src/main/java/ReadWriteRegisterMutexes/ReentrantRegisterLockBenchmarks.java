@@ -0,0 +1,155 @@
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** ReentrantRegisterLock benchmarks against ReentrantLock
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class ReentrantRegisterLockBenchmarks {
+
+    /** Reentrant acquisitions per reentrancy invocation
+     */
+    private static final int REENTRANT_OPS = 5000000;
+
+    /** Number of producer and of consumer threads
+     */
+    private static final int NUM_PAIRS = 2;
+
+    /** Items per producer
+     */
+    private static final int ITEMS = 200000;
+
+    /** Capacity of the buffer
+     */
+    private static final int CAPACITY = 16;
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class ReentrantState {
+
+        /** Type of lock benchmarked: ReentrantLock, or an abortable lock of
+         * LockFactory in a ReentrantRegisterLock
+         */
+        @Param({"ReentrantLock", "TournamentLock", "ColoredBakeryLock",
+            "OneBitLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"SPIN_THEN_PARK"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        java.util.concurrent.locks.Lock lock;
+
+        /** Lost or extra updates
+         */
+        long errors;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            if (this.lockType.equals("ReentrantLock")) {
+                this.lock = new ReentrantLock();
+            } else {
+                this.lock = new ReentrantRegisterLock(
+                    (AbortableLock) LockFactory.create(this.lockType,
+                        2 * NUM_PAIRS, SpinPolicy.fromName(this.spinPolicy)),
+                    2 * NUM_PAIRS);
+            }
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            if (this.lock instanceof ReentrantRegisterLock) {
+                ((ReentrantRegisterLock) this.lock).reset();
+            }
+            this.errors = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.errors != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.errors
+                    + " lost or extra updates: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Reentrancy benchmark per acquisition
+     *
+     * A single thread holds the lock and acquires and releases it again
+     * REENTRANT_OPS times, so the score is the cost of a reentrant
+     * acquisition and release.
+     */
+    @Benchmark
+    @OperationsPerInvocation(REENTRANT_OPS)
+    public void reentrant(ReentrantState state) {
+        System.out.print("Running benchmark: ");
+        java.util.concurrent.locks.Lock lock = state.lock;
+        int holds = 0;
+        lock.lock();
+        for (int i = 0; i < REENTRANT_OPS; i++) {
+            lock.lock();
+            holds++;
+            lock.unlock();
+        }
+        lock.unlock();
+        state.errors = REENTRANT_OPS - holds;
+    }
+
+    /** Producer/consumer benchmark
+     *
+     * NUM_PAIRS producers put ITEMS items each into a buffer of CAPACITY items
+     * and NUM_PAIRS consumers take them, waiting on the conditions of the
+     * lock when the buffer is full or empty.
+     */
+    @Benchmark
+    public void producerConsumer(ReentrantState state) {
+        System.out.print("Running benchmark: ");
+        state.errors = state.benchmark.runProducerConsumerBenchmark
+        (
+            NUM_PAIRS,
+            ITEMS,
+            CAPACITY,
+            state.lock
+        );
+    }
+}
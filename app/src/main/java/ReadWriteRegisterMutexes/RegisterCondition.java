@@ -0,0 +1,210 @@
+/** Condition of a java.util.concurrent.locks.Lock built on a read-write
+ * register lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+
+/** Condition of a java.util.concurrent.locks.Lock built on a read-write
+ * register lock
+ *
+ * The condition keeps a queue of waiting threads, only accessed under the
+ * lock. await adds the thread to the queue, releases the lock completely, and
+ * parks until a signal moves it out of the queue and unparks it. Then it
+ * acquires the lock again as it held it before.
+ *
+ * A thread that stops waiting because of a timeout or an interrupt cancels
+ * its wait before it takes the lock back, and signal skips cancelled waits,
+ * so a signal is never spent on a thread that is leaving anyway.
+ *
+ * The lock gives the thread ID of its holder, and releases and takes back the
+ * lock for await (see ReentrantRegisterLock and AbortableLockAdapter).
+ */
+abstract class RegisterCondition implements Condition {
+    /** Thread waiting on a condition
+     */
+    private static final class Waiter {
+        /** The thread is waiting
+         */
+        static final int WAITING = 0;
+
+        /** A signal moved the thread out of the queue
+         */
+        static final int SIGNALLED = 1;
+
+        /** The thread stopped waiting after a timeout or an interrupt
+         */
+        static final int CANCELLED = 2;
+
+        /** Waiting thread
+         */
+        final Thread thread;
+
+        /** State of the wait, only changed from WAITING
+         *
+         * Shared variable. The signalling thread and the waiting thread race
+         * to change it, with compareAndSet.
+         */
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        /** Constructor
+         *
+         * @param thread    Waiting thread
+         */
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    /** Threads waiting on the condition, in arrival order
+     *
+     * Only accessed under the lock.
+     */
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /** Check that the calling thread holds the lock
+     *
+     * @return Thread ID of the calling thread
+     * @throws IllegalMonitorStateException If it does not hold the lock
+     */
+    abstract int checkHolder();
+
+    /** Release the lock completely
+     *
+     * @param tid Thread ID of the holder
+     * @return Hold count to give back to the thread in reacquire
+     */
+    abstract int release(int tid);
+
+    /** Acquire the lock again after a wait
+     *
+     * @param tid Thread ID
+     * @param holds Hold count returned by release
+     */
+    abstract void reacquire(int tid, int holds);
+
+    /** Wait until signalled, the deadline passes or the thread is interrupted
+     *
+     * The thread releases the lock while it waits, and holds it again with the
+     * same hold count when it returns.
+     *
+     * @param deadline  Deadline in System.nanoTime() time
+     * @param timed True if the deadline applies
+     * @param interruptible True if an interrupt stops the wait
+     * @return Nanoseconds left until the deadline (<= 0 if it passed)
+     * @throws InterruptedException If interruptible and the thread was
+     *  interrupted before a signal
+     */
+    private long await(long deadline, boolean timed, boolean interruptible)
+            throws InterruptedException {
+        if (interruptible && Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        int tid = this.checkHolder();
+        Waiter waiter = new Waiter(Thread.currentThread());
+        this.waiters.add(waiter);
+        int holds = this.release(tid);
+
+        boolean interrupted = false;
+        long left = deadline - System.nanoTime();
+        while (waiter.state.get() == Waiter.WAITING) {
+            if (timed && left <= 0 || interrupted && interruptible) {
+                // Cancel, unless a signal came first
+                waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED);
+                continue;
+            }
+            if (timed) {
+                LockSupport.parkNanos(this, left);
+                left = deadline - System.nanoTime();
+            } else {
+                LockSupport.park(this);
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+            }
+        }
+
+        this.reacquire(tid, holds);
+
+        if (waiter.state.get() == Waiter.CANCELLED) {
+            this.waiters.remove(waiter);
+            if (interrupted && interruptible) {
+                throw new InterruptedException();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return left;
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+        this.await(0, false, true);
+    }
+
+    @Override
+    public void awaitUninterruptibly() {
+        try {
+            this.await(0, false, false);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);    // Not interruptible
+        }
+    }
+
+    @Override
+    public long awaitNanos(long nanosTimeout) throws InterruptedException {
+        return this.await(System.nanoTime() + nanosTimeout, true, true);
+    }
+
+    @Override
+    public boolean await(long time, TimeUnit unit)
+            throws InterruptedException {
+        return this.awaitNanos(unit.toNanos(time)) > 0;
+    }
+
+    @Override
+    public boolean awaitUntil(Date deadline) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(
+            deadline.getTime() - System.currentTimeMillis());
+        return this.awaitNanos(nanos) > 0;
+    }
+
+    /** Signal the first waiter of the queue that did not cancel its wait
+     *
+     * Cancelled waiters are dropped from the queue on the way.
+     *
+     * @return True if a waiter was signalled
+     */
+    private boolean signalFirst() {
+        Waiter waiter;
+        while ((waiter = this.waiters.poll()) != null) {
+            if (waiter.state.compareAndSet(Waiter.WAITING,
+                    Waiter.SIGNALLED)) {
+                LockSupport.unpark(waiter.thread);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void signal() {
+        this.checkHolder();
+        this.signalFirst();
+    }
+
+    @Override
+    public void signalAll() {
+        this.checkHolder();
+        while (this.signalFirst()) {
+            // Signal the next one
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/** File of read-write registers used by the locks
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** File of read-write registers used by the locks
+ *
+ * A register file holds a fixed number of registers, indexed from 0, used as
+ * boolean, int or long registers. Every read and write is volatile, so the
+ * algorithms see the sequentially consistent registers they are designed for.
+ * There are no read-modify-write operations: the locks of this project only
+ * need reads and writes.
+ *
+ * The width of the registers is chosen when the file is built (see
+ * RegisterFileFactory): create builds 8-byte registers, which hold any long,
+ * and createInt builds 4-byte registers, which hold booleans and ints, and
+ * reject longs that do not fit in an int. The locks only need int registers.
+ *
+ * The implementations only differ in where and how the registers are stored
+ * (see Layout), so the same algorithm can be run on different memory layouts.
+ */
+public interface RegisterFile {
+
+    /** Memory layouts of the register files
+     */
+    public enum Layout implements RegisterFileFactory {
+        /** Consecutive registers in an on-heap array (16 int or 8 long
+         * registers per cache line)
+         */
+        COMPACT,
+
+        /** Each register in a cache line of its own in an on-heap array, so
+         * int registers take 64 bytes like long registers
+         */
+        PADDED,
+
+        /** Consecutive registers in a direct ByteBuffer, outside the heap
+         */
+        OFF_HEAP;
+
+        /** Build a register file of long registers with this layout
+         *
+         * @param size  Number of registers
+         * @return New register file with all the registers set to 0
+         */
+        public RegisterFile create(int size) {
+            switch (this) {
+                case PADDED:
+                    return new PaddedRegisterFile(size);
+                case OFF_HEAP:
+                    return new OffHeapRegisterFile(size);
+                default:
+                    return new CompactRegisterFile(size);
+            }
+        }
+
+        /** Build a register file of int registers with this layout
+         *
+         * @param size  Number of registers
+         * @return New register file with all the registers set to 0
+         */
+        public RegisterFile createInt(int size) {
+            switch (this) {
+                case PADDED:
+                    return new PaddedRegisterFile(size);
+                case OFF_HEAP:
+                    return new OffHeapIntRegisterFile(size);
+                default:
+                    return new CompactIntRegisterFile(size);
+            }
+        }
+    }
+
+    /** Check that a long fits in an int register
+     *
+     * @param value Value of a long register
+     * @return Value as an int
+     * @throws IllegalArgumentException If the value does not fit in an int
+     */
+    static int toInt(long value) {
+        if (value != (int) value) {
+            throw new IllegalArgumentException("Value " + value
+                + " does not fit in an int register");
+        }
+        return (int) value;
+    }
+
+    /** Get the number of registers
+     *
+     * @return Number of registers in the file
+     */
+    public int size();
+
+    /** Read a register as a long
+     *
+     * @param i Index of the register
+     * @return Value of the register
+     */
+    public long getLong(int i);
+
+    /** Write a register as a long
+     *
+     * @param i Index of the register
+     * @param value New value of the register
+     */
+    public void setLong(int i, long value);
+
+    /** Read a register as an int
+     *
+     * @param i Index of the register
+     * @return Value of the register
+     */
+    public default int get(int i) {
+        return (int) this.getLong(i);
+    }
+
+    /** Write a register as an int
+     *
+     * @param i Index of the register
+     * @param value New value of the register
+     */
+    public default void set(int i, int value) {
+        this.setLong(i, value);
+    }
+
+    /** Read a register as a boolean
+     *
+     * @param i Index of the register
+     * @return True if the register is not 0
+     */
+    public default boolean getBoolean(int i) {
+        return this.getLong(i) != 0;
+    }
+
+    /** Write a register as a boolean
+     *
+     * @param i Index of the register
+     * @param value New value of the register (stored as 1 or 0)
+     */
+    public default void setBoolean(int i, boolean value) {
+        this.setLong(i, value ? 1 : 0);
+    }
+
+    /** Set all the registers to 0
+     *
+     * Must only be called when no thread is using the registers.
+     */
+    public default void clear() {
+        for (int i = 0; i < this.size(); i++) {
+            this.setLong(i, 0);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/** Factory of the register files of the locks
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Factory of the register files of the locks
+ *
+ * The locks that keep their registers in a RegisterFile take a factory in
+ * their constructor, and build their register file of int registers with it.
+ * The layouts of RegisterFile.Layout are factories of private register files,
+ * and MappedRegisterFactory builds register files shared by several
+ * processes.
+ */
+public interface RegisterFileFactory {
+    /** Build a register file of long registers
+     *
+     * @param size  Number of registers
+     * @return Register file with all the registers set to 0
+     */
+    public RegisterFile create(int size);
+
+    /** Build a register file of int registers
+     *
+     * The default builds long registers, which hold ints too.
+     *
+     * @param size  Number of registers
+     * @return Register file with all the registers set to 0
+     */
+    public default RegisterFile createInt(int size) {
+        return this.create(size);
+    }
+}
@@ -0,0 +1,150 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks of the locks with relaxed memory ordering against the originals
+ *
+ * The scores are per lock acquisition, so the relaxed and the volatile version
+ * of each lock can be compared directly.
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class RelaxedLockBenchmarks {
+
+    /** Acquisitions per no contention invocation (IncrementBenchmark
+     * incrementNum times noContentionThreadNum)
+     */
+    private static final int NO_CONTENTION_OPS = 5000000;
+
+    /** Acquisitions per heavy contention invocation (IncrementBenchmark
+     * incrementNum times heavyContentionThreadNum)
+     */
+    private static final int HEAVY_CONTENTION_OPS = 8 * 5000000;
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class RelaxedState {
+
+        /** Type of lock benchmarked (see LockFactory)
+         */
+        @Param({"TournamentLock", "RelaxedTournamentLock",
+            "ColoredBakeryLock", "RelaxedColoredBakeryLock",
+            "OneBitLock", "RelaxedOneBitLock",
+            "AdaptiveLock", "RelaxedAdaptiveLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock sized for the heavy contention benchmark
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Expected shared variable final state
+         */
+        int cExpected;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = LockFactory.create
+            (
+                this.lockType,
+                this.benchmark.getHeavyContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy)
+            );
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.cExpected) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.cExpected + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Heavy contention benchmark per acquisition
+     *
+     * Same workload as the heavy contention benchmark of each lock, with the
+     * time divided by the total number of acquisitions of all the threads.
+     */
+    @Benchmark
+    @OperationsPerInvocation(HEAVY_CONTENTION_OPS)
+    public void heavyContention(RelaxedState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = 0;
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getHeavyContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+
+    /** No contention benchmark per acquisition
+     *
+     * A single thread uses a lock sized for the heavy contention benchmark, so
+     * the time per acquisition is the cost of the entry and exit protocols
+     * with their fences, without any waiting.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NO_CONTENTION_OPS)
+    public void noContention(RelaxedState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = state.benchmark.getIncrementNum();
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getNoContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+}
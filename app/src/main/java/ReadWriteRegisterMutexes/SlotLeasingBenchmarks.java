@@ -0,0 +1,170 @@
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks of the locks with thread IDs leased by a SlotRegistry
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class SlotLeasingBenchmarks {
+
+    /** Number of tasks per pool thread in the thread pool benchmark
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class LeasingState {
+
+        /** Number of worker threads
+         */
+        @Param({"2", "4", "8"})
+        public int numThreads;
+
+        /** Type of wrapped lock (see LockFactory)
+         */
+        @Param({"TournamentLock", "OneBitLock", "RecyclingAdaptiveLock"})
+        public String lockType;
+
+        /** Whether the thread IDs are leased instead of passed by the workers
+         */
+        @Param({"true", "false"})
+        public boolean leased;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Expected shared variable final state
+         */
+        int cExpected;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            this.lock = LockFactory.create(this.lockType, this.numThreads,
+                SpinPolicy.fromName(this.spinPolicy));
+            if (this.leased) {
+                this.lock = new LeasedLock(this.lock, this.numThreads);
+            }
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.cExpected) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.cExpected + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** No contention benchmark
+     *
+     * A single thread increments the shared variable gIncrements times, so the
+     * cost of the slot lookup is compared with the cost of the lock alone.
+     * Every invocation starts a new thread, which reclaims the slot of the
+     * thread of the previous invocation.
+     */
+    @Benchmark
+    public void noContention(LeasingState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = state.benchmark.getIncrementNum();
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getNoContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+
+    /** Heavy contention benchmark
+     *
+     * numThreads threads increment and decrement the shared variable
+     * gIncrements times each.
+     */
+    @Benchmark
+    public void heavyContention(LeasingState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = 0;
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.numThreads,
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+
+    /** Thread pool benchmark
+     *
+     * TASKS_PER_THREAD*numThreads tasks run on a pool of numThreads threads,
+     * each incrementing or decrementing the shared variable
+     * gIncrements/TASKS_PER_THREAD times, so every thread does as many
+     * acquisitions as in the heavy contention benchmark. Only the leased
+     * locks can run it, since the tasks have no thread ID.
+     */
+    @Benchmark
+    public void threadPool(LeasingState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = 0;
+        if (!(state.lock instanceof LeasedLock)) {
+            // A pool thread has no thread ID to give to the lock
+            state.cFinal = 0;
+            return;
+        }
+        state.cFinal = state.benchmark.runPoolIncrementBenchmark
+        (
+            state.numThreads,
+            TASKS_PER_THREAD * state.numThreads,
+            state.benchmark.getIncrementNum() / TASKS_PER_THREAD,
+            (LeasedLock) state.lock
+        );
+    }
+}
@@ -0,0 +1,154 @@
+/** Registry that leases dense thread IDs to the threads that use a lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Registry that leases dense thread IDs to the threads that use a lock
+ *
+ * The locks need a thread ID in [0,n) from every caller, which threads of a
+ * pool or threads created on demand do not have. The registry gives the
+ * calling thread a free slot the first time it asks for one, and keeps it in a
+ * ThreadLocal, so the following lookups are a ThreadLocal read without
+ * allocation or shared writes.
+ *
+ * The owner of each slot is kept in a table. When every slot is taken, a
+ * thread that needs one reclaims the slot of a thread that terminated, so a
+ * pool that replaces its threads does not run out of slots. A thread can also
+ * give its slot back with release.
+ */
+public class SlotRegistry {
+    /** Leased slot of a thread
+     */
+    private static final class Lease {
+        /** Slot of the thread
+         */
+        final int slot;
+
+        /** Constructor
+         *
+         * @param slot  Slot of the thread
+         */
+        Lease(int slot) {
+            this.slot = slot;
+        }
+    }
+
+    /** Number of searches for a slot before giving up
+     */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    /** Owner of each slot, or null if the slot is free
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     * A terminated owner stays in the table until its slot is reclaimed.
+     */
+    private final AtomicReferenceArray<Thread> owners;
+
+    /** Lease of the calling thread, or null if it has none
+     */
+    private final ThreadLocal<Lease> lease = new ThreadLocal<>();
+
+    /** Constructor
+     *
+     * @param numSlots  Number of slots (thread IDs) to lease
+     */
+    public SlotRegistry(int numSlots) {
+        if (numSlots <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of slots: numSlots must be >0");
+        }
+        this.owners = new AtomicReferenceArray<>(numSlots);
+    }
+
+    /** Get the slot of the calling thread, leasing one if it has none
+     *
+     * @return Slot in [0,getNumSlots())
+     * @throws IllegalStateException    If every slot is leased to a live thread
+     */
+    public int slot() {
+        Lease lease = this.lease.get();
+        if (lease != null) {
+            return lease.slot;
+        }
+        return this.acquire();
+    }
+
+    /** Lease a slot to the calling thread
+     *
+     * Free slots are taken first, and the slots of terminated threads after.
+     * A thread that has finished its work may still look alive for a moment
+     * (a pool thread after awaitTermination, for example), so the search is
+     * retried a few times before giving up.
+     *
+     * @return Slot leased
+     */
+    private int acquire() {
+        Thread me = Thread.currentThread();
+        int numSlots = this.owners.length();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            for (int i = 0; i < numSlots; i++) {
+                if (this.owners.get(i) == null
+                        && this.owners.compareAndSet(i, null, me)) {
+                    return this.leased(i);
+                }
+            }
+            for (int i = 0; i < numSlots; i++) {
+                Thread owner = this.owners.get(i);
+                if (owner != null && !owner.isAlive()
+                        && this.owners.compareAndSet(i, owner, me)) {
+                    return this.leased(i);
+                }
+            }
+            Thread.yield();
+        }
+        throw new IllegalStateException("No free slot: all " + numSlots
+            + " slots are leased to live threads");
+    }
+
+    /** Record the lease of a slot in the calling thread
+     *
+     * @param slot  Slot leased
+     * @return Slot leased
+     */
+    private int leased(int slot) {
+        this.lease.set(new Lease(slot));
+        return slot;
+    }
+
+    /** Give the slot of the calling thread back, if it has one
+     *
+     * The thread must not hold or be waiting for a lock that uses the slot.
+     */
+    public void release() {
+        Lease lease = this.lease.get();
+        if (lease != null) {
+            this.lease.remove();
+            this.owners.set(lease.slot, null);
+        }
+    }
+
+    /** Get the number of slots
+     *
+     * @return Number of slots
+     */
+    public int getNumSlots() {
+        return this.owners.length();
+    }
+
+    /** Get the number of slots leased to live threads
+     *
+     * @return Number of slots in use
+     */
+    public int getNumLeased() {
+        int leased = 0;
+        for (int i = 0; i < this.owners.length(); i++) {
+            Thread owner = this.owners.get(i);
+            if (owner != null && owner.isAlive()) {
+                leased++;
+            }
+        }
+        return leased;
+    }
+}
@@ -0,0 +1,147 @@
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks of the locks specialized for a fixed number of threads against
+ * the generic ones
+ *
+ * The specialized classes are generated by the build (see
+ * SpecializedLockGenerator and LockFactory.createSpecialized).
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class SpecializedLockBenchmarks {
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class SpecializedState {
+
+        /** Type of generic lock benchmarked
+         */
+        @Param({"TournamentLock", "ColoredBakeryLock", "OneBitLock"})
+        public String lockType;
+
+        /** Number of threads the lock is built for
+         */
+        @Param({"2", "4", "8"})
+        public int numThreads;
+
+        /** Use the specialized class of the lock
+         */
+        @Param({"true", "false"})
+        public boolean specialized;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Lock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Expected shared variable final state
+         */
+        int cExpected;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            SpinPolicy policy = SpinPolicy.fromName(this.spinPolicy);
+            if (this.specialized) {
+                this.lock = LockFactory.createSpecialized(this.lockType,
+                    this.numThreads, policy);
+            } else {
+                this.lock = LockFactory.create(this.lockType, this.numThreads,
+                    policy);
+            }
+            System.out.print(this.lock.getClass().getSimpleName() + ": ");
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.cExpected) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.cExpected + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Heavy contention benchmark
+     *
+     * All the threads the lock is built for increment or decrement the
+     * shared variable.
+     */
+    @Benchmark
+    public void heavyContention(SpecializedState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = 0;
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.numThreads,
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+
+    /** No contention benchmark
+     *
+     * A single thread uses the lock, so the time is the cost of the entry and
+     * exit protocols, which still read the registers of all the other threads.
+     */
+    @Benchmark
+    public void noContention(SpecializedState state) {
+        System.out.print("Running benchmark: ");
+        state.cExpected = state.benchmark.getIncrementNum();
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.benchmark.getNoContentionThreadNum(),
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+}
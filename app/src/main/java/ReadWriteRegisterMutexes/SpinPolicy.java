@@ -0,0 +1,209 @@
+/** Policy of the wait loops of the read-write register locks
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Policy of the wait loops of the read-write register locks
+ *
+ * Every wait loop of a lock calls spin once per iteration, after checking
+ * that the condition it waits for is still false. The policy decides what
+ * the thread does before checking it again, so the same lock can trade
+ * acquisition latency for CPU use.
+ *
+ * A lock also calls unlocked at the end of its exit protocol, so a policy that
+ * blocks waiting threads can wake them up. Both get the thread ID of the
+ * calling thread, so a policy can keep per thread state in an array.
+ *
+ * The built-in policies are stateless and can be shared by any number of
+ * locks, except SPIN_THEN_PARK and SPIN_THEN_PARK_SUCCESSOR, which need an
+ * instance per lock. They can be selected by name with fromName.
+ */
+public interface SpinPolicy {
+    /** Wait before checking the condition of a wait loop again
+     *
+     * @param tid   Thread ID of the waiting thread
+     * @param spins Number of times spin was already called in this wait
+     */
+    public void spin(int tid, int spins);
+
+    /** Notify the policy that the lock was released
+     *
+     * Called by the unlocking thread after its exit protocol. The default
+     * does nothing.
+     *
+     * @param tid   Thread ID of the unlocking thread
+     */
+    public default void unlocked(int tid) {
+        // Nothing to wake up
+    }
+
+    /** Pure busy wait policy
+     *
+     * The condition is checked again immediately. This has the lowest
+     * latency as long as every thread has a CPU of its own.
+     *
+     * @return Busy wait policy
+     */
+    public static SpinPolicy busyWait() {
+        return BuiltIn.BUSY_WAIT;
+    }
+
+    /** Busy wait policy with a spin-wait hint
+     *
+     * Calls Thread.onSpinWait, which lets the CPU save power and give more
+     * resources to a sibling hardware thread while the thread waits.
+     *
+     * @return Spin-wait hint policy
+     */
+    public static SpinPolicy onSpinWait() {
+        return BuiltIn.ON_SPIN_WAIT;
+    }
+
+    /** Bounded exponential backoff policy
+     *
+     * Waits for 2^spins spin-wait hints, up to 2^BACKOFF_MAX_SHIFT, so
+     * threads that wait for a long time read the shared registers less
+     * often.
+     *
+     * @return Exponential backoff policy
+     */
+    public static SpinPolicy backoff() {
+        return BuiltIn.BACKOFF;
+    }
+
+    /** Spin then yield policy
+     *
+     * Uses spin-wait hints for the first YIELD_AFTER iterations, and then
+     * calls Thread.yield, so a waiting thread gives its CPU to the thread it
+     * is waiting for when there are more threads than CPUs.
+     *
+     * @return Spin then yield policy
+     */
+    public static SpinPolicy spinThenYield() {
+        return BuiltIn.SPIN_THEN_YIELD;
+    }
+
+    /** Spin then park policy
+     *
+     * Spins for a bounded number of iterations, and then parks the waiting
+     * thread until the lock is released, which wakes up every parked thread
+     * (see SpinThenParkPolicy). The policy keeps the parked threads, so every
+     * lock needs its own instance.
+     *
+     * @return New spin then park policy with the default budget
+     */
+    public static SpinPolicy spinThenPark() {
+        return new SpinThenParkPolicy();
+    }
+
+    /** Spin then park policy waking up one thread per release
+     *
+     * Same as spinThenPark, but a release only wakes up the next parked thread
+     * after the unlocking thread, which passes the wake-up on if it cannot
+     * enter (see SpinThenParkPolicy.WakeMode.SUCCESSOR).
+     *
+     * @return New spin then park policy with the default budget
+     */
+    public static SpinPolicy spinThenParkSuccessor() {
+        return new SpinThenParkPolicy(SpinThenParkPolicy.DEFAULT_SPIN_BUDGET,
+            SpinThenParkPolicy.DEFAULT_PARK_NANOS,
+            SpinThenParkPolicy.DEFAULT_MAX_THREADS,
+            SpinThenParkPolicy.WakeMode.SUCCESSOR);
+    }
+
+    /** Virtual thread aware policy
+     *
+     * A virtual thread that waits keeps its carrier thread busy while it
+     * spins, and the thread it waits for may not get a carrier at all. So a
+     * virtual thread only spins for VIRTUAL_YIELD_AFTER iterations, and then
+     * calls Thread.yield, which unmounts it and gives its carrier to another
+     * virtual thread. Platform threads wait as with SPIN_THEN_YIELD.
+     *
+     * @return Virtual thread aware policy
+     */
+    public static SpinPolicy virtualAware() {
+        return BuiltIn.VIRTUAL_AWARE;
+    }
+
+    /** Find a built-in policy by name
+     *
+     * @param name  One of BUSY_WAIT, ON_SPIN_WAIT, BACKOFF, SPIN_THEN_YIELD,
+     *  SPIN_THEN_PARK, SPIN_THEN_PARK_SUCCESSOR or VIRTUAL_AWARE
+     * @return Policy with that name (a new one for the spin then park
+     *  policies)
+     */
+    public static SpinPolicy fromName(String name) {
+        if (name.equals("SPIN_THEN_PARK")) {
+            return spinThenPark();
+        }
+        if (name.equals("SPIN_THEN_PARK_SUCCESSOR")) {
+            return spinThenParkSuccessor();
+        }
+        try {
+            return BuiltIn.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown spin policy: " + name);
+        }
+    }
+
+    /** Built-in policies
+     */
+    enum BuiltIn implements SpinPolicy {
+        BUSY_WAIT {
+            public void spin(int tid, int spins) {
+                // Do nothing
+            }
+        },
+
+        ON_SPIN_WAIT {
+            public void spin(int tid, int spins) {
+                Thread.onSpinWait();
+            }
+        },
+
+        BACKOFF {
+            public void spin(int tid, int spins) {
+                // spins overflows to negative values in very long waits
+                int n = 1 << Math.max(0, Math.min(spins, BACKOFF_MAX_SHIFT));
+                for (int i = 0; i < n; i++) {
+                    Thread.onSpinWait();
+                }
+            }
+        },
+
+        SPIN_THEN_YIELD {
+            public void spin(int tid, int spins) {
+                if (spins < YIELD_AFTER) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        },
+
+        VIRTUAL_AWARE {
+            public void spin(int tid, int spins) {
+                int yieldAfter = VirtualThreads.isVirtual(Thread.currentThread())
+                    ? VIRTUAL_YIELD_AFTER : YIELD_AFTER;
+                if (spins < yieldAfter) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        };
+
+        /** Largest backoff is 2^BACKOFF_MAX_SHIFT spin-wait hints
+         */
+        static final int BACKOFF_MAX_SHIFT = 10;
+
+        /** Number of iterations before the spin then yield policy yields
+         */
+        static final int YIELD_AFTER = 100;
+
+        /** Number of iterations before a virtual thread yields with the
+         * virtual thread aware policy
+         */
+        static final int VIRTUAL_YIELD_AFTER = 10;
+    }
+}
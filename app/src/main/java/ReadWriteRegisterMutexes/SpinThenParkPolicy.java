@@ -0,0 +1,325 @@
+/** Spin then park policy of the wait loops of a lock
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/** Spin then park policy of the wait loops of a lock
+ *
+ * A waiting thread spins with spin-wait hints for spinBudget iterations.
+ * After that, the iterations alternate between registering the thread as
+ * parked and parking it with LockSupport until the lock is released, so when
+ * there are more threads than CPUs, the waiting threads give their CPU to the
+ * lock holder instead of burning their time slice.
+ *
+ * A thread registers in the slot of its thread ID, returns so the lock checks
+ * its wait condition once more, and only then parks. The unlocking thread
+ * releases the lock before it looks for parked threads, so either the waiting
+ * thread sees the release, or the unlocking thread sees the registration and
+ * unparks it (an unpark before the park makes the park return at once).
+ * Registering and leaving a slot do not allocate.
+ *
+ * The read-write register locks do not know which thread will enter next. By
+ * default (WakeMode.ALL) unlocked wakes up every parked thread, and the ones
+ * that still cannot enter register and park again. With WakeMode.SUCCESSOR it
+ * only wakes up the successor of the unlocking thread: the first parked
+ * thread after it in thread ID order, wrapping around. A woken thread that
+ * still cannot enter passes the wake-up on to its own successor, up to the
+ * unlocking thread, so a release wakes the parked threads one at a time
+ * instead of all at once. This saves wake-ups when the successor is likely to
+ * be the next thread to enter, but the wake-ups of one release are
+ * serialized, so locks that let the threads in a different order (the bakery
+ * locks go by ticket) collapse with it when there are more threads than CPUs.
+ * Some waits end with a write that is not part of unlock (for example a
+ * thread leaving the doorway of a bakery lock), so parks are timed and last
+ * at most parkNanos.
+ *
+ * The policy keeps the threads parked on a lock, so every lock needs its own
+ * instance, with at least as many slots as the lock has thread IDs. Thread IDs
+ * of maxThreads or more are rejected with an IllegalArgumentException.
+ */
+public class SpinThenParkPolicy implements SpinPolicy {
+    /** Default number of iterations that spin before parking
+     */
+    public static final int DEFAULT_SPIN_BUDGET = 1000;
+
+    /** Default longest time a thread stays parked in nanoseconds
+     */
+    public static final long DEFAULT_PARK_NANOS = 100000;
+
+    /** Default number of thread IDs that can register as parked
+     */
+    public static final int DEFAULT_MAX_THREADS = 1024;
+
+    /** Threads woken up by unlocked
+     */
+    public enum WakeMode {
+        /** Every parked thread
+         */
+        ALL,
+
+        /** The first parked thread after the unlocking thread, which passes
+         * the wake-up on if it cannot enter
+         */
+        SUCCESSOR
+    }
+
+    /** No wake-up to pass on
+     */
+    private static final int NONE = -1;
+
+    /** Number of iterations of a wait that spin before parking
+     */
+    private final int spinBudget;
+
+    /** Longest time a thread stays parked in nanoseconds
+     */
+    private final long parkNanos;
+
+    /** Threads woken up by unlocked
+     */
+    private final WakeMode wakeMode;
+
+    /** Thread registered as parked with each thread ID, or null
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicReferenceArray<Thread> parked;
+
+    /** Unlocking thread of the wake-up that each woken thread passes on, or
+     * NONE
+     *
+     * Shared variable. Written by the waking thread before the unpark, and
+     * read by the woken thread.
+     */
+    private final AtomicIntegerArray wakers;
+
+    /** Number of registered threads
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicInteger numParked;
+
+    /** One more than the largest thread ID that registered, so unlocked only
+     * looks at the slots that were used
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicInteger limit;
+
+    /** Constructor with the default spin budget, park time, number of
+     * thread IDs and wake mode
+     */
+    public SpinThenParkPolicy() {
+        this(DEFAULT_SPIN_BUDGET, DEFAULT_PARK_NANOS);
+    }
+
+    /** Constructor
+     *
+     * @param spinBudget    Number of iterations of a wait that spin before
+     *  parking
+     * @param parkNanos Longest time a thread stays parked in nanoseconds
+     */
+    public SpinThenParkPolicy(int spinBudget, long parkNanos) {
+        this(spinBudget, parkNanos, DEFAULT_MAX_THREADS);
+    }
+
+    /** Constructor
+     *
+     * @param spinBudget    Number of iterations of a wait that spin before
+     *  parking
+     * @param parkNanos Longest time a thread stays parked in nanoseconds
+     * @param maxThreads    Number of thread IDs that can register as parked
+     */
+    public SpinThenParkPolicy(int spinBudget, long parkNanos, int maxThreads) {
+        this(spinBudget, parkNanos, maxThreads, WakeMode.ALL);
+    }
+
+    /** Constructor
+     *
+     * @param spinBudget    Number of iterations of a wait that spin before
+     *  parking
+     * @param parkNanos Longest time a thread stays parked in nanoseconds
+     * @param maxThreads    Number of thread IDs that can register as parked
+     * @param wakeMode  Threads woken up by unlocked
+     */
+    public SpinThenParkPolicy(int spinBudget, long parkNanos, int maxThreads,
+            WakeMode wakeMode) {
+        if (spinBudget < 0 || parkNanos <= 0 || maxThreads <= 0
+                || wakeMode == null) {
+            throw new IllegalArgumentException("Invalid spin then park policy:"
+                + " spinBudget must be >=0, parkNanos and maxThreads must be"
+                + " >0, and wakeMode must be set");
+        }
+        this.spinBudget = spinBudget;
+        this.parkNanos = parkNanos;
+        this.wakeMode = wakeMode;
+        this.parked = new AtomicReferenceArray<Thread>(maxThreads);
+        this.wakers = new AtomicIntegerArray(maxThreads);
+        for (int i = 0; i < maxThreads; i++) {
+            this.wakers.set(i, NONE);
+        }
+        this.numParked = new AtomicInteger();
+        this.limit = new AtomicInteger();
+    }
+
+    /** Wait before checking the condition of a wait loop again
+     *
+     * @param tid   Thread ID of the waiting thread
+     * @param spins Number of times spin was already called in this wait
+     */
+    public void spin(int tid, int spins) {
+        if (spins < this.spinBudget) {
+            Thread.onSpinWait();
+            return;
+        }
+
+        this.checkTid(tid);
+        boolean park = ((spins - this.spinBudget) & 1) != 0;
+        Thread me = Thread.currentThread();
+        if (!park) {
+            // Woken up by a release that did not let us in: pass it on
+            int waker = this.wakers.get(tid);
+            if (waker != NONE) {
+                this.wakers.set(tid, NONE);
+                this.wakeSuccessor(tid, waker);
+            }
+            // Register, and let the lock check its condition again
+            if (this.parked.getAndSet(tid, me) == null) {
+                this.numParked.incrementAndGet();
+            }
+            int limit;
+            while ((limit = this.limit.get()) <= tid
+                    && !this.limit.compareAndSet(limit, tid + 1)) {
+                // Retry with the new limit
+            }
+        } else {
+            LockSupport.parkNanos(this, this.parkNanos);
+            this.leave(tid, me);    // In case we were not unparked
+        }
+    }
+
+    /** Wake up the parked threads, or the successor of the unlocking thread
+     *
+     * The unlocking thread has left its wait loops, so its own registration
+     * and any wake-up it was passing on are dropped first.
+     *
+     * @param tid   Thread ID of the unlocking thread
+     */
+    public void unlocked(int tid) {
+        this.checkTid(tid);
+        if (this.wakers.get(tid) != NONE) {
+            this.wakers.set(tid, NONE);
+        }
+        this.leave(tid, Thread.currentThread());
+        if (this.numParked.get() > 0) {
+            if (this.wakeMode == WakeMode.ALL) {
+                this.wakeAll();
+            } else {
+                this.wakeSuccessor(tid, tid);
+            }
+        }
+    }
+
+    /** Check that a thread ID has a slot
+     *
+     * @param tid   Thread ID
+     * @throws IllegalArgumentException If the thread ID is maxThreads or more
+     */
+    private void checkTid(int tid) {
+        if (tid >= this.parked.length()) {
+            throw new IllegalArgumentException("Thread ID " + tid
+                + " out of range: the spin then park policy has "
+                + this.parked.length() + " slots");
+        }
+    }
+
+    /** Remove the registration of a thread, if it is still there
+     *
+     * @param tid   Thread ID
+     * @param thread    Thread registered with that ID
+     */
+    private void leave(int tid, Thread thread) {
+        if (this.parked.get(tid) == thread
+                && this.parked.compareAndSet(tid, thread, null)) {
+            this.numParked.decrementAndGet();
+        }
+    }
+
+    /** Wake up every parked thread
+     */
+    private void wakeAll() {
+        int limit = this.limit.get();
+        for (int j = 0; j < limit; j++) {
+            Thread t = this.parked.get(j);
+            if (t != null && this.parked.compareAndSet(j, t, null)) {
+                this.numParked.decrementAndGet();
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    /** Wake up the first parked thread after a thread ID and before the
+     * unlocking thread, wrapping around
+     *
+     * @param from  Thread ID to start after
+     * @param waker Thread ID of the unlocking thread
+     */
+    private void wakeSuccessor(int from, int waker) {
+        int limit = this.limit.get();
+        if (limit == 0) {
+            return;
+        }
+        int j = from;
+        while (true) {
+            j = (j + 1 >= limit) ? 0 : j + 1;
+            if (j == waker || j == from) {
+                return;     // Nobody left to wake up for this release
+            }
+            Thread t = this.parked.get(j);
+            if (t != null && this.parked.compareAndSet(j, t, null)) {
+                this.numParked.decrementAndGet();
+                this.wakers.set(j, waker);
+                LockSupport.unpark(t);
+                return;
+            }
+        }
+    }
+
+    /** Getter method for the spin budget
+     *
+     * @return Number of iterations of a wait that spin before parking
+     *  (spinBudget)
+     */
+    public int getSpinBudget() {
+        return this.spinBudget;
+    }
+
+    /** Getter method for the park time
+     *
+     * @return Longest time a thread stays parked in nanoseconds (parkNanos)
+     */
+    public long getParkNanos() {
+        return this.parkNanos;
+    }
+
+    /** Getter method for the number of thread IDs
+     *
+     * @return Number of thread IDs that can register as parked (maxThreads)
+     */
+    public int getMaxThreads() {
+        return this.parked.length();
+    }
+
+    /** Getter method for the wake mode
+     *
+     * @return Threads woken up by unlocked (wakeMode)
+     */
+    public WakeMode getWakeMode() {
+        return this.wakeMode;
+    }
+}
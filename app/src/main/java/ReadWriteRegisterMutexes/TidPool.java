@@ -0,0 +1,97 @@
+/** Pool of thread IDs taken for the length of one lock acquisition
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Pool of thread IDs taken for the length of one lock acquisition
+ *
+ * Virtual threads come and go by the thousand, so they cannot keep a thread
+ * ID for their whole life as with a SlotRegistry. A thread takes an ID from
+ * the pool before it locks, and gives it back after it unlocks, so any number
+ * of threads share a bounded ID space, and at most getNumTids() of them run
+ * the entry protocol of the lock at the same time.
+ *
+ * A semaphore with a permit per ID blocks the threads that find no free ID. It
+ * parks them, which unmounts a virtual thread from its carrier. A thread with
+ * a permit is sure to find a free ID, and claims it with a compareAndSet.
+ */
+public class TidPool {
+    /** Number of int registers in a cache line (64 bytes)
+     */
+    private static final int LINE = 16;
+
+    /** One permit per free ID
+     */
+    private final Semaphore permits;
+
+    /** Number of IDs
+     */
+    private final int numTids;
+
+    /** Taken flag of each ID, at LINE*(i+1)
+     *
+     * Shared variable (it might be accessed by multiple threads concurrently).
+     */
+    private final AtomicIntegerArray taken;
+
+    /** Constructor
+     *
+     * @param numTids   Number of IDs in the pool
+     */
+    public TidPool(int numTids) {
+        if (numTids <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of IDs: numTids must be >0");
+        }
+        this.numTids = numTids;
+        this.permits = new Semaphore(numTids);
+        this.taken = new AtomicIntegerArray(LINE * (numTids + 2));
+    }
+
+    /** Take a free ID, waiting until there is one
+     *
+     * @return ID in [0,getNumTids())
+     */
+    @SuppressWarnings("deprecation")
+    public int acquire() {
+        this.permits.acquireUninterruptibly();
+        // Start at a different ID for each thread to spread the claims
+        int i = (int) (Thread.currentThread().getId() % this.numTids);
+        while (true) {
+            int index = LINE * (i + 1);
+            if (this.taken.get(index) == 0
+                    && this.taken.compareAndSet(index, 0, 1)) {
+                return i;
+            }
+            i = (i + 1 == this.numTids) ? 0 : i + 1;
+        }
+    }
+
+    /** Give an ID back
+     *
+     * @param tid   ID taken with acquire
+     */
+    public void release(int tid) {
+        this.taken.set(LINE * (tid + 1), 0);
+        this.permits.release();
+    }
+
+    /** Get the number of IDs
+     *
+     * @return Number of IDs
+     */
+    public int getNumTids() {
+        return this.numTids;
+    }
+
+    /** Get the number of IDs taken
+     *
+     * @return Number of IDs taken
+     */
+    public int getNumTaken() {
+        return this.numTids - this.permits.availablePermits();
+    }
+}
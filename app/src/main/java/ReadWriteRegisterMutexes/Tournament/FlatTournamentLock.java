@@ -0,0 +1,159 @@
+/** FlatTournamentLock is a mutex lock implementation of the Peterson's
+ * Tournament Algorithm with precomputed paths and flat register storage
+ *
+ * This implementation runs the same algorithm as TournamentLock, but the path
+ * of each thread through the tournament tree is computed once at construction,
+ * and all the registers live in a single padded AtomicIntegerArray. The tree
+ * is not rounded up to a power of 2 (see TournamentTree).
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** FlatTournamentLock class implements a mutex lock using the Peterson's
+ * Tournament Algorithm with precomputed paths and flat register storage
+ *
+ * TournamentLock recomputes the node and side of every level on each unlock,
+ * and keeps its registers in arrays of AtomicBoolean and AtomicInteger objects
+ * that are scattered across the heap. This lock instead stores, for every
+ * thread, the index of the node and the side it plays in every contest of its
+ * path. The registers of each node (both wantCS entries and the turn) share a
+ * cache line of their own, so contests in different nodes never invalidate
+ * each other.
+ */
+public class FlatTournamentLock implements ReadWriteRegisterMutexes.Lock {
+    /** Number of int registers in a cache line
+     *
+     * Each node is aligned to a block of this many ints (64 bytes) in the
+     * registers array.
+     */
+    private static final int LINE = 16;
+
+    /** Offset of the wantCS register of process 0 inside a node block
+     */
+    private static final int WANT_CS = 0;
+
+    /** Offset of the turn register inside a node block
+     */
+    private static final int TURN = 2;
+
+    /** Shared registers of all the node contests
+     *
+     * Node k of the tree owns the block starting at LINE*(k+1), which holds
+     * wantCS for process 0, wantCS for process 1, and turn. The first block is
+     * left empty to keep the first node away from the array header.
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Base index of the node block of each contest of each thread
+     *
+     * Local variable (read only after construction). pathNode[tid][k] is the
+     * index in registers of the block of the kth node the thread contests in,
+     * from its leaf to the root.
+     */
+    private final int[][] pathNode;
+
+    /** Side (process 0 or 1) each thread plays in each of its contests
+     *
+     * Local variable (read only after construction). pathSide[tid][k] is the
+     * id of the thread in the Peterson's contest of its kth node.
+     */
+    private final int[][] pathSide;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The tournament tree is built by TournamentTree, so it has exactly
+     * numThreads-1 nodes and threads without a sibling at some level skip
+     * that level.
+     *
+     * @param numThreads    Number of threads using the lock
+     */
+    public FlatTournamentLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public FlatTournamentLock(int numThreads, SpinPolicy spinPolicy) {
+        this.spinPolicy = spinPolicy;
+        TournamentTree tree = new TournamentTree(numThreads);
+
+        // One block per node plus the leading empty block
+        this.registers = new AtomicIntegerArray(
+            LINE * (tree.getNumNodes() + 1));
+
+        // Translate the path of each thread to register block indices
+        this.pathNode = new int[numThreads][];
+        this.pathSide = new int[numThreads][];
+        for (int tid = 0; tid < numThreads; tid++) {
+            int[] nodes = tree.getPathNodes(tid);
+            this.pathNode[tid] = new int[nodes.length];
+            for (int k = 0; k < nodes.length; k++) {
+                this.pathNode[tid][k] = LINE * (1 + nodes[k]);
+            }
+            this.pathSide[tid] = tree.getPathSides(tid).clone();
+        }
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Iterate over all the contests of the thread from leaf to root
+        for (int k = 0; k < nodes.length; k++) {
+            int base = nodes[k];
+            int id = sides[k];
+            int idj = 1 - id;   // Id of other thread in the contest
+
+            // Say we want to enter the CS
+            this.registers.set(base + WANT_CS + id, 1);
+            // Set the turn to the other thread in the contest
+            this.registers.set(base + TURN, idj);
+
+            // Busy wait until we win the contest
+            int spins = 0;
+            while (this.registers.get(base + WANT_CS + idj) == 1
+                && this.registers.get(base + TURN) == idj) {
+                this.spinPolicy.spin(tid, spins++);
+            }
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Iterate the tree backwards to reset the values set by the thread
+        for (int k = nodes.length - 1; k >= 0; k--) {
+            this.registers.set(nodes[k] + WANT_CS + sides[k], 0);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/** KesselsTournamentLock is a mutex lock implementation of the Tournament
+ * Algorithm using Kessels' single-writer two process algorithm in each node
+ *
+ * This implementation is based on J. L. W. Kessels, "Arbitration without
+ * common modifiable variables", Acta Informatica 17 (1982), and on the
+ * description of Kessels' single-writer algorithm in the Synchronization
+ * Algorithms and Concurrent Programming textbook by Gadi Taubenfeld.
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** KesselsTournamentLock class implements a mutex lock using a tournament tree
+ * of Kessels' single-writer two process algorithm
+ *
+ * In the Peterson's algorithm used by TournamentLock both contenders of a node
+ * write the shared turn register, and both spin on it, so the cache line of
+ * every contested node bounces between the cores of the contenders. Kessels'
+ * algorithm splits the turn register into one bit per process: process 0 owns
+ * want[0] and turn[0], process 1 owns want[1] and turn[1], and the turn is
+ * turn[0] xor turn[1]. Each side of a node keeps its two registers in a cache
+ * line of its own that is only written by the thread playing that side, so a
+ * waiting thread spins on a line that stays in its cache until its opponent
+ * actually changes its state.
+ *
+ * The tree is built by TournamentTree, so it is ragged when the number of
+ * threads is not a power of 2.
+ */
+public class KesselsTournamentLock implements ReadWriteRegisterMutexes.Lock {
+    /** Number of int registers in a cache line
+     *
+     * Each side of each node is aligned to a block of this many ints (64
+     * bytes) in the registers array.
+     */
+    private static final int LINE = 16;
+
+    /** Offset of the want register inside a side block
+     */
+    private static final int WANT = 0;
+
+    /** Offset of the turn bit register inside a side block
+     */
+    private static final int TURN = 1;
+
+    /** Shared registers of all the node contests
+     *
+     * Side s of node k owns the block starting at LINE*(2*k+s+1), which holds
+     * its want and turn registers. The first block is left empty to keep the
+     * first node away from the array header.
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Base index of the block the thread writes in each of its contests
+     *
+     * Local variable (read only after construction). pathOwn[tid][k] is the
+     * index in registers of the block of the side the thread plays in the kth
+     * node it contests in, from its leaf to the root.
+     */
+    private final int[][] pathOwn;
+
+    /** Base index of the block the thread spins on in each of its contests
+     *
+     * Local variable (read only after construction). pathOther[tid][k] is the
+     * index in registers of the block of the opponent side of the kth node
+     * the thread contests in.
+     */
+    private final int[][] pathOther;
+
+    /** Side (process 0 or 1) each thread plays in each of its contests
+     *
+     * Local variable (read only after construction). pathSide[tid][k] is the
+     * id of the thread in the contest of its kth node.
+     */
+    private final int[][] pathSide;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     */
+    public KesselsTournamentLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public KesselsTournamentLock(int numThreads, SpinPolicy spinPolicy) {
+        this.spinPolicy = spinPolicy;
+        TournamentTree tree = new TournamentTree(numThreads);
+
+        // Two blocks per node plus the leading empty block
+        this.registers = new AtomicIntegerArray(
+            LINE * (2 * tree.getNumNodes() + 1));
+
+        // Translate the path of each thread to register block indices
+        this.pathOwn = new int[numThreads][];
+        this.pathOther = new int[numThreads][];
+        this.pathSide = new int[numThreads][];
+        for (int tid = 0; tid < numThreads; tid++) {
+            int[] nodes = tree.getPathNodes(tid);
+            int[] sides = tree.getPathSides(tid);
+
+            this.pathOwn[tid] = new int[nodes.length];
+            this.pathOther[tid] = new int[nodes.length];
+            this.pathSide[tid] = sides.clone();
+            for (int k = 0; k < nodes.length; k++) {
+                this.pathOwn[tid][k] = LINE * (2 * nodes[k] + sides[k] + 1);
+                this.pathOther[tid][k] =
+                    LINE * (2 * nodes[k] + (1 - sides[k]) + 1);
+            }
+        }
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int[] own = this.pathOwn[tid];
+        int[] other = this.pathOther[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Iterate over all the contests of the thread from leaf to root
+        for (int k = 0; k < own.length; k++) {
+            int id = sides[k];
+
+            // Say we want to enter the CS
+            this.registers.set(own[k] + WANT, 1);
+
+            // Give the turn away: process 0 copies the turn bit of process 1,
+            // and process 1 sets the opposite of the turn bit of process 0,
+            // so the last one to write is the one that waits
+            int otherTurn = this.registers.get(other[k] + TURN);
+            int myTurn = (id == 0) ? otherTurn : 1 - otherTurn;
+            this.registers.set(own[k] + TURN, myTurn);
+
+            // Busy wait on the opponent's block until we win the contest.
+            // Process 0 waits while both bits are equal, and process 1 waits
+            // while they are different.
+            int spins = 0;
+            while (this.registers.get(other[k] + WANT) == 1
+                && (this.registers.get(other[k] + TURN) ^ myTurn) == id) {
+                this.spinPolicy.spin(tid, spins++);
+            }
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int[] own = this.pathOwn[tid];
+
+        // Iterate the tree backwards to reset the values set by the thread
+        for (int k = own.length - 1; k >= 0; k--) {
+            this.registers.set(own[k] + WANT, 0);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+    }
+}
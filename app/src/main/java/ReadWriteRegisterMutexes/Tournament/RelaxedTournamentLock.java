@@ -0,0 +1,182 @@
+/** RelaxedTournamentLock is a mutex lock implementation of the Peterson's
+ * Tournament Algorithm with relaxed memory ordering
+ *
+ * This implementation runs the same algorithm as FlatTournamentLock, on the
+ * same register layout, but the registers are accessed through a VarHandle
+ * with the weakest ordering each access needs instead of volatile accesses.
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** RelaxedTournamentLock class implements a mutex lock using the Peterson's
+ * Tournament Algorithm with acquire/release accesses and explicit fences
+ *
+ * Peterson's algorithm needs a store-load fence at two points of each
+ * contest:
+ *
+ * - Between the writes of wantCS and turn. Release ordering on the turn write
+ *   is not enough: it only orders the two writes of this thread, so when the
+ *   turn write of the opponent comes first, the opponent can still read our
+ *   wantCS as 0 while we read its wantCS as 0, and both enter. The full fence
+ *   makes our wantCS visible to every thread before our turn write.
+ * - After the write of turn, before the thread reads the registers of its
+ *   opponent.
+ *
+ * Every other access only needs acquire/release ordering:
+ *
+ * - wantCS and turn are written with opaque mode, since the fences order
+ *   them.
+ * - The wait loop reads with acquire mode, so whatever the opponent did before
+ *   its release writes (its critical section) happens before ours.
+ * - unlock clears wantCS with release mode, which needs no fence.
+ *
+ * With volatile accesses every write is followed by a full fence, so each
+ * contest costs 2 fences in lock and 1 in unlock, against 2 in lock and none
+ * in unlock here.
+ */
+public class RelaxedTournamentLock implements ReadWriteRegisterMutexes.Lock {
+    /** Access to the elements of the registers array
+     */
+    private static final VarHandle REGISTER =
+        MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** Number of int registers in a cache line
+     *
+     * Each node is aligned to a block of this many ints (64 bytes) in the
+     * registers array.
+     */
+    private static final int LINE = 16;
+
+    /** Offset of the wantCS register of process 0 inside a node block
+     */
+    private static final int WANT_CS = 0;
+
+    /** Offset of the turn register inside a node block
+     */
+    private static final int TURN = 2;
+
+    /** Shared registers of all the node contests
+     *
+     * Node k of the tree owns the block starting at LINE*(k+1), which holds
+     * wantCS for process 0, wantCS for process 1, and turn. Only accessed
+     * through REGISTER.
+     */
+    private final int[] registers;
+
+    /** Base index of the node block of each contest of each thread
+     *
+     * Local variable (read only after construction).
+     */
+    private final int[][] pathNode;
+
+    /** Side (process 0 or 1) each thread plays in each of its contests
+     *
+     * Local variable (read only after construction).
+     */
+    private final int[][] pathSide;
+
+    /** Policy of the wait loops
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait.
+     *
+     * @param numThreads    Number of threads using the lock
+     */
+    public RelaxedTournamentLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     */
+    public RelaxedTournamentLock(int numThreads, SpinPolicy spinPolicy) {
+        this.spinPolicy = spinPolicy;
+        TournamentTree tree = new TournamentTree(numThreads);
+
+        // One block per node plus the leading empty block
+        this.registers = new int[LINE * (tree.getNumNodes() + 1)];
+
+        // Translate the path of each thread to register block indices
+        this.pathNode = new int[numThreads][];
+        this.pathSide = new int[numThreads][];
+        for (int tid = 0; tid < numThreads; tid++) {
+            int[] nodes = tree.getPathNodes(tid);
+            this.pathNode[tid] = new int[nodes.length];
+            for (int k = 0; k < nodes.length; k++) {
+                this.pathNode[tid][k] = LINE * (1 + nodes[k]);
+            }
+            this.pathSide[tid] = tree.getPathSides(tid).clone();
+        }
+        VarHandle.releaseFence();   // Publish the zeroed registers
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Iterate over all the contests of the thread from leaf to root
+        for (int k = 0; k < nodes.length; k++) {
+            int base = nodes[k];
+            int id = sides[k];
+            int idj = 1 - id;   // Id of other thread in the contest
+
+            // Say we want to enter the CS
+            REGISTER.setOpaque(this.registers, base + WANT_CS + id, 1);
+            // wantCS must be visible to all before the turn write
+            VarHandle.fullFence();
+            // Set the turn to the other thread in the contest
+            REGISTER.setOpaque(this.registers, base + TURN, idj);
+            // turn must be visible before we read the opponent's registers
+            VarHandle.fullFence();
+
+            // Busy wait until we win the contest
+            int spins = 0;
+            while ((int) REGISTER.getAcquire(this.registers,
+                    base + WANT_CS + idj) == 1
+                && (int) REGISTER.getAcquire(this.registers,
+                    base + TURN) == idj) {
+                this.spinPolicy.spin(tid, spins++);
+            }
+        }
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Iterate the tree backwards to reset the values set by the thread
+        for (int k = nodes.length - 1; k >= 0; k--) {
+            REGISTER.setRelease(this.registers, nodes[k] + WANT_CS + sides[k],
+                0);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length; i++) {
+            REGISTER.setOpaque(this.registers, i, 0);
+        }
+        VarHandle.fullFence();
+    }
+}
@@ -0,0 +1,226 @@
+/** TimePublishedTournamentLock is a mutex lock implementation of the
+ * Peterson's Tournament Algorithm that detects descheduled opponents
+ *
+ * This implementation runs the same algorithm as FlatTournamentLock, and the
+ * threads publish heartbeat timestamps (see Heartbeat) so that a waiter can
+ * tell an opponent that was preempted by the OS from one that is running.
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import ReadWriteRegisterMutexes.Heartbeat;
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+/** TimePublishedTournamentLock class implements a mutex lock using the
+ * Peterson's Tournament Algorithm with time-published waiting
+ *
+ * Each side of a node contest records which thread is playing it, and the
+ * holder of the lock publishes its thread ID. A waiter publishes its heartbeat
+ * on every iteration of its wait loops and reads the heartbeats of its
+ * opponent and of the holder. The opponent is either waiting higher in the
+ * tree, and then it publishes too, or holding the lock, and then its last
+ * timestamp is from the moment it acquired it. Checking only the opponent is
+ * not enough: when the holder is descheduled, the waiters lower in the tree
+ * play against waiters that keep publishing. If the opponent or the holder
+ * has not published anything for stallNanos, it has most likely been
+ * descheduled, so the waiter yields its CPU instead of calling the spin
+ * policy.
+ *
+ * A holder with a long critical section also looks stalled. Its waiters then
+ * yield, which only costs them some latency.
+ */
+public class TimePublishedTournamentLock implements ReadWriteRegisterMutexes.Lock {
+    /** Default age in nanoseconds after which an opponent is stalled
+     */
+    public static final long DEFAULT_STALL_NANOS = 50000;
+
+    /** Number of int registers in a cache line
+     *
+     * Each node is aligned to a block of this many ints (64 bytes) in the
+     * registers array.
+     */
+    private static final int LINE = 16;
+
+    /** Offset of the wantCS register of process 0 inside a node block
+     */
+    private static final int WANT_CS = 0;
+
+    /** Offset of the turn register inside a node block
+     */
+    private static final int TURN = 2;
+
+    /** Offset of the owner register of process 0 inside a node block
+     */
+    private static final int OWNER = 3;
+
+    /** Shared registers of all the node contests
+     *
+     * Node k of the tree owns the block starting at LINE*(k+1), which holds
+     * wantCS for process 0, wantCS for process 1, turn, and the thread ID
+     * playing as process 0 and as process 1. The first block is left empty to
+     * keep the first node away from the array header.
+     */
+    private final AtomicIntegerArray registers;
+
+    /** Base index of the node block of each contest of each thread
+     *
+     * Local variable (read only after construction).
+     */
+    private final int[][] pathNode;
+
+    /** Side (process 0 or 1) each thread plays in each of its contests
+     *
+     * Local variable (read only after construction).
+     */
+    private final int[][] pathSide;
+
+    /** Heartbeat timestamps of the threads
+     */
+    private final Heartbeat heartbeat;
+
+    /** Age in nanoseconds after which an opponent is considered stalled
+     */
+    private final long stallNanos;
+
+    /** Policy of the wait loops while the opponent is running
+     */
+    private final SpinPolicy spinPolicy;
+
+    /** Constructor
+     *
+     * The wait loops busy wait while the opponent is running.
+     *
+     * @param numThreads    Number of threads using the lock
+     */
+    public TimePublishedTournamentLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops while the opponent is
+     *  running
+     */
+    public TimePublishedTournamentLock(int numThreads, SpinPolicy spinPolicy) {
+        this(numThreads, spinPolicy, DEFAULT_STALL_NANOS);
+    }
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops while the opponent is
+     *  running
+     * @param stallNanos    Age in nanoseconds after which an opponent is
+     *  considered stalled
+     */
+    public TimePublishedTournamentLock(int numThreads, SpinPolicy spinPolicy,
+            long stallNanos) {
+        if (stallNanos <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid stall time: stallNanos must be >0");
+        }
+        this.spinPolicy = spinPolicy;
+        this.stallNanos = stallNanos;
+        this.heartbeat = new Heartbeat(numThreads);
+        TournamentTree tree = new TournamentTree(numThreads);
+
+        // One block per node plus the leading empty block
+        this.registers = new AtomicIntegerArray(
+            LINE * (tree.getNumNodes() + 1));
+
+        // Translate the path of each thread to register block indices
+        this.pathNode = new int[numThreads][];
+        this.pathSide = new int[numThreads][];
+        for (int tid = 0; tid < numThreads; tid++) {
+            int[] nodes = tree.getPathNodes(tid);
+            this.pathNode[tid] = new int[nodes.length];
+            for (int k = 0; k < nodes.length; k++) {
+                this.pathNode[tid][k] = LINE * (1 + nodes[k]);
+            }
+            this.pathSide[tid] = tree.getPathSides(tid).clone();
+        }
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Publish before any opponent can see us in a contest
+        this.heartbeat.beat(tid);
+
+        // Iterate over all the contests of the thread from leaf to root
+        for (int k = 0; k < nodes.length; k++) {
+            int base = nodes[k];
+            int id = sides[k];
+            int idj = 1 - id;   // Id of other thread in the contest
+
+            // Say who we are, and that we want to enter the CS
+            this.registers.set(base + OWNER + id, tid);
+            this.registers.set(base + WANT_CS + id, 1);
+            // Set the turn to the other thread in the contest
+            this.registers.set(base + TURN, idj);
+
+            // Wait until we win the contest
+            int spins = 0;
+            while (this.registers.get(base + WANT_CS + idj) == 1
+                && this.registers.get(base + TURN) == idj) {
+                long now = this.heartbeat.beat(tid);
+                int opponent = this.registers.get(base + OWNER + idj);
+                if (this.heartbeat.isStalled(opponent, now, this.stallNanos)
+                        || this.heartbeat.isHolderStalled(now,
+                            this.stallNanos)) {
+                    Thread.yield();     // Let the descheduled thread run
+                } else {
+                    this.spinPolicy.spin(tid, spins++);
+                }
+            }
+        }
+
+        // Publish the time we acquired the lock, and that we hold it
+        this.heartbeat.acquired(tid);
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        int[] nodes = this.pathNode[tid];
+        int[] sides = this.pathSide[tid];
+
+        // Withdraw as holder before the next one can acquire the lock
+        this.heartbeat.released();
+
+        // Iterate the tree backwards to reset the values set by the thread
+        for (int k = nodes.length - 1; k >= 0; k--) {
+            this.registers.set(nodes[k] + WANT_CS + sides[k], 0);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        for (int i = 0; i < this.registers.length(); i++) {
+            this.registers.set(i, 0);
+        }
+        this.heartbeat.clear();
+    }
+
+    /** Getter method for the stall time
+     *
+     * @return Age in nanoseconds after which an opponent is considered
+     *  stalled (stallNanos)
+     */
+    public long getStallNanos() {
+        return this.stallNanos;
+    }
+}
@@ -8,15 +8,18 @@
 package ReadWriteRegisterMutexes.Tournament;
 
 import java.lang.Math;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+
+import ReadWriteRegisterMutexes.AbortableLock;
+import ReadWriteRegisterMutexes.RegisterFile;
+import ReadWriteRegisterMutexes.RegisterFileFactory;
+import ReadWriteRegisterMutexes.SpinPolicy;
 
 /** TournamentLock class implements a mutex lock using the Peterson's Tournament
  * Algorithm
  * 
  * The mutex uses the Pterson's Tournament Algorithm by Peterson.
  */
-public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
+public class TournamentLock implements AbortableLock {
     /** Number of threads or leaves of the tournament tree
      * 
      * This must be a power of 2. If n is not a power of 2, "dummy" threads that
@@ -30,38 +33,58 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
      */
     private int hTree;
 
-    /** Shared variable that indicates if a process wants to access the CS in
-     *  each node contest
+    /** Shared registers of all the node contests
+     * 
+     * wantCS indicates if a process wants to access the CS in each node
+     * contest. Both registers for process 0 and 1 in each tournament are
+     * stored in the same row. This way each node in the tree will have 2
+     * entries: wantCS[level][2*node] and wantCS[level][2*node+1], where the
+     * size of wantCS is the height of the tree (for the level dimension) by the
+     * number of leaves in the tree (for the node dimension).
      * 
-     * Both registers for process 0 and 1 in each tournament are stored in the
-     * same array. This way each node in the tree will have 2 entries:
-     * wantCS[level][2*node] and wantCS[level][2*node+1], where the size of
-     * wantCS is the height of the tree (for the level dimension) by the number
-     * of leaves in the tree (for the node dimension).
+     * turn indicates the turn in each node contest. Each node in the tree will
+     * have an entry: turn[level][node], where the size of turn is the height of
+     * the tree (for level dimension) by half of the number of leaves of the
+     * tree (for the node dimension).
      * 
-     * Array entries need to be AtomicBooleans, so that reads and writes of an
-     * array entry are atomic:
-     * //stackoverflow.com/questions/2236184/how-to-declare-array-elements-volatile-in-java
+     * Both are stored row by row in the register file, wantCS first and turn
+     * after it (see the wantCS and turn methods). The layout of the file
+     * decides which registers share a cache line.
+     */
+    private final RegisterFile registers;
+
+    /** Policy of the wait loops
      */
-    private volatile AtomicBoolean[][] wantCS;
+    private final SpinPolicy spinPolicy;
 
-    /** Shared variable that indicates the turn in each node contest
+    /** Constructor
      * 
-     * Each node in the tree will have an entry: turn[level][node], where the
-     * size of turn is the height of the tree (for level dimension) by half of
-     * the number of leaves of the tree (for the node dimension).
+     * The wait loops busy wait.
      * 
-     * Array entries need to be AtomicIntegers, so that reads and writes of an
-     * array entry are atomic:
-     * //stackoverflow.com/questions/2236184/how-to-declare-array-elements-volatile-in-java
+     * @param numThreads    Number of threads using the lock
      */
-    private volatile AtomicInteger[][] turn;
+    public TournamentLock(int numThreads) {
+        this(numThreads, SpinPolicy.busyWait());
+    }
 
     /** Constructor
      * 
      * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
      */
-    public TournamentLock(int numThreads) {
+    public TournamentLock(int numThreads, SpinPolicy spinPolicy) {
+        this(numThreads, spinPolicy, RegisterFile.Layout.COMPACT);
+    }
+
+    /** Constructor
+     * 
+     * @param numThreads    Number of threads using the lock
+     * @param spinPolicy    Policy of the wait loops
+     * @param registers Factory of the register file (a RegisterFile.Layout,
+     * or a MappedRegisterFactory to share the lock between processes)
+     */
+    public TournamentLock(int numThreads, SpinPolicy spinPolicy,
+            RegisterFileFactory registers) {
         //System.out.println("TournamentLock: numThreads = " + numThreads);
 
         // Check we have a valid number of threads
@@ -69,6 +92,7 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
             throw new IllegalArgumentException(
                 "Invalid number of threads: numThreads must be >0");
         }
+        this.spinPolicy = spinPolicy;
 
         // Initialize n to the smallest power of 2 larger or equal to numThreads
         double p = Math.ceil(Math.log((double) numThreads) / Math.log(2.0));
@@ -79,41 +103,29 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
         this.hTree = (int) Math.floor(Math.log((double) this.n) / Math.log(2.0)); // Binary tree height
         //System.out.println("TournamentLock: hTree = " + hTree);
 
-        // Initialize wantCS array
-        this.wantCS = new AtomicBoolean[this.hTree][this.n];
-        //System.out.println("TournamentLock: wantCS = ");
-        for (AtomicBoolean[] row : this.wantCS) {
-            //System.out.print("[ ");
-            for (int i=0; i<row.length; i++) {
-                row[i] = new AtomicBoolean(false);
-
-                /*
-                if (i == row.length-1) {
-                    System.out.println(row[i].get() + " ]");
-                } else {
-                    System.out.print(row[i].get() + ", ");
-                }
-                */
-            }
-        }
+        // Initialize the wantCS and turn registers (all false or 0)
+        this.registers = registers.createInt(this.hTree * this.n
+            + this.hTree * (this.n / 2));
+    }
 
-        // Initialize turn array
-        this.turn = new AtomicInteger[this.hTree][this.n / 2];
-        //System.out.println("TournamentLock: turn =");
-        for (AtomicInteger[] row : this.turn) {
-            //System.out.print("[ ");
-            for (int i=0; i<row.length; i++) {
-                row[i] = new AtomicInteger(0);
-
-                /*
-                if (i == row.length-1) {
-                    System.out.println(row[i].get() + " ]");
-                } else {
-                    System.out.print(row[i].get() + ", ");
-                }
-                */
-            }
-        }
+    /** Index of the register of wantCS[level][entry]
+     * 
+     * @param level Level of the node in the tree
+     * @param entry Entry of the process in the level (2*node+id)
+     * @return Index of the register in the register file
+     */
+    private int wantCS(int level, int entry) {
+        return level * this.n + entry;
+    }
+
+    /** Index of the register of turn[level][node]
+     * 
+     * @param level Level of the node in the tree
+     * @param node  Node in the level
+     * @return Index of the register in the register file
+     */
+    private int turn(int level, int node) {
+        return this.hTree * this.n + level * (this.n / 2) + node;
     }
 
     /** Lock or critical section entry protocol method of mutex
@@ -121,7 +133,38 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
      * @param tid Thread ID
      */
     public void lock(int tid) {
+        this.acquire(tid, false, 0);
+    }
+
+    /** Lock or critical section entry protocol method of mutex that gives up
+     * after a timeout
+     * 
+     * A thread that gives up while waiting at a node clears its wantCS entry
+     * of that node, so its opponent wins the contest, and then clears the
+     * entries of the nodes it already won below, as unlock does.
+     * 
+     * @param tid Thread ID
+     * @param nanos Maximum time to wait in nanoseconds
+     * @return True if the lock was acquired, false if the thread gave up
+     */
+    public boolean tryLock(int tid, long nanos) {
+        return this.acquire(tid, true, nanos);
+    }
+
+    /** Entry protocol of lock and tryLock
+     * 
+     * lock passes a constant false for abortable, so once this is inlined in
+     * lock the checks of the timeout are gone.
+     * 
+     * @param tid Thread ID
+     * @param abortable True if the thread gives up (see tryLock), false if it
+     *  waits as long as needed
+     * @param nanos Maximum time to wait in nanoseconds, if abortable
+     * @return True if the lock was acquired, false if the thread gave up
+     */
+    private boolean acquire(int tid, boolean abortable, long nanos) {
         // System.out.println("Thread-" + tid + ": locking...");
+        long start = abortable ? System.nanoTime() : 0;
         int level, id, idj;
         int node = tid; // Starting node (leave) is the thread ID
 
@@ -132,14 +175,19 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
             node = Math.floorDiv(node, 2); // Find next node
 
             // Say we want to enter the CS
-            this.wantCS[level][2 * node + id].set(true);
+            this.registers.setBoolean(this.wantCS(level, 2 * node + id), true);
             // Set the turn to the other thread in the contest
-            this.turn[level][node].set(idj);
-
-            // Busy wait until we win the contest
-            while (this.wantCS[level][2 * node + idj].get()
-                && (this.turn[level][node].get() == idj)) {
-                // Do nothing
+            this.registers.set(this.turn(level, node), idj);
+
+            // Busy wait until we win the contest or give up
+            int spins = 0;
+            while (this.registers.getBoolean(this.wantCS(level, 2 * node + idj))
+                && (this.registers.get(this.turn(level, node)) == idj)) {
+                if (abortable && AbortableLock.giveUp(start, nanos)) {
+                    this.withdraw(tid, level);
+                    return false;
+                }
+                this.spinPolicy.spin(tid, spins++);
 
                 // DO NOT DELETE!!! For some reason the lock does not work
                 // properly without this print statement.
@@ -150,6 +198,26 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
         // DO NOT DELETE!!! For some reason the lock does not work properly
         // without this print statement.
         //System.out.print("");
+        return true;
+    }
+
+    /** Clear the wantCS entries of a thread from a level down to the leaf
+     * 
+     * @param tid Thread ID
+     * @param top   Highest level the thread entered
+     */
+    private void withdraw(int tid, int top) {
+        int level, node, id;
+
+        for (level=top; level>=0; level--) {
+            // Same entry as in unlock
+            id = Math.floorDiv(tid, (int)Math.pow(2.0, (double)(level))) % 2;
+            node = Math.floorDiv(tid, (int)Math.pow(2.0, (double)(level+1)));
+            this.registers.setBoolean(this.wantCS(level, 2*node+id), false);
+        }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
     }
 
     /** Unlock or critical section exit protocol method of mutex
@@ -170,7 +238,16 @@ public class TournamentLock implements ReadWriteRegisterMutexes.Lock {
             node = Math.floorDiv(tid, (int)Math.pow(2.0, (double)(level+1)));
 
             // Reset wantCS entry
-            this.wantCS[level][2*node+id].set(false);
+            this.registers.setBoolean(this.wantCS(level, 2*node+id), false);
         }
+
+        // Wake up the threads parked by the spin policy, if any
+        this.spinPolicy.unlocked(tid);
+    }
+
+    /** Reset the lock to its initial state
+     */
+    public void reset() {
+        this.registers.clear();
     }
 }
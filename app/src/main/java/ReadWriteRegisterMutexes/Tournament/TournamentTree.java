@@ -0,0 +1,144 @@
+/** TournamentTree builds the contests of a tournament tree for any number of
+ * threads
+ *
+ * The tree is built bottom-up without rounding the number of threads up to a
+ * power of 2, so every thread only contests in the nodes it actually needs.
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+/** TournamentTree class computes the path of each thread through a ragged
+ * tournament tree
+ *
+ * Threads are paired level by level: at a level with m participants,
+ * participant p contests against participant p xor 1 in node p/2 of the level,
+ * and the winner moves up to participant p/2 of the next level. When m is odd,
+ * the last participant has no sibling, so it skips that level without a
+ * contest it cannot lose. Level k therefore has exactly floor(m/2) nodes, and
+ * the whole tree has numThreads-1 nodes.
+ *
+ * For example, with 9 threads, threads 0 to 7 contest in 4 levels, while
+ * thread 8 only contests in the root.
+ */
+public class TournamentTree {
+    /** Number of threads or leaves of the tournament tree
+     */
+    private int n;
+
+    /** Height of the tournament tree
+     *
+     * It is the length of the longest path from a leaf to the root.
+     */
+    private int hTree;
+
+    /** Number of nodes (contests) in the tree
+     */
+    private int numNodes;
+
+    /** Nodes each thread contests in, from its leaf to the root
+     *
+     * pathNodes[tid][k] is the index of the kth node the thread contests in.
+     * Nodes are numbered level by level starting from the leaves.
+     */
+    private int[][] pathNodes;
+
+    /** Sides each thread plays in its contests, from its leaf to the root
+     *
+     * pathSides[tid][k] is the id (process 0 or 1) of the thread in the
+     * Peterson's contest of node pathNodes[tid][k].
+     */
+    private int[][] pathSides;
+
+    /** Constructor
+     *
+     * @param numThreads    Number of threads (leaves) in the tree
+     */
+    public TournamentTree(int numThreads) {
+        // Check we have a valid number of threads
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid number of threads: numThreads must be >0");
+        }
+
+        this.n = numThreads;
+
+        // Count the levels and the contests of every thread
+        int[] pathLength = new int[this.n];
+        this.hTree = 0;
+        for (int m = this.n; m > 1; m = (m + 1) / 2) {
+            for (int tid = 0; tid < this.n; tid++) {
+                int p = tid >> this.hTree;  // Participant index at this level
+                if ((p ^ 1) < m) {
+                    pathLength[tid]++;
+                }
+            }
+            this.hTree++;
+        }
+
+        // Build the paths of every thread level by level
+        this.pathNodes = new int[this.n][];
+        this.pathSides = new int[this.n][];
+        for (int tid = 0; tid < this.n; tid++) {
+            this.pathNodes[tid] = new int[pathLength[tid]];
+            this.pathSides[tid] = new int[pathLength[tid]];
+            pathLength[tid] = 0;
+        }
+
+        int levelOffset = 0;    // Index of the first node of the level
+        int level = 0;
+        for (int m = this.n; m > 1; m = (m + 1) / 2) {
+            for (int tid = 0; tid < this.n; tid++) {
+                int p = tid >> level;   // Participant index at this level
+                if ((p ^ 1) < m) {
+                    int k = pathLength[tid]++;
+                    this.pathNodes[tid][k] = levelOffset + p / 2;
+                    this.pathSides[tid][k] = p % 2;
+                }
+            }
+            levelOffset += m / 2;
+            level++;
+        }
+        this.numNodes = levelOffset;
+    }
+
+    /** Getter method for the height of the tree
+     *
+     * @return Length of the longest path from a leaf to the root (hTree)
+     */
+    public int getHeight() {
+        return this.hTree;
+    }
+
+    /** Getter method for the number of nodes in the tree
+     *
+     * @return Number of nodes (contests) in the tree (numNodes)
+     */
+    public int getNumNodes() {
+        return this.numNodes;
+    }
+
+    /** Getter method for the number of threads of the tree
+     *
+     * @return Number of threads or leaves of the tree (n)
+     */
+    public int getNumThreads() {
+        return this.n;
+    }
+
+    /** Getter method for the nodes a thread contests in
+     *
+     * @param tid Thread ID
+     * @return Nodes the thread contests in, from its leaf to the root
+     */
+    public int[] getPathNodes(int tid) {
+        return this.pathNodes[tid];
+    }
+
+    /** Getter method for the sides a thread plays in its contests
+     *
+     * @param tid Thread ID
+     * @return Sides the thread plays, from its leaf to the root
+     */
+    public int[] getPathSides(int tid) {
+        return this.pathSides[tid];
+    }
+}
@@ -10,6 +10,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -32,6 +33,16 @@ public class TournamentLockBenchmarks {
     @State(Scope.Benchmark)
     public static class HeavyContentionState {
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         */
+        @Param({"COMPACT", "PADDED", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -50,6 +61,12 @@ public class TournamentLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new TournamentLock
+            (
+                this.benchmark.getHeavyContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -57,10 +74,7 @@ public class TournamentLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
-            this.lock = new TournamentLock
-            (
-                this.benchmark.getHeavyContentionThreadNum()
-            );
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -75,7 +89,6 @@ public class TournamentLockBenchmarks {
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -84,6 +97,16 @@ public class TournamentLockBenchmarks {
     @State(Scope.Benchmark)
     public static class NoContentionState {
 
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Memory layout of the registers of the lock (see RegisterFile)
+         */
+        @Param({"COMPACT", "PADDED", "OFF_HEAP"})
+        public String layout;
+
         /** Benchmark used
          */
         IncrementBenchmark benchmark;
@@ -102,6 +125,12 @@ public class TournamentLockBenchmarks {
         public void doSetupTrial() {
             System.out.print("Setup trial: ");
             this.benchmark = new IncrementBenchmark();
+            this.lock = new TournamentLock
+            (
+                this.benchmark.getNoContentionThreadNum(),
+                SpinPolicy.fromName(this.spinPolicy),
+                RegisterFile.Layout.valueOf(this.layout)
+            );
         }
 
         /** Setup iteration variables for benchmark
@@ -109,10 +138,70 @@ public class TournamentLockBenchmarks {
         @Setup(Level.Iteration)
         public void doSetupIteration() {
             System.out.print("Setup iteration: ");
+            this.lock.reset();
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != this.benchmark.getIncrementNum()) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected " + this.benchmark.getIncrementNum() + ": ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Scaling contention benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class ScalingContentionState {
+
+        /** Number of worker threads contending for the lock
+         */
+        @Param({"8", "16", "32", "64"})
+        public int numThreads;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        TournamentLock lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
             this.lock = new TournamentLock
             (
-                this.benchmark.getNoContentionThreadNum()
+                this.numThreads,
+                SpinPolicy.fromName(this.spinPolicy)
             );
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            this.lock.reset();
             this.cFinal = -1;   // Set to negative to ensure it fails if not run
         }
 
@@ -121,13 +210,12 @@ public class TournamentLockBenchmarks {
         @TearDown(Level.Iteration)
         public void doTearDownIteration() {
             System.out.print("Teardown iteration: ");
-            if (this.cFinal != this.benchmark.getIncrementNum()) {
+            if (this.cFinal != 0) {
                 System.out.print("FAIL: Concurrency error: got " + this.cFinal
-                    + " expected " + this.benchmark.getIncrementNum() + ": ");
+                    + " expected 0: ");
             } else {
                 System.out.print("PASS: ");
             }
-            this.lock = null;
         }
     }
 
@@ -176,4 +264,21 @@ public class TournamentLockBenchmarks {
             state.lock
         );
     }
-}
\ No newline at end of file
+
+    /** Scaling contention benchmark
+     * 
+     * The benchmark is the same as the heavy contention benchmark, but it is
+     * run with 8, 16, 32 and 64 worker threads to measure how the coherence
+     * traffic of the node contests grows with the number of threads.
+     */
+    @Benchmark
+    public void scalingContention(ScalingContentionState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runIncrementBenchmark
+        (
+            state.numThreads,
+            state.benchmark.getIncrementNum(),
+            state.lock
+        );
+    }
+}
@@ -0,0 +1,143 @@
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks of timed lock attempts against ReentrantLock.tryLock
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class TryLockBenchmarks {
+
+    /** Number of lock attempts per thread
+     */
+    private static final int ATTEMPTS = 100000;
+
+    /** Time the lock is held on each successful attempt in nanoseconds
+     */
+    private static final long HOLD_NANOS = 1000;
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class TryLockState {
+
+        /** Number of worker threads
+         */
+        @Param({"2", "8"})
+        public int numThreads;
+
+        /** Timeout of each attempt in nanoseconds (0 tries without waiting)
+         */
+        @Param({"0", "1000", "10000"})
+        public long timeoutNanos;
+
+        /** Type of lock benchmarked: ReentrantLock, or an abortable lock of
+         * LockFactory in an AbortableLockAdapter
+         */
+        @Param({"ReentrantLock", "TournamentLock", "ColoredBakeryLock",
+            "OneBitLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         */
+        @Param({"BUSY_WAIT"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        java.util.concurrent.locks.Lock lock;
+
+        /** Wrapped register lock, or null for ReentrantLock
+         */
+        Lock registerLock;
+
+        /** Lost or extra updates
+         */
+        int errors;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            this.benchmark = new IncrementBenchmark();
+            if (this.lockType.equals("ReentrantLock")) {
+                this.lock = new ReentrantLock();
+            } else {
+                this.registerLock = LockFactory.create(this.lockType,
+                    this.numThreads, SpinPolicy.fromName(this.spinPolicy));
+                this.lock = new AbortableLockAdapter(
+                    (AbortableLock) this.registerLock, this.numThreads);
+            }
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            if (this.registerLock != null) {
+                this.registerLock.reset();
+            }
+            this.errors = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.errors != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.errors
+                    + " lost or extra updates: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+            System.out.print("timeouts " + this.benchmark.getTimeouts()
+                + " of " + (this.numThreads * ATTEMPTS) + ": ");
+        }
+    }
+
+    /** Timed lock attempts benchmark
+     *
+     * numThreads threads make ATTEMPTS tryLock attempts each, with a timeout
+     * of timeoutNanos, and hold the lock for HOLD_NANOS when they get it. With
+     * the short timeouts most attempts give up, so the benchmark measures the
+     * cost of withdrawing from the entry protocol as much as the cost of
+     * acquiring the lock.
+     */
+    @Benchmark
+    public void tryLock(TryLockState state) {
+        System.out.print("Running benchmark: ");
+        state.errors = state.benchmark.runTryLockBenchmark
+        (
+            state.numThreads,
+            ATTEMPTS,
+            state.timeoutNanos,
+            HOLD_NANOS,
+            state.lock
+        );
+    }
+}
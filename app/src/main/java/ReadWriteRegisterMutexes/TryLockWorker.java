@@ -0,0 +1,101 @@
+/**
+ * Worker thread class to increment a shared counter with timed lock attempts
+ */
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+/** Worker thread class to increment a shared counter with timed lock attempts
+ *
+ * Each attempt calls tryLock with a timeout. If it gets the lock, the worker
+ * increments the counter and holds the lock for a set time before unlocking,
+ * so the other workers time out while it holds it. If it gives up, it counts
+ * a timeout and tries again.
+ */
+public class TryLockWorker implements Runnable {
+    // Class variables
+    private volatile static int c; // Counter to increment
+
+    // Instance variables
+    private final int attempts;     // Number of lock attempts per worker
+    private final long timeoutNanos; // Timeout of each attempt (0: no wait)
+    private final long holdNanos;   // Time the lock is held on success
+    private final java.util.concurrent.locks.Lock lock; // Lock used
+    private int acquired;           // Successful attempts
+    private int timeouts;           // Failed attempts
+
+    /** Constructor
+     *
+     * @param attempts  Number of lock attempts per worker
+     * @param timeoutNanos  Timeout of each attempt in nanoseconds, or 0 to
+     *  try without waiting
+     * @param holdNanos Time the lock is held on success in nanoseconds
+     * @param lock  Lock using the java.util.concurrent.locks.Lock interface
+     */
+    public TryLockWorker(int attempts, long timeoutNanos, long holdNanos,
+            java.util.concurrent.locks.Lock lock) {
+        this.attempts = attempts;
+        this.timeoutNanos = timeoutNanos;
+        this.holdNanos = holdNanos;
+        this.lock = lock;
+    }
+
+    /** Get c class variable value
+     *
+     * @return Returns c class variable value
+     */
+    public int getC() {
+        return TryLockWorker.c;
+    }
+
+    /** Set c class variable value
+     *
+     * @param c   Counter to increment
+     */
+    public void setC(int c) {
+        TryLockWorker.c = c;
+    }
+
+    /** Get the number of successful attempts
+     *
+     * @return Successful attempts
+     */
+    public int getAcquired() {
+        return this.acquired;
+    }
+
+    /** Get the number of attempts that timed out
+     *
+     * @return Failed attempts
+     */
+    public int getTimeouts() {
+        return this.timeouts;
+    }
+
+    /** Try to increment the shared counter the configured number of times
+     */
+    public void run() {
+        for (int i=0; i<this.attempts; i++) {
+            boolean locked;
+            try {
+                locked = (this.timeoutNanos == 0) ? this.lock.tryLock()
+                    : this.lock.tryLock(this.timeoutNanos,
+                        TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                System.out.println("ERROR: " + e);
+                return;
+            }
+            if (!locked) {
+                this.timeouts++;
+                continue;
+            }
+            TryLockWorker.c++;
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < this.holdNanos) {
+                // Hold the lock
+            }
+            this.lock.unlock();
+            this.acquired++;
+        }
+    }
+}
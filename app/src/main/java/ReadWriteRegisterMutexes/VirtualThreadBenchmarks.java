@@ -0,0 +1,140 @@
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** Benchmarks of the locks used by virtual threads
+ *
+ * On JDKs without virtual threads the tasks run on a pool of platform threads
+ * (see VirtualThreads), and the setup says so.
+ */
+@BenchmarkMode(Mode.SingleShotTime) // Measure single run time in benchmarks
+@OutputTimeUnit(TimeUnit.NANOSECONDS) // Use nanoseconds for output
+@Fork(1) // Run 1 fork with no warmup forks
+@Warmup(iterations=5) // Run that number of warmup iterations
+@Measurement(iterations=20) // Run that number of measurement iterations
+public class VirtualThreadBenchmarks {
+
+    /** Acquisitions per invocation, split among the tasks
+     */
+    private static final int TOTAL_OPS = 1000000;
+
+    /** Benchmark state
+     */
+    @State(Scope.Benchmark)
+    public static class VirtualThreadState {
+
+        /** Number of tasks, each on its own virtual thread
+         */
+        @Param({"1000", "10000", "100000"})
+        public int numTasks;
+
+        /** Number of thread IDs of the register locks
+         */
+        @Param({"8"})
+        public int numTids;
+
+        /** Type of lock benchmarked: ReentrantLock, or a lock of LockFactory in
+         * a VirtualThreadLock
+         */
+        @Param({"ReentrantLock", "TournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"})
+        public String lockType;
+
+        /** Spin policy of the wait loops of the lock (see SpinPolicy)
+         *
+         * BUSY_WAIT can keep every carrier thread spinning when numTids is
+         * larger than the number of CPUs.
+         */
+        @Param({"VIRTUAL_AWARE"})
+        public String spinPolicy;
+
+        /** Benchmark used
+         */
+        IncrementBenchmark benchmark;
+
+        /** Lock being benchmarked
+         */
+        Object lock;
+
+        /** Shared variable final state
+         */
+        int cFinal;
+
+        /** Setup trial variables for benchmark
+         */
+        @Setup(Level.Trial)
+        public void doSetupTrial() {
+            System.out.print("Setup trial: ");
+            if (!VirtualThreads.isSupported()) {
+                System.out.print("no virtual threads, using platform threads: ");
+            }
+            this.benchmark = new IncrementBenchmark();
+            if (this.lockType.equals("ReentrantLock")) {
+                this.lock = new ReentrantLock();
+            } else {
+                this.lock = new VirtualThreadLock(LockFactory.create(
+                    this.lockType, this.numTids,
+                    SpinPolicy.fromName(this.spinPolicy)), this.numTids);
+            }
+        }
+
+        /** Setup iteration variables for benchmark
+         */
+        @Setup(Level.Iteration)
+        public void doSetupIteration() {
+            System.out.print("Setup iteration: ");
+            if (this.lock instanceof Lock) {
+                ((Lock) this.lock).reset();
+            }
+            this.cFinal = -1;   // Set to negative to ensure it fails if not run
+        }
+
+        /** Teardown iteration variables for benchmark
+         */
+        @TearDown(Level.Iteration)
+        public void doTearDownIteration() {
+            System.out.print("Teardown iteration: ");
+            if (this.cFinal != 0) {
+                System.out.print("FAIL: Concurrency error: got " + this.cFinal
+                    + " expected 0: ");
+            } else {
+                System.out.print("PASS: ");
+            }
+        }
+    }
+
+    /** Virtual thread benchmark per acquisition
+     *
+     * numTasks tasks increment or decrement the shared variable
+     * TOTAL_OPS/numTasks times each, every one on a virtual thread started for
+     * it, so the score includes starting the virtual threads and taking a
+     * thread ID for each acquisition.
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOTAL_OPS)
+    public void virtualThreads(VirtualThreadState state) {
+        System.out.print("Running benchmark: ");
+        state.cFinal = state.benchmark.runVirtualThreadBenchmark
+        (
+            state.numTasks,
+            TOTAL_OPS / state.numTasks,
+            state.lock
+        );
+    }
+}
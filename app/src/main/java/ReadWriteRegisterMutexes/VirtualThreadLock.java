@@ -0,0 +1,95 @@
+/** Lock for any number of virtual threads over a bounded thread ID space
+ */
+
+package ReadWriteRegisterMutexes;
+
+/** Lock for any number of virtual threads over a bounded thread ID space
+ *
+ * lock() takes a thread ID from a TidPool before running the entry protocol of
+ * the wrapped lock, and unlock() gives it back after the exit protocol, so
+ * the lock is sized for the number of IDs, not for the number of threads. The
+ * threads without an ID park on the pool, off their carrier threads.
+ *
+ * The wrapped lock should wait with SpinPolicy.virtualAware(), so the threads
+ * with an ID yield their carriers too. A busy waiting lock with more IDs than
+ * carrier threads can spin on every carrier while the thread it waits for has
+ * none. The lock(tid) and unlock(tid) methods pass the given ID through, and
+ * must not be mixed with IDs of the pool on the same lock.
+ */
+public class VirtualThreadLock implements Lock {
+    /** Wrapped lock
+     */
+    private final Lock lock;
+
+    /** Pool of the thread IDs
+     */
+    private final TidPool tids;
+
+    /** Thread ID of the thread holding the lock through lock()
+     *
+     * Only accessed by the thread in the critical section.
+     */
+    private int holder;
+
+    /** Constructor
+     *
+     * @param lock  Lock sized for numTids threads
+     * @param numTids   Number of thread IDs
+     */
+    public VirtualThreadLock(Lock lock, int numTids) {
+        this.lock = lock;
+        this.tids = new TidPool(numTids);
+    }
+
+    /** Lock or critical section entry protocol method of mutex, with a thread
+     * ID taken from the pool
+     */
+    public void lock() {
+        int tid = this.tids.acquire();
+        this.lock.lock(tid);
+        this.holder = tid;
+    }
+
+    /** Unlock or critical section exit protocol method of mutex, giving the
+     * thread ID back to the pool
+     *
+     * The calling thread must hold the lock through lock().
+     */
+    public void unlock() {
+        int tid = this.holder;
+        this.lock.unlock(tid);
+        this.tids.release(tid);
+    }
+
+    /** Lock or critical section entry protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void lock(int tid) {
+        this.lock.lock(tid);
+    }
+
+    /** Unlock or critical section exit protocol method of mutex
+     *
+     * @param tid Thread ID
+     */
+    public void unlock(int tid) {
+        this.lock.unlock(tid);
+    }
+
+    /** Reset the lock to its initial state
+     *
+     * No thread may hold an ID of the pool.
+     */
+    public void reset() {
+        this.lock.reset();
+    }
+
+    /** Get the pool of the thread IDs
+     *
+     * @return Pool
+     */
+    public TidPool getTids() {
+        return this.tids;
+    }
+}
@@ -0,0 +1,97 @@
+/** Access to virtual threads on the JDKs that have them
+ */
+
+package ReadWriteRegisterMutexes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** Access to virtual threads on the JDKs that have them
+ *
+ * The project builds on JDKs without virtual threads, so Thread.isVirtual and
+ * Executors.newVirtualThreadPerTaskExecutor are looked up when the class is
+ * loaded. Without them (or with them in preview and not enabled), no thread
+ * is virtual, and the executor falls back to a pool of one platform thread per
+ * CPU, which plays the part of the carrier threads.
+ */
+public final class VirtualThreads {
+    /** Thread.isVirtual, or null if the JDK does not have it
+     */
+    private static final MethodHandle IS_VIRTUAL;
+
+    /** Executors.newVirtualThreadPerTaskExecutor, or null if the JDK does not
+     * have it or virtual threads are not enabled
+     */
+    private static final MethodHandle NEW_EXECUTOR;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle isVirtual = null;
+        MethodHandle newExecutor = null;
+        try {
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual",
+                MethodType.methodType(boolean.class));
+            newExecutor = lookup.findStatic(Executors.class,
+                "newVirtualThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class));
+            // Preview JDKs throw when preview features are disabled
+            ((ExecutorService) newExecutor.invoke()).shutdown();
+        } catch (Throwable e) {
+            isVirtual = null;
+            newExecutor = null;
+        }
+        IS_VIRTUAL = isVirtual;
+        NEW_EXECUTOR = newExecutor;
+    }
+
+    /** No instances
+     */
+    private VirtualThreads() {
+    }
+
+    /** Check if the JDK runs virtual threads
+     *
+     * @return True if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /** Check if a thread is virtual
+     *
+     * @param thread    Thread
+     * @return True if the thread is a virtual thread
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Build an executor that starts a virtual thread per task
+     *
+     * Without virtual threads, the executor runs the tasks on a pool of
+     * Runtime.availableProcessors() platform threads instead.
+     *
+     * @return New executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_EXECUTOR == null) {
+            return Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
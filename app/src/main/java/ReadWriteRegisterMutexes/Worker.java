@@ -16,6 +16,8 @@ public class Worker implements Runnable {
     private int increments;      // Number of increments/decrements per worker
     private Lock lock;           // Lock using the Lock interface
     private ReentrantLock lockR; // ReentrantLock lock
+    private LeasedLock lockL;    // Lock with leased thread IDs
+    private VirtualThreadLock lockV; // Lock with pooled thread IDs
     private LockType lockType;   // Lock type
     private int tid;             // Thread ID
 
@@ -24,7 +26,9 @@ public class Worker implements Runnable {
     public enum LockType {
         NO_LOCK,            // No lock
         LOCK_INTERFACE,     // Lock interface compliant lock
-        LOCK_REENTRANT      // ReentrantLock
+        LOCK_REENTRANT,     // ReentrantLock
+        LOCK_LEASED,        // Lock interface compliant lock with leased IDs
+        LOCK_VIRTUAL        // Lock interface compliant lock with pooled IDs
     }
 
     /** Constructor for NO_LOCK lock type
@@ -70,6 +74,40 @@ public class Worker implements Runnable {
         this.lockType = LockType.LOCK_REENTRANT;
     }
 
+    /** Constructor for LOCK_LEASED lock type
+     * 
+     * The worker has no thread ID: it uses the ID the lock leases to the
+     * thread that runs it, so it can run in a thread pool.
+     * 
+     * @param add   True to increment c, False to decrement
+     * @param increments    Number of increments/decrements per worker
+     * @param lock  Lock with leased thread IDs
+     */
+    public Worker(boolean add, int increments, LeasedLock lock) {
+        this.tid = -1;
+        this.add = add;
+        this.increments = increments;
+        this.lockL = lock;
+        this.lockType = LockType.LOCK_LEASED;
+    }
+
+    /** Constructor for LOCK_VIRTUAL lock type
+     * 
+     * The worker has no thread ID: it takes one from the pool of the lock for
+     * each increment/decrement, so it can run in a virtual thread.
+     * 
+     * @param add   True to increment c, False to decrement
+     * @param increments    Number of increments/decrements per worker
+     * @param lock  Lock with pooled thread IDs
+     */
+    public Worker(boolean add, int increments, VirtualThreadLock lock) {
+        this.tid = -1;
+        this.add = add;
+        this.increments = increments;
+        this.lockV = lock;
+        this.lockType = LockType.LOCK_VIRTUAL;
+    }
+
     /** Get add instance variable value
      * 
      * @return Returns add instance variable value
@@ -110,6 +148,22 @@ public class Worker implements Runnable {
         return this.lockR;
     }
 
+    /** Get lockL instance variable value
+     * 
+     * @return Returns lockL instance variable value
+     */
+    public LeasedLock getLockL() {
+        return this.lockL;
+    }
+
+    /** Get lockV instance variable value
+     * 
+     * @return Returns lockV instance variable value
+     */
+    public VirtualThreadLock getLockV() {
+        return this.lockV;
+    }
+
     /** Get lockType instance variable value
      * 
      * @return Returns lockType instance variable value
@@ -162,6 +216,28 @@ public class Worker implements Runnable {
                         this.lockR.unlock();
                     }
                     break;
+                case LOCK_LEASED: // Lock interface with leased thread IDs
+                    if (this.add) {
+                        this.lockL.lock();
+                        Worker.c++;
+                        this.lockL.unlock();
+                    } else {
+                        this.lockL.lock();
+                        Worker.c--;
+                        this.lockL.unlock();
+                    }
+                    break;
+                case LOCK_VIRTUAL: // Lock interface with pooled thread IDs
+                    if (this.add) {
+                        this.lockV.lock();
+                        Worker.c++;
+                        this.lockV.unlock();
+                    } else {
+                        this.lockV.lock();
+                        Worker.c--;
+                        this.lockV.unlock();
+                    }
+                    break;
                 default: // Bad configuration
                     System.out.println("ERROR: T" + this.tid + " entered "
                         + "illegal state: this.lockType = " + this.lockType);
@@ -209,6 +285,22 @@ public class Worker implements Runnable {
         this.lockR = lockR;
     }
 
+    /** Set lockL instance variable value
+     * 
+     * @param lockL   Lock with leased thread IDs
+     */
+    public void setLockL(LeasedLock lockL) {
+        this.lockL = lockL;
+    }
+
+    /** Set lockV instance variable value
+     * 
+     * @param lockV   Lock with pooled thread IDs
+     */
+    public void setLockV(VirtualThreadLock lockV) {
+        this.lockV = lockV;
+    }
+
     /** Set lockType instance variable value
      * 
      * @param lockType   Lock type
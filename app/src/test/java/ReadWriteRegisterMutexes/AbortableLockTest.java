@@ -0,0 +1,135 @@
+/** AbortableLock and AbortableLockAdapter tests
+ */
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AbortableLockTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of lock attempts per thread
+     */
+    private static final int ATTEMPTS = 20000;
+
+    /** Abortable locks of LockFactory
+     */
+    private static final String[] LOCK_TYPES = {"TournamentLock",
+        "ColoredBakeryLock", "OneBitLock"};
+
+    /** Test that threads that give up withdraw from the protocol: while a
+     * thread holds the lock the others give up, and once it unlocks, the lock
+     * is free for any of them.
+     */
+    @Test
+    public void testWithdraw() {
+        for (String lockType : LOCK_TYPES) {
+            AbortableLock lock = (AbortableLock) LockFactory.create(lockType,
+                NUM_WORKERS);
+
+            lock.lock(0);
+            assertFalse(lockType, lock.tryLock(1, 0));
+            assertFalse(lockType, lock.tryLock(3, 1000000));
+            assertFalse(lockType, lock.tryLock(2, 0));
+            lock.unlock(0);
+
+            assertTrue(lockType, lock.tryLock(3, 0));
+            assertFalse(lockType, lock.tryLock(0, 0));
+            lock.unlock(3);
+            assertTrue(lockType, lock.tryLock(1, 0));
+            lock.unlock(1);
+            assertTrue(lockType, lock.tryLock(2, 0));
+            lock.unlock(2);
+        }
+    }
+
+    /** Test timed attempts with many timeouts from several threads, through the
+     * adapter.
+     */
+    @Test
+    public void testTimedAttempts() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+
+        for (String lockType : LOCK_TYPES) {
+            for (long timeout : new long[] {0, 1000, 1000000}) {
+                AbortableLock lock = (AbortableLock) LockFactory.create(
+                    lockType, NUM_WORKERS, SpinPolicy.spinThenYield());
+                int errors = benchmark.runTryLockBenchmark(NUM_WORKERS,
+                    ATTEMPTS, timeout, 100,
+                    new AbortableLockAdapter(lock, NUM_WORKERS));
+                assertEquals("Synchronization error in " + lockType
+                    + " with timeout " + timeout + ": ", 0, errors);
+            }
+        }
+    }
+
+    /** Test the adapter against the java.util.concurrent.locks.Lock contract:
+     * only the holder unlocks, other threads time out, and interrupted
+     * threads stop waiting.
+     */
+    @Test
+    public void testAdapter() throws InterruptedException {
+        AbortableLockAdapter lock = new AbortableLockAdapter(
+            (AbortableLock) LockFactory.create("OneBitLock", NUM_WORKERS),
+            NUM_WORKERS);
+        boolean[] results = new boolean[3];
+
+        lock.lock();
+        Thread other = new Thread(() -> {
+            results[0] = lock.tryLock();
+            try {
+                results[1] = lock.tryLock(1, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                results[1] = true;
+            }
+            try {
+                lock.unlock();
+            } catch (IllegalMonitorStateException e) {
+                results[2] = true;
+            }
+        });
+        other.start();
+        other.join();
+        assertFalse("tryLock succeeded while held", results[0]);
+        assertFalse("Timed tryLock succeeded while held", results[1]);
+        assertTrue("Unlock by another thread accepted", results[2]);
+
+        Thread waiter = new Thread(() -> {
+            try {
+                lock.lockInterruptibly();
+                results[0] = true;
+            } catch (InterruptedException e) {
+                results[1] = true;
+            }
+        });
+        waiter.start();
+        waiter.interrupt();
+        waiter.join();
+        assertFalse("Interrupted thread got the lock", results[0]);
+        assertTrue("Interrupted thread kept waiting", results[1]);
+
+        lock.unlock();
+        assertTrue(lock.tryLock());
+        lock.unlock();
+    }
+
+    /** Test producers and consumers waiting on the conditions of the adapter
+     */
+    @Test
+    public void testAdapterConditions() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+
+        for (String lockType : LOCK_TYPES) {
+            AbortableLock lock = (AbortableLock) LockFactory.create(lockType,
+                NUM_WORKERS, SpinPolicy.spinThenYield());
+            long errors = benchmark.runProducerConsumerBenchmark(
+                NUM_WORKERS / 2, ATTEMPTS, 4,
+                new AbortableLockAdapter(lock, NUM_WORKERS));
+            assertEquals("Items lost with " + lockType + ": ", 0, errors);
+        }
+    }
+}
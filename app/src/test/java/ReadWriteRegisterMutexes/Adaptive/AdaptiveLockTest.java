@@ -60,4 +60,22 @@ public class AdaptiveLockTest {
         System.out.println("Success: c = " + ((Worker)workers[0]).getC()
             + " expected 0");
     }
+
+    /** Test that the lock fails once every splitter is used, instead of
+     * indexing past the last one.
+     */
+    @Test
+    public void testAdaptiveLockOutOfSplitters() {
+        AdaptiveLock lock = new AdaptiveLock(1, 2);
+        for (int i = 0; i < 2; i++) {
+            lock.lock(0);
+            lock.unlock(0);
+        }
+        try {
+            lock.lock(0);
+            fail("Acquired past the last splitter");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
 }
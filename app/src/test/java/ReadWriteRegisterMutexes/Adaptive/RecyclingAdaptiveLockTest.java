@@ -0,0 +1,17 @@
+/** RecyclingAdaptiveLock tests
+ */
+package ReadWriteRegisterMutexes.Adaptive;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RecyclingAdaptiveLockTest {
+    /** Test that the ring of splitters only depends on the number of threads
+     */
+    @Test
+    public void testRecyclingAdaptiveLockRingSize() {
+        assertEquals(2, new RecyclingAdaptiveLock(1).getRingSize());
+        assertEquals(16, new RecyclingAdaptiveLock(8).getRingSize());
+        assertEquals(32, new RecyclingAdaptiveLock(9).getRingSize());
+    }
+}
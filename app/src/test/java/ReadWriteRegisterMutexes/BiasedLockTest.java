@@ -0,0 +1,94 @@
+/** BiasedLock tests
+ */
+package ReadWriteRegisterMutexes;
+
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BiasedLockTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 8;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 100000;
+
+    /** Test the BiasedLock wrapping several locks by running the increment
+     * benchmark on them, so the bias is taken and revoked over and over.
+     */
+    @Test
+    public void testBiasedLockIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        String[] lockTypes = {"TournamentLock", "ColoredBakeryLock",
+            "OneBitLock"};
+
+        for (String lockType : lockTypes) {
+            Lock inner = LockFactory.create(lockType, NUM_WORKERS,
+                SpinPolicy.spinThenYield());
+            Lock lock = new BiasedLock(inner, NUM_WORKERS,
+                SpinPolicy.spinThenYield(), 1);
+            int c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+                lock);
+            assertEquals("Synchronization error in " + lockType + ": ", 0, c);
+        }
+    }
+
+    /** Test the BiasedLock with an owner thread that does most of the
+     * increments.
+     */
+    @Test
+    public void testBiasedLockAffinity() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        int total = NUM_WORKERS * INCREMENTS;
+
+        for (int ownerPercent : new int[] {100, 90, 50}) {
+            Lock lock = new BiasedLock(new OneBitLock(NUM_WORKERS),
+                NUM_WORKERS, SpinPolicy.spinThenYield());
+            int c = benchmark.runAffinityBenchmark(NUM_WORKERS, total,
+                ownerPercent, lock);
+            assertEquals("Synchronization error with owner share "
+                + ownerPercent + ": ", total, c);
+        }
+    }
+
+    /** Test that a thread that keeps taking the lock gets the bias, skips the
+     * wrapped lock while it has it, and loses it to another thread.
+     */
+    @Test
+    public void testBiasAndRevoke() {
+        int[] innerLocks = new int[1];
+        Lock inner = new Lock() {
+            public void lock(int tid) {
+                innerLocks[0]++;
+            }
+
+            public void unlock(int tid) {
+                // Nothing to release
+            }
+
+            public void reset() {
+                innerLocks[0] = 0;
+            }
+        };
+        BiasedLock lock = new BiasedLock(inner, 4, SpinPolicy.busyWait(), 3);
+
+        assertEquals(-1, lock.getOwner());
+        for (int i = 0; i < 10; i++) {
+            lock.lock(2);
+            lock.unlock(2);
+        }
+        assertEquals(2, lock.getOwner());
+        assertEquals(3, innerLocks[0]);
+
+        lock.lock(1);
+        assertEquals(-1, lock.getOwner());
+        lock.unlock(1);
+        assertEquals(4, innerLocks[0]);
+
+        lock.reset();
+        assertEquals(-1, lock.getOwner());
+        assertEquals(0, innerLocks[0]);
+    }
+}
@@ -0,0 +1,30 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ActiveSetTest {
+    /** Test that processes are added to and removed from the right bit of the
+     * right word.
+     */
+    @Test
+    public void testAddRemove(){
+        ActiveSet set = new ActiveSet(130);
+        assertEquals("Wrong number of words: ", 3, set.numWords());
+
+        set.add(0);
+        set.add(63);
+        set.add(64);
+        set.add(129);
+        assertEquals("Wrong word 0: ", 0x8000000000000001L, set.word(0));
+        assertEquals("Wrong word 1: ", 1L, set.word(1));
+        assertEquals("Wrong word 2: ", 2L, set.word(2));
+
+        set.remove(63);
+        set.remove(129);
+        assertEquals("Wrong word 0: ", 1L, set.word(0));
+        assertEquals("Wrong word 1: ", 1L, set.word(1));
+        assertEquals("Wrong word 2: ", 0L, set.word(2));
+    }
+}
@@ -0,0 +1,57 @@
+package ReadWriteRegisterMutexes.ColoredBakery;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MaxTreeTest {
+    /** Test that the root of the tree follows the maximum value when values
+     * are raised and lowered.
+     */
+    @Test
+    public void testMax(){
+        MaxTree tree = new MaxTree(5);
+        assertEquals("Wrong initial max: ", 0, tree.max());
+
+        tree.update(0, 3);
+        tree.update(4, 7);
+        tree.update(2, 5);
+        assertEquals("Wrong max: ", 7, tree.max());
+
+        tree.update(4, 0);
+        assertEquals("Wrong max after lowering: ", 5, tree.max());
+
+        tree.update(2, 0);
+        tree.update(0, 0);
+        assertEquals("Wrong max after clearing: ", 0, tree.max());
+    }
+
+    /** Test that concurrent updates to different leaves are all reflected in
+     * the root once the updates finish.
+     */
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        final int numThreads = 8;
+        final MaxTree tree = new MaxTree(numThreads);
+        Thread[] threads = new Thread[numThreads];
+
+        for (int i = 0; i < numThreads; i++) {
+            final int pid = i;
+            threads[i] = new Thread(() -> {
+                for (int k = 1; k <= 10000; k++) {
+                    tree.update(pid, k);
+                    tree.update(pid, 0);
+                }
+                tree.update(pid, pid + 1);
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals("Lost update: ", numThreads, tree.max());
+    }
+}
@@ -0,0 +1,100 @@
+/** FastPathLock tests
+ */
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FastPathLockTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 8;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 100000;
+
+    /** Test the FastPathLock wrapping several locks by running the increment
+     * benchmark on them, so threads take both the fast and the contended path.
+     */
+    @Test
+    public void testFastPathLockIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        String[] lockTypes = {"TournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"};
+
+        for (String lockType : lockTypes) {
+            Lock inner = LockFactory.create(lockType, NUM_WORKERS,
+                SpinPolicy.spinThenYield());
+            Lock lock = new FastPathLock(inner, NUM_WORKERS,
+                SpinPolicy.spinThenYield());
+            int c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+                lock);
+            assertEquals("Synchronization error in " + lockType + ": ", 0, c);
+        }
+    }
+
+    /** Test that a single thread never uses the wrapped lock, whatever thread
+     * ID it uses.
+     */
+    @Test
+    public void testUncontendedSkipsWrappedLock() {
+        Lock inner = new Lock() {
+            public void lock(int tid) {
+                fail("Wrapped lock used without contention by T" + tid);
+            }
+
+            public void unlock(int tid) {
+                fail("Wrapped lock used without contention by T" + tid);
+            }
+
+            public void reset() {
+                // Nothing to reset
+            }
+        };
+        FastPathLock lock = new FastPathLock(inner, 64);
+
+        for (int i = 0; i < 1000; i++) {
+            int tid = i % 64;
+            lock.lock(tid);
+            lock.unlock(tid);
+        }
+        lock.reset();
+        lock.lock(63);
+        lock.unlock(63);
+    }
+
+    /** Test that a thread on the slow path gets in while another thread keeps
+     * winning the fast path, since the fast winner gives it the turn.
+     */
+    @Test
+    public void testSlowThreadNotStarved() throws InterruptedException {
+        Lock inner = LockFactory.create("ColoredBakeryLock", 2,
+            SpinPolicy.spinThenYield());
+        FastPathLock lock = new FastPathLock(inner, 2,
+            SpinPolicy.spinThenYield());
+        AtomicBoolean slowDone = new AtomicBoolean(false);
+
+        // Thread 0 holds the lock, so thread 1 takes the slow path
+        lock.lock(0);
+        Thread slow = new Thread(() -> {
+            lock.lock(1);
+            lock.unlock(1);
+            slowDone.set(true);
+        });
+        slow.start();
+        Thread.sleep(100);
+
+        // Thread 0 keeps going through the fast path
+        long deadline = System.nanoTime() + 10000000000L;
+        while (!slowDone.get() && System.nanoTime() < deadline) {
+            lock.unlock(0);
+            lock.lock(0);
+        }
+        lock.unlock(0);
+        slow.join(10000);
+        assertTrue("Slow thread starved behind the fast path", slowDone.get());
+    }
+}
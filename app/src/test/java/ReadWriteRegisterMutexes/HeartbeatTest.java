@@ -0,0 +1,61 @@
+/** Heartbeat tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HeartbeatTest {
+    /** Test that a thread is only stalled after its timestamp gets older than
+     * the stall time, and never before it publishes one.
+     */
+    @Test
+    public void testIsStalled() {
+        Heartbeat heartbeat = new Heartbeat(4);
+        long now = System.nanoTime();
+        assertFalse(heartbeat.isStalled(2, now, 1));
+
+        long t = heartbeat.beat(2);
+        assertEquals(t, heartbeat.get(2));
+        assertEquals(0, heartbeat.get(1));
+        assertFalse(heartbeat.isStalled(2, t + 1000, 1000));
+        assertTrue(heartbeat.isStalled(2, t + 1001, 1000));
+    }
+
+    /** Test that the holder is published on acquisition, withdrawn on
+     * release, and stalled like any other thread.
+     */
+    @Test
+    public void testHolder() {
+        Heartbeat heartbeat = new Heartbeat(4);
+        assertEquals(Heartbeat.NO_HOLDER, heartbeat.getHolder());
+        assertFalse(heartbeat.isHolderStalled(System.nanoTime(), 1));
+
+        long t = heartbeat.acquired(3);
+        assertEquals(3, heartbeat.getHolder());
+        assertEquals(t, heartbeat.get(3));
+        assertFalse(heartbeat.isHolderStalled(t + 1000, 1000));
+        assertTrue(heartbeat.isHolderStalled(t + 1001, 1000));
+
+        heartbeat.released();
+        assertEquals(Heartbeat.NO_HOLDER, heartbeat.getHolder());
+        assertFalse(heartbeat.isHolderStalled(t + 1001, 1000));
+    }
+
+    /** Test that clear forgets all the timestamps and the holder
+     */
+    @Test
+    public void testClear() {
+        Heartbeat heartbeat = new Heartbeat(4);
+        for (int i = 0; i < 4; i++) {
+            heartbeat.beat(i);
+        }
+        heartbeat.acquired(1);
+        heartbeat.clear();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, heartbeat.get(i));
+            assertFalse(heartbeat.isStalled(i, System.nanoTime(), 1));
+        }
+        assertEquals(Heartbeat.NO_HOLDER, heartbeat.getHolder());
+    }
+}
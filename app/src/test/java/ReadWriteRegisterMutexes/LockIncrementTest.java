@@ -0,0 +1,108 @@
+/** Increment tests of the lock implementations
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+import ReadWriteRegisterMutexes.Adaptive.RecyclingAdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.AdaptiveColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.MaxTreeColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.PackedColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.TimePublishedColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.CompactOneBitLock;
+import ReadWriteRegisterMutexes.OneBit.RotatingOneBitLock;
+import ReadWriteRegisterMutexes.Tournament.FlatTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.KesselsTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.TimePublishedTournamentLock;
+
+@RunWith(Parameterized.class)
+public class LockIncrementTest {
+    /** Name of the test case
+     */
+    @Parameter(0)
+    public String name;
+
+    /** Number of threads
+     */
+    @Parameter(1)
+    public int numWorkers;
+
+    /** Number of increments or decrements per thread
+     */
+    @Parameter(2)
+    public int increments;
+
+    /** Build the lock for the number of threads
+     */
+    @Parameter(3)
+    public IntFunction<Lock> factory;
+
+    /** Locks tested, with the number of threads and of increments per thread
+     *
+     * @return Test cases
+     */
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> locks() {
+        return Arrays.asList(new Object[][] {
+            {"FlatTournamentLock", 8, 1000000,
+                (IntFunction<Lock>) FlatTournamentLock::new},
+            // Not a power of 2, so the tournament tree is ragged
+            {"FlatTournamentLock ragged", 6, 1000000,
+                (IntFunction<Lock>) FlatTournamentLock::new},
+            {"KesselsTournamentLock", 8, 1000000,
+                (IntFunction<Lock>) KesselsTournamentLock::new},
+            {"KesselsTournamentLock ragged", 6, 1000000,
+                (IntFunction<Lock>) KesselsTournamentLock::new},
+            {"PackedColoredBakeryLock", 4, 10000,
+                (IntFunction<Lock>) PackedColoredBakeryLock::new},
+            {"AdaptiveColoredBakeryLock", 4, 10000,
+                (IntFunction<Lock>) AdaptiveColoredBakeryLock::new},
+            // Most of the slots are never active
+            {"AdaptiveColoredBakeryLock with 256 slots", 4, 10000,
+                (IntFunction<Lock>) n -> new AdaptiveColoredBakeryLock(256)},
+            {"MaxTreeColoredBakeryLock", 4, 10000,
+                (IntFunction<Lock>) MaxTreeColoredBakeryLock::new},
+            {"CompactOneBitLock", 8, 1000000,
+                (IntFunction<Lock>) CompactOneBitLock::new},
+            {"RecyclingAdaptiveLock", 8, 5000000,
+                (IntFunction<Lock>) RecyclingAdaptiveLock::new},
+            {"TimePublishedTournamentLock", 8, 1000000,
+                (IntFunction<Lock>) TimePublishedTournamentLock::new},
+            // Ragged tree, and a stall time of 1 microsecond, so opponents
+            // are regularly taken as stalled and the yield path is exercised
+            {"TimePublishedTournamentLock stalled", 6, 1000000,
+                (IntFunction<Lock>) n -> new TimePublishedTournamentLock(n,
+                    SpinPolicy.busyWait(), 1000)},
+            {"TimePublishedColoredBakeryLock", 4, 10000,
+                (IntFunction<Lock>) TimePublishedColoredBakeryLock::new},
+            // Predecessors are regularly taken as stalled
+            {"TimePublishedColoredBakeryLock stalled", 8, 10000,
+                (IntFunction<Lock>) n -> new TimePublishedColoredBakeryLock(n,
+                    SpinPolicy.busyWait(), 1000)},
+            {"RotatingOneBitLock", 8, 1000000,
+                (IntFunction<Lock>) RotatingOneBitLock::new},
+        });
+    }
+
+    /** Test the lock by incrementing the c shared variable in the even threads
+     * while the odd threads concurrently decrement it as many times. There is
+     * no guarantee of the atomicity of the increments or decrements except if
+     * the lock works.
+     */
+    @Test
+    public void testIncrement() {
+        Lock lock = this.factory.apply(this.numWorkers);
+        int c = new IncrementBenchmark().runIncrementBenchmark(this.numWorkers,
+            this.increments, lock);
+        assertEquals("Synchronization error in " + this.name + ": ", 0, c);
+    }
+}
@@ -0,0 +1,100 @@
+/** Lock reset tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ReadWriteRegisterMutexes.Adaptive.AdaptiveLock;
+import ReadWriteRegisterMutexes.Adaptive.RecyclingAdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.AdaptiveColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.ColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.MaxTreeColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.PackedColoredBakeryLock;
+import ReadWriteRegisterMutexes.ColoredBakery.TimePublishedColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.CompactOneBitLock;
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import ReadWriteRegisterMutexes.OneBit.RotatingOneBitLock;
+import ReadWriteRegisterMutexes.Tournament.FlatTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.KesselsTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.TimePublishedTournamentLock;
+import ReadWriteRegisterMutexes.Tournament.TournamentLock;
+
+public class LockResetTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of increments per thread in each run
+     */
+    private static final int INCREMENTS = 1000;
+
+    /** Build one instance of every lock implementation
+     *
+     * @return Locks sized for NUM_WORKERS threads
+     */
+    private static Lock[] allLocks() {
+        return new Lock[] {
+            new TournamentLock(NUM_WORKERS),
+            new FlatTournamentLock(NUM_WORKERS),
+            new KesselsTournamentLock(NUM_WORKERS),
+            new TimePublishedTournamentLock(NUM_WORKERS),
+            new ColoredBakeryLock(NUM_WORKERS),
+            new PackedColoredBakeryLock(NUM_WORKERS),
+            new AdaptiveColoredBakeryLock(NUM_WORKERS),
+            new MaxTreeColoredBakeryLock(NUM_WORKERS),
+            new TimePublishedColoredBakeryLock(NUM_WORKERS),
+            new OneBitLock(NUM_WORKERS),
+            new RotatingOneBitLock(NUM_WORKERS),
+            new CompactOneBitLock(NUM_WORKERS),
+            new AdaptiveLock(NUM_WORKERS, 1000000),
+            new RecyclingAdaptiveLock(NUM_WORKERS),
+            new LatencyRecordingLock(new TournamentLock(NUM_WORKERS),
+                NUM_WORKERS),
+            new FastPathLock(new OneBitLock(NUM_WORKERS), NUM_WORKERS)
+        };
+    }
+
+    /** Test that every lock can be reused after a reset by running the
+     * increment benchmark several times on the same instance.
+     */
+    @Test
+    public void testReuseAfterReset() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+
+        for (Lock lock : allLocks()) {
+            String name = lock.getClass().getSimpleName();
+            for (int run = 0; run < 3; run++) {
+                lock.reset();
+                int c = benchmark.runIncrementBenchmark(NUM_WORKERS,
+                    INCREMENTS, lock);
+                assertEquals("Synchronization error in " + name + " run "
+                    + run + ": ", 0, c);
+            }
+        }
+    }
+
+    /** Test that reset releases a lock that a terminated thread never
+     * unlocked, so the state left by a previous run does not leak.
+     */
+    @Test
+    public void testResetReleasesAbandonedLock() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+
+        for (Lock lock : allLocks()) {
+            String name = lock.getClass().getSimpleName();
+            Thread holder = new Thread(() -> lock.lock(NUM_WORKERS - 1));
+            holder.start();
+            try {
+                holder.join();
+            } catch (InterruptedException e) {
+                assertTrue("Exception caught for " + name + ": " + e, false);
+            }
+
+            lock.reset();
+            int c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+                lock);
+            assertEquals("Synchronization error in " + name + ": ", 0, c);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/** MappedRegisterFactory, ProcessSlots and InterProcessBenchmark tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedRegisterFactoryTest {
+    /** Size of the mapped files in bytes
+     */
+    private static final int MAPPED_BYTES = 1 << 20;
+
+    /** Test that two mappings of the same file build the same register files,
+     * so the writes through one are read through the other.
+     */
+    @Test
+    public void testSharedRegisters() throws Exception {
+        Path file = Files.createTempFile("registers", ".test");
+        try (MappedRegisterFactory a = new MappedRegisterFactory(file,
+                MAPPED_BYTES);
+             MappedRegisterFactory b = new MappedRegisterFactory(file,
+                MAPPED_BYTES)) {
+            RegisterFile a1 = a.create(3);
+            RegisterFile a2 = a.create(5);
+            RegisterFile b1 = b.create(3);
+            RegisterFile b2 = b.create(5);
+
+            a1.setLong(2, 42);
+            a2.setBoolean(0, true);
+            b2.set(4, -1);
+            assertEquals(42, b1.getLong(2));
+            assertTrue(b2.getBoolean(0));
+            assertEquals(-1, a2.get(4));
+            assertEquals(0, b1.getLong(0));
+
+            // Each register file starts in a cache line of its own
+            assertEquals(MAPPED_BYTES - 128, a.getFreeBytes());
+
+            // Int registers take 4 bytes: 20 of them fit in 2 cache lines
+            RegisterFile a3 = a.createInt(20);
+            RegisterFile b3 = b.createInt(20);
+            a3.set(19, 7);
+            assertEquals(7, b3.get(19));
+            assertEquals(MAPPED_BYTES - 256, a.getFreeBytes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Test that the process slots are claimed once, released, and give
+     * distinct thread IDs.
+     */
+    @Test
+    public void testProcessSlots() throws Exception {
+        Path file = Files.createTempFile("slots", ".test");
+        try (MappedRegisterFactory registers = new MappedRegisterFactory(file,
+                MAPPED_BYTES)) {
+            ProcessSlots slots = new ProcessSlots(registers.create(3), 2);
+            assertEquals(6, slots.getNumThreads());
+
+            int s0 = slots.claim();
+            int s1 = slots.claim();
+            int s2 = slots.claim();
+            assertEquals(0, s0);
+            assertEquals(1, s1);
+            assertEquals(2, s2);
+            assertEquals(3, slots.getNumClaimed());
+            assertEquals(3, slots.getTid(s1, 1));
+            try {
+                slots.claim();
+                fail("Claimed a slot when all were taken");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+
+            slots.release(s1);
+            assertEquals(2, slots.getNumClaimed());
+            assertEquals(s1, slots.claim());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Test that a slot owned by a process that is no longer alive can be
+     * claimed again.
+     */
+    @Test
+    public void testDeadOwnerSlot() throws Exception {
+        Process process = new ProcessBuilder("true").start();
+        process.waitFor();
+        long deadPid = process.pid();
+
+        Path file = Files.createTempFile("slots", ".test");
+        try (MappedRegisterFactory registers = new MappedRegisterFactory(file,
+                MAPPED_BYTES)) {
+            OffHeapRegisterFile owners = registers.create(1);
+            owners.setLong(0, deadPid);
+            ProcessSlots slots = new ProcessSlots(owners, 1);
+            assertEquals(0, slots.claim());
+            assertEquals(ProcessHandle.current().pid(), owners.getLong(0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Test the register file locks and the FileChannel.lock baseline shared
+     * by forked JVMs.
+     */
+    @Test
+    public void testInterProcessBenchmark() throws Exception {
+        String[] lockTypes = {InterProcessBenchmark.FILE_CHANNEL_LOCK,
+            "TournamentLock", "ColoredBakeryLock", "OneBitLock",
+            "AdaptiveLock"};
+        for (String lockType : lockTypes) {
+            long c = InterProcessBenchmark.run(lockType, 2, 5000,
+                "SPIN_THEN_YIELD");
+            assertEquals("Synchronization error in " + lockType + ": ", 10000,
+                c);
+        }
+    }
+}
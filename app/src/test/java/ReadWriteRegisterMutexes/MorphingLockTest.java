@@ -0,0 +1,84 @@
+/** MorphingLock tests
+ */
+package ReadWriteRegisterMutexes;
+
+import ReadWriteRegisterMutexes.Adaptive.RecyclingAdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.ColoredBakeryLock;
+import ReadWriteRegisterMutexes.Tournament.TournamentLock;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MorphingLockTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 8;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 20000;
+
+    /** Build a MorphingLock that samples on every acquisition
+     *
+     * @param high  Lock used with high contention
+     * @return New lock
+     */
+    private static MorphingLock eagerLock(Lock high) {
+        return new MorphingLock(
+            new RecyclingAdaptiveLock(NUM_WORKERS, SpinPolicy.spinThenYield()),
+            high, NUM_WORKERS, 1, 0.5, 0.1);
+    }
+
+    /** Test the MorphingLock with the phase change benchmark, with a lock that
+     * samples on every acquisition so it switches over and over.
+     */
+    @Test
+    public void testPhaseChange() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        Lock[] highLocks = {
+            new TournamentLock(NUM_WORKERS, SpinPolicy.spinThenYield()),
+            new ColoredBakeryLock(NUM_WORKERS, SpinPolicy.spinThenYield())
+        };
+
+        for (Lock high : highLocks) {
+            MorphingLock lock = eagerLock(high);
+            int errors = benchmark.runPhaseChangeBenchmark(NUM_WORKERS, 4,
+                INCREMENTS, lock);
+            assertEquals("Synchronization error with "
+                + high.getClass().getSimpleName() + ": ", 0, errors);
+            assertTrue("No mode switch with "
+                + high.getClass().getSimpleName(), lock.getSwitches() > 0);
+        }
+    }
+
+    /** Test that a single thread brings the lock back to the low contention
+     * mode, and that reset does too.
+     */
+    @Test
+    public void testBackToLow() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        MorphingLock lock = eagerLock(
+            new TournamentLock(NUM_WORKERS, SpinPolicy.spinThenYield()));
+
+        assertEquals(MorphingLock.LOW, lock.getMode());
+        assertEquals(0, benchmark.runIncrementBenchmark(NUM_WORKERS,
+            INCREMENTS, lock));
+        assertEquals(INCREMENTS, benchmark.runIncrementBenchmark(1,
+            INCREMENTS, lock));
+        assertEquals(MorphingLock.LOW, lock.getMode());
+
+        lock.reset();
+        assertEquals(MorphingLock.LOW, lock.getMode());
+        assertEquals(0, lock.getSwitches());
+    }
+
+    /** Test that the factory lock keeps the count with the default settings.
+     */
+    @Test
+    public void testDefaultIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        Lock lock = LockFactory.create("MorphingLock", NUM_WORKERS,
+            SpinPolicy.spinThenYield());
+        int c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS, lock);
+        assertEquals("Synchronization error: ", 0, c);
+    }
+}
@@ -0,0 +1,55 @@
+/** CompactOneBitLock tests
+ */
+package ReadWriteRegisterMutexes.OneBit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.lang.Runnable;
+import ReadWriteRegisterMutexes.Worker;
+
+public class CompactOneBitLockTest {
+    /** Test the CompactOneBitLock with threads whose bits are at both ends of
+     * different words, in a lock sized for more threads than are used.
+     */
+    @Test
+    public void testCompactOneBitLockWordBoundaries() {
+        int[] tids = {0, 63, 64, 127, 128, 199};
+        int numWorkers = tids.length;
+        int increments = 100000;
+        CompactOneBitLock lock = new CompactOneBitLock(200);
+        Runnable[] workers = new Runnable[numWorkers];
+        Thread[] threads = new Thread[numWorkers];
+
+        // Initialize workers
+        for (int i=0; i< numWorkers; i++) {
+            // Even workers add, odd workers subtract
+            workers[i] = new Worker(tids[i], (((i%2) == 0) ? true : false),
+                    increments, lock);
+        }
+
+        // Initialize the shared counter c
+        ((Worker)workers[0]).setC(0);
+
+        // Spawn threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i] = new Thread(workers[i], "T" + tids[i]);
+        }
+
+        // Start threads
+        for (int i=0; i<numWorkers; i++) {
+            threads[i].start();
+        }
+
+        // Wait for threads to terminate
+        for (int i=0; i<numWorkers; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                assertTrue("Exception caught for T" + tids[i] + ": " + e, false);
+            }
+        }
+
+        // Check we got the right result
+        assertEquals("Synchronization error: ", 0, ((Worker)workers[0]).getC());
+    }
+}
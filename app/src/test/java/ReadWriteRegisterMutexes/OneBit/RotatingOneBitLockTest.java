@@ -0,0 +1,114 @@
+/** RotatingOneBitLock tests
+ */
+package ReadWriteRegisterMutexes.OneBit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ReadWriteRegisterMutexes.SpinPolicy;
+
+public class RotatingOneBitLockTest {
+    /** Spin policy that counts the wait loops and spins of every thread, and
+     * holds one thread in its wait loop until it is let go
+     */
+    private static class GatedPolicy implements SpinPolicy {
+        /** Number of wait loops entered by each thread
+         */
+        final Map<Thread, AtomicInteger> waits = new ConcurrentHashMap<>();
+
+        /** Number of spins of each thread
+         */
+        final Map<Thread, AtomicInteger> spins = new ConcurrentHashMap<>();
+
+        /** Thread held in its wait loop, or null
+         */
+        volatile Thread gated;
+
+        public void spin(int tid, int spins) {
+            Thread me = Thread.currentThread();
+            if (spins == 0) {
+                count(this.waits, me).incrementAndGet();
+            }
+            count(this.spins, me).incrementAndGet();
+            while (this.gated == me) {
+                Thread.yield();
+            }
+            Thread.yield();
+        }
+
+        /** Get the counter of a thread
+         *
+         * @param counts    Counters
+         * @param thread    Thread
+         * @return Counter of the thread, created at 0 if it had none
+         */
+        static AtomicInteger count(Map<Thread, AtomicInteger> counts,
+                Thread thread) {
+            return counts.computeIfAbsent(thread, t -> new AtomicInteger());
+        }
+    }
+
+    /** Wait until a thread has spun a number of times
+     *
+     * @param policy    Policy of the lock
+     * @param thread    Thread
+     * @param spins     Number of spins to wait for
+     */
+    private static void awaitSpins(GatedPolicy policy, Thread thread,
+            int spins) throws InterruptedException {
+        while (GatedPolicy.count(policy.spins, thread).get() < spins) {
+            Thread.sleep(1);
+        }
+    }
+
+    /** Test that a waiting thread with the highest priority keeps its bit set
+     * when the turn moves to a thread that it still outranks.
+     *
+     * With 4 threads and turn 1, thread 3 holds the lock, thread 2 waits for
+     * it with its bit set, and thread 1, the highest priority, waits for
+     * thread 2. The exit of thread 3 moves the turn to 0, and thread 2 is held
+     * in its wait loop. Thread 1 still outranks thread 2 with turn 0, so it
+     * must keep waiting in the same loop instead of starting a new attempt.
+     */
+    @Test
+    public void testRotatingOneBitLockKeepsPriority()
+            throws InterruptedException {
+        GatedPolicy policy = new GatedPolicy();
+        RotatingOneBitLock lock = new RotatingOneBitLock(4, policy);
+
+        // The exit of thread 0 gives the turn to thread 1
+        lock.lock(0);
+        lock.unlock(0);
+        // Thread 3 enters while the others are not trying
+        lock.lock(3);
+
+        Thread t2 = new Thread(() -> {
+            lock.lock(2);
+            lock.unlock(2);
+        }, "T2");
+        policy.gated = t2;
+        t2.start();
+        awaitSpins(policy, t2, 1);
+
+        Thread t1 = new Thread(() -> {
+            lock.lock(1);
+            lock.unlock(1);
+        }, "T1");
+        t1.start();
+        awaitSpins(policy, t1, 1);
+
+        // Thread 1 sees the new turn while thread 2 still has its bit set
+        lock.unlock(3);
+        awaitSpins(policy, t1, GatedPolicy.count(policy.spins, t1).get() + 100);
+        policy.gated = null;
+
+        t2.join();
+        t1.join();
+        assertEquals("Thread 1 started a new attempt: ", 1,
+            GatedPolicy.count(policy.waits, t1).get());
+    }
+}
@@ -0,0 +1,243 @@
+/** ReentrantRegisterLock tests
+ */
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ReentrantRegisterLockTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 20000;
+
+    /** Test that a thread enters again without the wrapped lock, and releases
+     * it with the last unlock.
+     */
+    @Test
+    public void testReentry() {
+        int[] innerLocks = new int[2];
+        AbortableLock inner = new AbortableLock() {
+            public void lock(int tid) {
+                innerLocks[0]++;
+            }
+
+            public boolean tryLock(int tid, long nanos) {
+                innerLocks[0]++;
+                return true;
+            }
+
+            public void unlock(int tid) {
+                innerLocks[1]++;
+            }
+
+            public void reset() {
+                innerLocks[0] = 0;
+                innerLocks[1] = 0;
+            }
+        };
+        ReentrantRegisterLock lock = new ReentrantRegisterLock(inner,
+            NUM_WORKERS);
+
+        for (int i = 0; i < 3; i++) {
+            lock.lock(2);
+        }
+        assertEquals(3, lock.getHoldCount(2));
+        assertEquals(1, innerLocks[0]);
+        lock.unlock(2);
+        lock.unlock(2);
+        assertEquals(0, innerLocks[1]);
+        lock.unlock(2);
+        assertEquals(1, innerLocks[1]);
+        assertEquals(0, lock.getHoldCount(2));
+
+        lock.lock();
+        lock.lock();
+        assertTrue(lock.isHeldByCurrentThread());
+        lock.unlock();
+        lock.unlock();
+        assertFalse(lock.isHeldByCurrentThread());
+        assertEquals(2, innerLocks[0]);
+        try {
+            lock.unlock();
+            fail("Unlock of a free lock accepted");
+        } catch (IllegalMonitorStateException e) {
+            // Expected
+        }
+    }
+
+    /** Test the increment benchmark through the lock with thread IDs, with
+     * nested acquisitions.
+     */
+    @Test
+    public void testIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        ReentrantRegisterLock lock = new ReentrantRegisterLock(
+            new OneBitLock(NUM_WORKERS, SpinPolicy.spinThenYield()),
+            NUM_WORKERS);
+        Lock nested = new Lock() {
+            public void lock(int tid) {
+                lock.lock(tid);
+                lock.lock(tid);
+            }
+
+            public void unlock(int tid) {
+                lock.unlock(tid);
+                lock.unlock(tid);
+            }
+
+            public void reset() {
+                lock.reset();
+            }
+        };
+        int c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+            nested);
+        assertEquals("Synchronization error: ", 0, c);
+    }
+
+    /** Test producers and consumers waiting on the conditions of the lock,
+     * over several wrapped locks.
+     */
+    @Test
+    public void testProducerConsumer() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        String[] lockTypes = {"TournamentLock", "ColoredBakeryLock",
+            "OneBitLock"};
+
+        for (String lockType : lockTypes) {
+            ReentrantRegisterLock lock = new ReentrantRegisterLock(
+                (AbortableLock) LockFactory.create(lockType, NUM_WORKERS,
+                    SpinPolicy.spinThenYield()), NUM_WORKERS);
+            long errors = benchmark.runProducerConsumerBenchmark(
+                NUM_WORKERS / 2, INCREMENTS, 4, lock);
+            assertEquals("Items lost with " + lockType + ": ", 0, errors);
+        }
+    }
+
+    /** Test that await releases every hold and gets them back, and that timed
+     * and interrupted waits leave the queue.
+     */
+    @Test
+    public void testAwait() throws InterruptedException {
+        ReentrantRegisterLock lock = new ReentrantRegisterLock(
+            new OneBitLock(NUM_WORKERS, SpinPolicy.spinThenYield()),
+            NUM_WORKERS);
+        Condition condition = lock.newCondition();
+        boolean[] results = new boolean[2];
+
+        lock.lock();
+        lock.lock();
+        assertFalse(condition.await(1, TimeUnit.MILLISECONDS));
+        assertEquals(2, lock.getHoldCount(lock.getRegistry().slot()));
+
+        // Another thread can take the lock while we wait
+        Thread signaller = new Thread(() -> {
+            lock.lock();
+            results[0] = true;
+            condition.signal();
+            lock.unlock();
+        });
+        signaller.start();
+        while (!results[0]) {
+            condition.await(1, TimeUnit.MILLISECONDS);
+        }
+        signaller.join();
+        assertEquals(2, lock.getHoldCount(lock.getRegistry().slot()));
+        lock.unlock();
+        lock.unlock();
+
+        Thread waiter = new Thread(() -> {
+            lock.lock();
+            try {
+                condition.await();
+            } catch (InterruptedException e) {
+                results[1] = lock.isHeldByCurrentThread();
+            } finally {
+                lock.unlock();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        waiter.interrupt();
+        waiter.join();
+        assertTrue("Interrupted waiter without the lock", results[1]);
+
+        // The interrupted waiter left the queue, so nothing is signalled
+        lock.lock();
+        condition.signalAll();
+        lock.unlock();
+    }
+
+    /** Test that a waiter that timed out does not take a signal meant for
+     * another waiter.
+     *
+     * The timed waiter is first in the queue, and times out while the main
+     * thread holds the lock, so it cannot take the lock back yet. The single
+     * signal must go to the untimed waiter behind it.
+     */
+    @Test
+    public void testTimedOutWaiterSkipped() throws InterruptedException {
+        ReentrantRegisterLock lock = new ReentrantRegisterLock(
+            new OneBitLock(NUM_WORKERS, SpinPolicy.spinThenYield()),
+            NUM_WORKERS);
+        Condition condition = lock.newCondition();
+        boolean[] results = new boolean[2];
+
+        Thread timed = new Thread(() -> {
+            lock.lock();
+            try {
+                results[0] = condition.await(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Not interrupted
+            } finally {
+                lock.unlock();
+            }
+        });
+        Thread untimed = new Thread(() -> {
+            lock.lock();
+            try {
+                condition.await();
+                results[1] = true;
+            } catch (InterruptedException e) {
+                // Stopped by the test if it was not signalled
+            } finally {
+                lock.unlock();
+            }
+        });
+
+        timed.start();
+        while (timed.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        untimed.start();
+        while (untimed.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        lock.lock();
+        while (timed.getState() == Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);  // The timed waiter tries to take the lock back
+        condition.signal();
+        lock.unlock();
+
+        untimed.join(10000);
+        boolean signalled = !untimed.isAlive();
+        untimed.interrupt();
+        untimed.join();
+        timed.join();
+        assertTrue("Signal taken by the timed out waiter", signalled);
+        assertFalse("Timed out waiter reported a signal", results[0]);
+        assertTrue(results[1]);
+    }
+}
@@ -0,0 +1,151 @@
+/** RegisterFile tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ReadWriteRegisterMutexes.Adaptive.AdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.ColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import ReadWriteRegisterMutexes.Tournament.TournamentLock;
+
+public class RegisterFileTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 20000;
+
+    /** Test that the registers of every layout hold their own values as
+     * booleans, ints and longs, and that clear sets all of them to 0.
+     */
+    @Test
+    public void testReadWrite() {
+        for (RegisterFile.Layout layout : RegisterFile.Layout.values()) {
+            RegisterFile registers = layout.create(10);
+            assertEquals(10, registers.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(layout + ": ", 0, registers.getLong(i));
+            }
+
+            registers.setLong(0, Long.MIN_VALUE);
+            registers.set(1, -7);
+            registers.setBoolean(2, true);
+            registers.setLong(9, Long.MAX_VALUE);
+            assertEquals(layout + ": ", Long.MIN_VALUE, registers.getLong(0));
+            assertEquals(layout + ": ", -7, registers.get(1));
+            assertTrue(layout + ": ", registers.getBoolean(2));
+            assertFalse(layout + ": ", registers.getBoolean(3));
+            assertEquals(layout + ": ", Long.MAX_VALUE, registers.getLong(9));
+
+            registers.setBoolean(2, false);
+            assertEquals(layout + ": ", 0, registers.get(2));
+
+            registers.clear();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(layout + ": ", 0, registers.getLong(i));
+            }
+        }
+    }
+
+    /** Test that the int registers of every layout hold their own values,
+     * that the dense layouts store them in 4 bytes and reject longs that do
+     * not fit, and that clear sets all of them to 0.
+     */
+    @Test
+    public void testIntRegisters() {
+        for (RegisterFile.Layout layout : RegisterFile.Layout.values()) {
+            RegisterFile registers = layout.createInt(10);
+            assertEquals(10, registers.size());
+
+            registers.set(0, Integer.MIN_VALUE);
+            registers.setBoolean(1, true);
+            registers.setLong(9, Integer.MAX_VALUE);
+            assertEquals(layout + ": ", Integer.MIN_VALUE, registers.get(0));
+            assertEquals(layout + ": ", Integer.MIN_VALUE,
+                registers.getLong(0));
+            assertTrue(layout + ": ", registers.getBoolean(1));
+            assertFalse(layout + ": ", registers.getBoolean(2));
+            assertEquals(layout + ": ", Integer.MAX_VALUE, registers.get(9));
+
+            if (layout != RegisterFile.Layout.PADDED) {
+                try {
+                    registers.setLong(2, 1L << 32);
+                    fail(layout + " stored a long in an int register");
+                } catch (IllegalArgumentException e) {
+                    // Expected
+                }
+            }
+
+            registers.clear();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(layout + ": ", 0, registers.get(i));
+            }
+        }
+        assertTrue(RegisterFile.Layout.COMPACT.createInt(1)
+            instanceof CompactIntRegisterFile);
+        assertTrue(RegisterFile.Layout.OFF_HEAP.createInt(1)
+            instanceof OffHeapIntRegisterFile);
+    }
+
+    /** Test that the layouts reject sizes they cannot index
+     */
+    @Test
+    public void testInvalidSize() {
+        try {
+            RegisterFile.Layout.PADDED.create(Integer.MAX_VALUE / 8);
+            fail("PADDED accepted a size it cannot index");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            RegisterFile.Layout.OFF_HEAP.create(-1);
+            fail("OFF_HEAP accepted a negative size");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        RegisterFile registers = RegisterFile.Layout.PADDED.create(4);
+        try {
+            registers.setLong(4, 1);
+            fail("PADDED accepted an index out of bounds");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
+    /** Test the four ported locks on every layout by running the increment
+     * benchmark on them.
+     */
+    @Test
+    public void testLocksOnAllLayouts() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        SpinPolicy spinPolicy = SpinPolicy.spinThenYield();
+
+        for (RegisterFile.Layout layout : RegisterFile.Layout.values()) {
+            Lock[] locks = {
+                new TournamentLock(NUM_WORKERS, spinPolicy, layout),
+                new ColoredBakeryLock(NUM_WORKERS, spinPolicy, layout),
+                new OneBitLock(NUM_WORKERS, spinPolicy, layout),
+                // Each acquisition moves next at most n levels further
+                new AdaptiveLock(NUM_WORKERS,
+                    NUM_WORKERS * (NUM_WORKERS * INCREMENTS + 2), spinPolicy,
+                    layout)
+            };
+            for (Lock lock : locks) {
+                String name = lock.getClass().getSimpleName() + " on " + layout;
+                int c = benchmark.runIncrementBenchmark(NUM_WORKERS,
+                    INCREMENTS, lock);
+                assertEquals("Synchronization error in " + name + ": ", 0, c);
+
+                lock.reset();
+                c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+                    lock);
+                assertEquals("Synchronization error after reset in " + name
+                    + ": ", 0, c);
+            }
+        }
+    }
+}
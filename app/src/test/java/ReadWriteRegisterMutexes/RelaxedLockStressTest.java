@@ -0,0 +1,169 @@
+/** Stress tests of the locks with relaxed memory ordering
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ReadWriteRegisterMutexes.Adaptive.RelaxedAdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.RelaxedColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.RelaxedOneBitLock;
+import ReadWriteRegisterMutexes.Tournament.RelaxedTournamentLock;
+
+public class RelaxedLockStressTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 8;
+
+    /** Number of critical sections per thread with threads that yield
+     */
+    private static final int ROUNDS = 200000;
+
+    /** Number of critical sections per thread with busy waiting threads
+     */
+    private static final int BUSY_ROUNDS = 20000;
+
+    /** Number of busy waiting threads
+     *
+     * Busy waiting threads need a CPU each to make progress, so there is one
+     * per available CPU.
+     */
+    private static final int BUSY_WORKERS =
+        Math.min(NUM_WORKERS, Runtime.getRuntime().availableProcessors());
+
+    /** Maximum number of splitters of RelaxedAdaptiveLock
+     */
+    private static final int MAX_SPLITTERS = 2000000;
+
+    /** Thread in the critical section, or -1
+     *
+     * Plain fields, so a broken lock lets the threads see each other in the
+     * critical section, and loses updates of counter.
+     */
+    private int owner;
+
+    /** Number of critical sections run
+     */
+    private long counter;
+
+    /** Build one instance of every relaxed lock
+     *
+     * @param policy    Policy of the wait loops
+     * @return Locks sized for NUM_WORKERS threads
+     */
+    private static Lock[] relaxedLocks(SpinPolicy policy) {
+        return new Lock[] {
+            new RelaxedTournamentLock(NUM_WORKERS, policy),
+            new RelaxedColoredBakeryLock(NUM_WORKERS, policy),
+            new RelaxedOneBitLock(NUM_WORKERS, policy),
+            new RelaxedAdaptiveLock(NUM_WORKERS, MAX_SPLITTERS, policy)
+        };
+    }
+
+    /** Run a number of critical sections per thread on a lock
+     *
+     * Each critical section claims owner, updates counter with a plain read
+     * and write, and checks that owner did not change meanwhile.
+     *
+     * @param lock  Lock to stress
+     * @param numWorkers    Number of threads
+     * @param rounds    Number of critical sections per thread
+     * @return Number of critical sections that saw another thread inside
+     */
+    private int stress(Lock lock, int numWorkers, int rounds)
+            throws InterruptedException {
+        int[] overlaps = new int[numWorkers];
+        Thread[] threads = new Thread[numWorkers];
+        this.owner = -1;
+        this.counter = 0;
+
+        for (int i = 0; i < numWorkers; i++) {
+            final int tid = i;
+            threads[i] = new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    lock.lock(tid);
+                    if (this.owner != -1) {
+                        overlaps[tid]++;
+                    }
+                    this.owner = tid;
+                    long c = this.counter;
+                    Thread.onSpinWait();
+                    this.counter = c + 1;
+                    if (this.owner != tid) {
+                        overlaps[tid]++;
+                    }
+                    this.owner = -1;
+                    lock.unlock(tid);
+                }
+            }, "T" + i);
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        int total = 0;
+        for (int o : overlaps) {
+            total += o;
+        }
+        return total;
+    }
+
+    /** Stress every relaxed lock with busy waiting threads, which keeps the
+     * wait loops reading registers while other threads write them.
+     *
+     * It needs at least 2 CPUs: with one, a busy waiting thread keeps the
+     * lock holder off the CPU for its whole time slice.
+     */
+    @Test
+    public void testRelaxedLocksBusyWait() throws InterruptedException {
+        Assume.assumeTrue("Busy waiting needs at least 2 CPUs",
+            BUSY_WORKERS >= 2);
+        for (Lock lock : relaxedLocks(SpinPolicy.onSpinWait())) {
+            String name = lock.getClass().getSimpleName();
+            assertEquals("Threads overlapped in " + name + ": ", 0,
+                this.stress(lock, BUSY_WORKERS, BUSY_ROUNDS));
+            assertEquals("Lost updates in " + name + ": ",
+                (long) BUSY_WORKERS * BUSY_ROUNDS, this.counter);
+        }
+    }
+
+    /** Stress every relaxed lock with threads that yield, which interleaves
+     * them at many more points of the protocols when there are fewer CPUs
+     * than threads, and reuse each lock after a reset.
+     */
+    @Test
+    public void testRelaxedLocksYieldAndReset() throws InterruptedException {
+        for (Lock lock : relaxedLocks(SpinPolicy.spinThenYield())) {
+            String name = lock.getClass().getSimpleName();
+            for (int run = 0; run < 2; run++) {
+                assertEquals("Threads overlapped in " + name + ": ", 0,
+                    this.stress(lock, NUM_WORKERS, ROUNDS));
+                assertEquals("Lost updates in " + name + ": ",
+                    (long) NUM_WORKERS * ROUNDS, this.counter);
+                lock.reset();
+            }
+        }
+    }
+
+    /** Test that RelaxedAdaptiveLock fails instead of going past its last
+     * splitter: each uncontended acquisition moves next one level down.
+     */
+    @Test
+    public void testRelaxedAdaptiveLockOutOfSplitters() {
+        RelaxedAdaptiveLock lock = new RelaxedAdaptiveLock(1, 2);
+        for (int i = 0; i < 2; i++) {
+            lock.lock(0);
+            lock.unlock(0);
+        }
+        try {
+            lock.lock(0);
+            fail("Acquired past the last splitter");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/** SlotRegistry and LeasedLock tests
+ */
+package ReadWriteRegisterMutexes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SlotRegistryTest {
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of increments per task
+     */
+    private static final int INCREMENTS = 20000;
+
+    /** Test that concurrent threads get distinct slots, and keep theirs.
+     */
+    @Test
+    public void testDistinctSlots() throws InterruptedException {
+        SlotRegistry registry = new SlotRegistry(NUM_WORKERS);
+        AtomicIntegerArray taken = new AtomicIntegerArray(NUM_WORKERS);
+        Thread[] threads = new Thread[NUM_WORKERS];
+        Object barrier = new Object();
+        boolean[] done = new boolean[1];
+
+        for (int i = 0; i < NUM_WORKERS; i++) {
+            threads[i] = new Thread(() -> {
+                int slot = registry.slot();
+                taken.incrementAndGet(slot);
+                assertEquals(slot, registry.slot());
+                // Stay alive until every thread has its slot
+                synchronized (barrier) {
+                    while (!done[0]) {
+                        try {
+                            barrier.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        while (registry.getNumLeased() < NUM_WORKERS) {
+            Thread.sleep(1);
+        }
+        synchronized (barrier) {
+            done[0] = true;
+            barrier.notifyAll();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < NUM_WORKERS; i++) {
+            assertEquals("Slot " + i + " leased: ", 1, taken.get(i));
+        }
+        assertEquals(0, registry.getNumLeased());
+    }
+
+    /** Test that the slots of terminated threads are reclaimed, and that a
+     * thread can release its slot.
+     */
+    @Test
+    public void testReclaimAndRelease() throws InterruptedException {
+        SlotRegistry registry = new SlotRegistry(1);
+
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(registry::slot);
+            thread.start();
+            thread.join();
+        }
+        assertEquals(0, registry.slot());
+        assertEquals(1, registry.getNumLeased());
+
+        int[] slot = {-2};
+        Thread thread = new Thread(() -> {
+            try {
+                slot[0] = registry.slot();
+            } catch (IllegalStateException e) {
+                slot[0] = -1;
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals("Slot leased twice: ", -1, slot[0]);
+
+        registry.release();
+        assertEquals(0, registry.getNumLeased());
+        thread = new Thread(() -> slot[0] = registry.slot());
+        thread.start();
+        thread.join();
+        assertEquals(0, slot[0]);
+    }
+
+    /** Test the leased lock on a thread pool with more tasks than threads, and
+     * on new threads that reclaim the slots of the previous ones.
+     */
+    @Test
+    public void testLeasedLockIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        String[] lockTypes = {"TournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"};
+
+        for (String lockType : lockTypes) {
+            LeasedLock lock = new LeasedLock(LockFactory.create(lockType,
+                NUM_WORKERS, SpinPolicy.spinThenYield()), NUM_WORKERS);
+            int c = benchmark.runPoolIncrementBenchmark(NUM_WORKERS,
+                4 * NUM_WORKERS, INCREMENTS, lock);
+            assertEquals("Synchronization error in pool with " + lockType
+                + ": ", 0, c);
+            for (int run = 0; run < 3; run++) {
+                c = benchmark.runIncrementBenchmark(NUM_WORKERS, INCREMENTS,
+                    lock);
+                assertEquals("Synchronization error in " + lockType + " run "
+                    + run + ": ", 0, c);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/** Tests of the locks specialized for a fixed number of threads
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SpecializedLockTest {
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 20000;
+
+    /** Lock types with specialized classes
+     */
+    private static final String[] LOCK_TYPES = {"TournamentLock",
+        "ColoredBakeryLock", "OneBitLock"};
+
+    /** Test that the factory builds the generated classes for 2, 4 and 8
+     * threads, and that they work, also after a reset.
+     */
+    @Test
+    public void testSpecializedLockIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        for (String lockType : LOCK_TYPES) {
+            for (int n = 2; n <= 8; n *= 2) {
+                Lock lock = LockFactory.createSpecialized(lockType, n,
+                    SpinPolicy.spinThenYield());
+                assertEquals(lockType + n, lock.getClass().getSimpleName());
+
+                int c = benchmark.runIncrementBenchmark(n, INCREMENTS, lock);
+                assertEquals("Synchronization error in " + lockType + n
+                    + ": ", 0, c);
+                lock.reset();
+                c = benchmark.runIncrementBenchmark(n, INCREMENTS, lock);
+                assertEquals("Synchronization error after reset in "
+                    + lockType + n + ": ", 0, c);
+            }
+        }
+    }
+
+    /** Test that the factory falls back to the generic class when there is no
+     * specialized one, and rounds tournaments up to a power of 2.
+     */
+    @Test
+    public void testFallback() {
+        SpinPolicy policy = SpinPolicy.busyWait();
+        assertEquals("TournamentLock4", LockFactory.createSpecialized(
+            "TournamentLock", 3, policy).getClass().getSimpleName());
+        assertEquals("ColoredBakeryLock", LockFactory.createSpecialized(
+            "ColoredBakeryLock", 3, policy).getClass().getSimpleName());
+        assertEquals("OneBitLock", LockFactory.createSpecialized(
+            "OneBitLock", 16, policy).getClass().getSimpleName());
+        assertEquals("KesselsTournamentLock", LockFactory.createSpecialized(
+            "KesselsTournamentLock", 8, policy).getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,80 @@
+/** SpinPolicy tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ReadWriteRegisterMutexes.Adaptive.AdaptiveLock;
+import ReadWriteRegisterMutexes.ColoredBakery.PackedColoredBakeryLock;
+import ReadWriteRegisterMutexes.OneBit.OneBitLock;
+import ReadWriteRegisterMutexes.Tournament.KesselsTournamentLock;
+
+public class SpinPolicyTest {
+    /** Names of the built-in policies
+     */
+    private static final String[] POLICIES = {
+        "BUSY_WAIT", "ON_SPIN_WAIT", "BACKOFF", "SPIN_THEN_YIELD"
+    };
+
+    /** Number of threads using each lock
+     */
+    private static final int NUM_WORKERS = 4;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 2000;
+
+    /** Test that the built-in policies can be found by name, and that
+     * unknown names are rejected.
+     */
+    @Test
+    public void testFromName() {
+        assertSame(SpinPolicy.busyWait(), SpinPolicy.fromName("BUSY_WAIT"));
+        assertSame(SpinPolicy.onSpinWait(), SpinPolicy.fromName("ON_SPIN_WAIT"));
+        assertSame(SpinPolicy.backoff(), SpinPolicy.fromName("BACKOFF"));
+        assertSame(SpinPolicy.spinThenYield(),
+            SpinPolicy.fromName("SPIN_THEN_YIELD"));
+
+        try {
+            SpinPolicy.fromName("SLEEP");
+            fail("Unknown spin policy accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /** Test that the backoff policy returns for spin counts that overflowed to
+     * negative values.
+     */
+    @Test(timeout = 10000)
+    public void testBackoffNegativeSpins() {
+        SpinPolicy.backoff().spin(0, -1);
+        SpinPolicy.backoff().spin(0, Integer.MIN_VALUE);
+    }
+
+    /** Test locks of every family with every built-in policy by running the
+     * increment benchmark on them.
+     */
+    @Test
+    public void testLocksWithEveryPolicy() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+
+        for (String name : POLICIES) {
+            SpinPolicy policy = SpinPolicy.fromName(name);
+            Lock[] locks = {
+                new KesselsTournamentLock(NUM_WORKERS, policy),
+                new PackedColoredBakeryLock(NUM_WORKERS, policy),
+                new OneBitLock(NUM_WORKERS, policy),
+                new AdaptiveLock(NUM_WORKERS, 1000000, policy)
+            };
+            for (Lock lock : locks) {
+                int c = benchmark.runIncrementBenchmark(NUM_WORKERS,
+                    INCREMENTS, lock);
+                assertEquals("Synchronization error in "
+                    + lock.getClass().getSimpleName() + " with " + name
+                    + ": ", 0, c);
+            }
+        }
+    }
+}
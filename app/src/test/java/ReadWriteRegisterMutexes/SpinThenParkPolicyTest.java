@@ -0,0 +1,182 @@
+/** SpinThenParkPolicy tests
+ */
+package ReadWriteRegisterMutexes;
+
+import ReadWriteRegisterMutexes.Adaptive.AdaptiveLock;
+import ReadWriteRegisterMutexes.Adaptive.RelaxedAdaptiveLock;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SpinThenParkPolicyTest {
+    /** Number of threads per available CPU
+     */
+    private static final int THREADS_PER_CPU = 4;
+
+    /** Number of increments per thread
+     */
+    private static final int INCREMENTS = 2000;
+
+    /** Maximum number of splitters of the adaptive locks (the factory default
+     * does not fit in the test heap)
+     */
+    private static final int MAX_SPLITTERS = 1000000;
+
+    /** Test every lock with a spin then park policy that parks after a few
+     * iterations, with more threads than CPUs, by running the increment
+     * benchmark on them.
+     */
+    @Test
+    public void testOversubscribedLocks() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        int numWorkers = THREADS_PER_CPU
+            * Runtime.getRuntime().availableProcessors();
+
+        for (String lockType : LockFactory.getLockTypes()) {
+            SpinPolicy policy = new SpinThenParkPolicy(10, 1000000);
+            Lock lock;
+            if (lockType.equals("AdaptiveLock")) {
+                lock = new AdaptiveLock(numWorkers, MAX_SPLITTERS, policy);
+            } else if (lockType.equals("RelaxedAdaptiveLock")) {
+                lock = new RelaxedAdaptiveLock(numWorkers, MAX_SPLITTERS,
+                    policy);
+            } else {
+                lock = LockFactory.create(lockType, numWorkers, policy);
+            }
+            int c = benchmark.runIncrementBenchmark(numWorkers, INCREMENTS,
+                lock);
+            assertEquals("Synchronization error in " + lockType + ": ", 0, c);
+        }
+    }
+
+    /** Test that a waiting thread parks once its spin budget is used, and
+     * that unlocked wakes it up before the park time is over.
+     */
+    @Test
+    public void testUnlockedWakesParkedThread() throws InterruptedException {
+        SpinThenParkPolicy policy = new SpinThenParkPolicy(0, 60000000000L);
+        Thread waiter = new Thread(() -> {
+            policy.spin(0, 0);  // Register
+            policy.spin(0, 1);  // Park
+        });
+
+        long start = System.nanoTime();
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING
+                && waiter.isAlive()) {
+            Thread.yield();
+        }
+        policy.unlocked(1);
+        waiter.join(10000);
+
+        assertFalse("Parked thread was not woken up", waiter.isAlive());
+        assertTrue("Parked thread waited for the park timeout",
+            System.nanoTime() - start < 30000000000L);
+    }
+
+    /** Test that unlocked wakes up every parked thread by default
+     */
+    @Test
+    public void testUnlockedWakesAll() throws InterruptedException {
+        SpinThenParkPolicy policy = new SpinThenParkPolicy(0, 60000000000L);
+        Thread[] waiters = new Thread[4];
+        for (int tid = 1; tid < waiters.length; tid++) {
+            int id = tid;
+            waiters[tid] = new Thread(() -> {
+                policy.spin(id, 0);     // Register
+                policy.spin(id, 1);     // Park
+            });
+            waiters[tid].start();
+        }
+        for (int tid = 1; tid < waiters.length; tid++) {
+            awaitParked(waiters[tid]);
+        }
+
+        policy.unlocked(0);
+        for (int tid = 1; tid < waiters.length; tid++) {
+            waiters[tid].join(10000);
+            assertFalse("Parked thread " + tid + " was not woken up",
+                waiters[tid].isAlive());
+        }
+    }
+
+    /** Test that with the successor wake mode, unlocked only wakes up the
+     * next parked thread after the unlocking thread, and that a woken thread
+     * that parks again passes the wake-up on to its own successor.
+     */
+    @Test
+    public void testUnlockedWakesSuccessor() throws InterruptedException {
+        SpinThenParkPolicy policy = new SpinThenParkPolicy(0, 60000000000L,
+            SpinThenParkPolicy.DEFAULT_MAX_THREADS,
+            SpinThenParkPolicy.WakeMode.SUCCESSOR);
+        Thread[] waiters = new Thread[4];
+        for (int tid = 1; tid < waiters.length; tid += 2) {
+            int id = tid;
+            waiters[tid] = new Thread(() -> {
+                policy.spin(id, 0);     // Register
+                policy.spin(id, 1);     // Park
+            });
+            waiters[tid].start();
+        }
+        for (int tid = 1; tid < waiters.length; tid += 2) {
+            awaitParked(waiters[tid]);
+        }
+
+        // Thread 1 is the successor of thread 0, thread 3 stays parked
+        policy.unlocked(0);
+        waiters[1].join(10000);
+        assertFalse("Successor was not woken up", waiters[1].isAlive());
+        Thread.sleep(100);
+        assertEquals("Other parked thread was woken up",
+            Thread.State.TIMED_WAITING, waiters[3].getState());
+
+        // Thread 1 still cannot enter: it registers again and wakes thread 3
+        policy.spin(1, 0);
+        waiters[3].join(10000);
+        assertFalse("Wake-up was not passed on", waiters[3].isAlive());
+    }
+
+    /** Wait until a thread is parked
+     *
+     * @param thread    Thread
+     */
+    private static void awaitParked(Thread thread) {
+        while (thread.getState() != Thread.State.TIMED_WAITING
+                && thread.isAlive()) {
+            Thread.yield();
+        }
+    }
+
+    /** Test that thread IDs without a slot are rejected
+     */
+    @Test
+    public void testTidOutOfRange() {
+        SpinThenParkPolicy policy = new SpinThenParkPolicy(0, 1000000, 4);
+        try {
+            policy.unlocked(4);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            policy.spin(4, 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /** Test that spin then park policies are built per lock by name
+     */
+    @Test
+    public void testFromName() {
+        SpinPolicy a = SpinPolicy.fromName("SPIN_THEN_PARK");
+        SpinPolicy b = SpinPolicy.fromName("SPIN_THEN_PARK");
+        assertTrue(a instanceof SpinThenParkPolicy);
+        assertNotSame(a, b);
+        assertEquals(SpinThenParkPolicy.WakeMode.ALL,
+            ((SpinThenParkPolicy) a).getWakeMode());
+        SpinPolicy c = SpinPolicy.fromName("SPIN_THEN_PARK_SUCCESSOR");
+        assertEquals(SpinThenParkPolicy.WakeMode.SUCCESSOR,
+            ((SpinThenParkPolicy) c).getWakeMode());
+    }
+}
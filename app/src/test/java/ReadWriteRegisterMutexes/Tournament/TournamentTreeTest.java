@@ -0,0 +1,81 @@
+/** TournamentTree tests
+ */
+package ReadWriteRegisterMutexes.Tournament;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ReadWriteRegisterMutexes.Tournament.TournamentTree;
+
+public class TournamentTreeTest {
+    /** Test that a power of 2 number of threads builds the complete binary
+     * tree, where every thread contests in every level.
+     */
+    @Test
+    public void testTournamentTreePowerOfTwo() {
+        TournamentTree tree = new TournamentTree(8);
+
+        assertEquals("Wrong height: ", 3, tree.getHeight());
+        assertEquals("Wrong number of nodes: ", 7, tree.getNumNodes());
+        for (int tid = 0; tid < 8; tid++) {
+            assertArrayEquals("Wrong nodes for T" + tid + ": ",
+                new int[] {tid / 2, 4 + tid / 4, 6},
+                tree.getPathNodes(tid));
+            assertArrayEquals("Wrong sides for T" + tid + ": ",
+                new int[] {tid % 2, (tid / 2) % 2, (tid / 4) % 2},
+                tree.getPathSides(tid));
+        }
+    }
+
+    /** Test that a thread without a sibling skips the contests it cannot lose,
+     * and that the tree only has the nodes that are contested.
+     */
+    @Test
+    public void testTournamentTreeRagged() {
+        TournamentTree tree = new TournamentTree(9);
+
+        assertEquals("Wrong height: ", 4, tree.getHeight());
+        assertEquals("Wrong number of nodes: ", 8, tree.getNumNodes());
+        assertEquals("Wrong path length for T0: ", 4,
+            tree.getPathNodes(0).length);
+        assertArrayEquals("Wrong nodes for T8: ", new int[] {7},
+            tree.getPathNodes(8));
+        assertArrayEquals("Wrong sides for T8: ", new int[] {1},
+            tree.getPathSides(8));
+
+        tree = new TournamentTree(12);
+        assertEquals("Wrong number of nodes: ", 11, tree.getNumNodes());
+        assertEquals("Wrong path length for T0: ", 4,
+            tree.getPathNodes(0).length);
+        assertEquals("Wrong path length for T11: ", 3,
+            tree.getPathNodes(11).length);
+    }
+
+    /** Test that every node of a ragged tree is contested by exactly one
+     * thread on each side.
+     */
+    @Test
+    public void testTournamentTreeNodesHaveTwoSides() {
+        for (int numThreads = 1; numThreads <= 33; numThreads++) {
+            TournamentTree tree = new TournamentTree(numThreads);
+            int[][] sides = new int[tree.getNumNodes()][2];
+
+            assertEquals("Wrong number of nodes: ", numThreads - 1,
+                tree.getNumNodes());
+            for (int tid = 0; tid < numThreads; tid++) {
+                int[] nodes = tree.getPathNodes(tid);
+                for (int k = 0; k < nodes.length; k++) {
+                    sides[nodes[k]][tree.getPathSides(tid)[k]]++;
+                }
+            }
+
+            // Every node pairs two subtrees, so both of its sides must be used
+            for (int node = 0; node < tree.getNumNodes(); node++) {
+                assertTrue("Node " + node + " of " + numThreads
+                    + " threads is missing side 0", sides[node][0] > 0);
+                assertTrue("Node " + node + " of " + numThreads
+                    + " threads is missing side 1", sides[node][1] > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/** VirtualThreadLock and TidPool tests
+ */
+package ReadWriteRegisterMutexes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class VirtualThreadLockTest {
+    /** Number of thread IDs of each lock
+     */
+    private static final int NUM_TIDS = 4;
+
+    /** Number of tasks
+     */
+    private static final int NUM_TASKS = 1000;
+
+    /** Number of increments per task
+     */
+    private static final int INCREMENTS = 100;
+
+    /** Test that the pool hands out distinct IDs, and blocks when they are
+     * all taken until one is given back.
+     */
+    @Test
+    public void testTidPool() throws InterruptedException {
+        TidPool pool = new TidPool(NUM_TIDS);
+        boolean[] seen = new boolean[NUM_TIDS];
+        for (int i = 0; i < NUM_TIDS; i++) {
+            int tid = pool.acquire();
+            assertFalse("ID " + tid + " taken twice", seen[tid]);
+            seen[tid] = true;
+        }
+        assertEquals(NUM_TIDS, pool.getNumTaken());
+
+        int[] blocked = {-1};
+        Thread thread = new Thread(() -> blocked[0] = pool.acquire());
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertEquals(-1, blocked[0]);
+        pool.release(2);
+        thread.join();
+        assertEquals(2, blocked[0]);
+    }
+
+    /** Test the virtual thread benchmark on every wrapped lock, with more
+     * tasks than thread IDs.
+     */
+    @Test
+    public void testVirtualThreadIncrement() {
+        IncrementBenchmark benchmark = new IncrementBenchmark();
+        String[] lockTypes = {"TournamentLock", "ColoredBakeryLock",
+            "OneBitLock", "RecyclingAdaptiveLock"};
+
+        for (String lockType : lockTypes) {
+            VirtualThreadLock lock = new VirtualThreadLock(LockFactory.create(
+                lockType, NUM_TIDS, SpinPolicy.virtualAware()), NUM_TIDS);
+            int c = benchmark.runVirtualThreadBenchmark(NUM_TASKS, INCREMENTS,
+                lock);
+            assertEquals("Synchronization error in " + lockType + ": ", 0, c);
+            assertEquals(0, lock.getTids().getNumTaken());
+        }
+    }
+
+    /** Test the virtual thread aware policy is a built-in policy, and that
+     * platform threads are not virtual.
+     */
+    @Test
+    public void testVirtualAwarePolicy() {
+        assertSame(SpinPolicy.virtualAware(),
+            SpinPolicy.fromName("VIRTUAL_AWARE"));
+        assertFalse(VirtualThreads.isVirtual(Thread.currentThread()));
+    }
+}